@@ -11,6 +11,8 @@ import com.giraone.jobs.materialize.persistence.JobRecord;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -24,6 +26,8 @@ import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.ReceiverRecord;
 
 import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,6 +43,12 @@ public class ConsumerService implements CommandLineRunner {
     private static final String METRICS_JOBS_UPDATE_SUCCESS = "jobs.update.success";
     private static final String METRICS_JOBS_UPDATE_FAILURE = "jobs.update.failure";
 
+    // routing headers of the schedule service (see RoutingHeaders there)
+    private static final String HEADER_status = "job-status";
+    private static final String HEADER_agentKey = "job-agent-key";
+    private static final String HEADER_pausedBucketKey = "job-paused-bucket-key";
+    private static final String HEADER_eventTimestamp = "job-event-timestamp";
+
     private final StateRecordService stateRecordService;
     private final MeterRegistry meterRegistry;
     private final ReactiveKafkaConsumerTemplate<String, String> reactiveKafkaConsumerTemplateInserts;
@@ -158,6 +168,7 @@ public class ConsumerService implements CommandLineRunner {
         final String messageKey = consumerRecord.key();
         LOGGER.debug(">>> UPD KEY={}, TOPIC={}, MESSAGE={}", messageKey, consumerRecord.topic(), consumerRecord.value());
         return parseChangeEvent(consumerRecord.value())
+            .map(event -> applyRoutingHeaders(event, consumerRecord.headers()))
             .flatMap(this::storeStateForExistingJob)
             .doOnSuccess(databaseResult -> {
                 this.updateSuccessCounter.increment();
@@ -227,6 +238,36 @@ public class ConsumerService implements CommandLineRunner {
         }
     }
 
+    /**
+     * With header routing in the schedule service, the value of a scheduled or paused job is still the accepted job
+     * and the routing fields are sent as Kafka headers, that take precedence over the fields of the value.
+     */
+    private JobStatusChangedEvent applyRoutingHeaders(JobStatusChangedEvent event, Headers headers) {
+
+        final String status = lastHeader(headers, HEADER_status);
+        if (status != null) {
+            event.setStatus(status);
+        }
+        final String eventTimestamp = lastHeader(headers, HEADER_eventTimestamp);
+        if (eventTimestamp != null) {
+            event.setEventTimestamp(Instant.parse(eventTimestamp));
+        }
+        final String agentKey = lastHeader(headers, HEADER_agentKey);
+        if (agentKey != null) {
+            event.setAgentKey(agentKey);
+        }
+        final String pausedBucketKey = lastHeader(headers, HEADER_pausedBucketKey);
+        if (pausedBucketKey != null) {
+            event.setPausedBucketKey(pausedBucketKey);
+        }
+        return event;
+    }
+
+    private static String lastHeader(Headers headers, String name) {
+        final Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
     private Mono<DatabaseResult> storeStateForNewJob(JobAcceptedEvent jobAcceptedEvent, String processKey) {
 
         LOGGER.debug("Mono for INSERT id={}, eventTimestamp={}, state={}",
@@ -0,0 +1,79 @@
+package com.giraone.jobs.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A {@link BlobStore} in a (shared) directory. The reference is the SHA-256 hash of the content ("sha256-" + hex).
+ * The files are spread over sub directories named by the first two hex digits.
+ */
+public class FileBlobStore implements BlobStore {
+
+    private static final String PREFIX = "sha256-";
+
+    private final Path directory;
+
+    public FileBlobStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String put(byte[] content) {
+
+        final String hash = sha256(content);
+        final Path file = fileOf(hash);
+        if (Files.exists(file)) {
+            return PREFIX + hash;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            // readers never see a partially written file
+            final Path temporaryFile = Files.createTempFile(file.getParent(), hash, ".tmp");
+            Files.write(temporaryFile, content);
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // stored in parallel - the content is the same
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PREFIX + hash;
+    }
+
+    @Override
+    public byte[] get(String reference) {
+
+        if (!reference.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Invalid blob reference \"" + reference + "\"!");
+        }
+        try {
+            return Files.readAllBytes(fileOf(reference.substring(PREFIX.length())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path fileOf(String hash) {
+        if (hash.length() < 3 || !hash.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("Invalid blob hash \"" + hash + "\"!");
+        }
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import reactor.core.publisher.Hooks;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
 
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 // exclude from test coverage
@@ -30,6 +32,39 @@ public class ApplicationProperties {
      * Name of event topic with new jobs/entries.
      */
     private String jobAcceptedTopic = DEFAULT_JOB_ACCEPTED_TOPIC;
+    /**
+     * Tuning of the Kafka producer.
+     */
+    private Producer producer = new Producer();
+    /**
+     * Limits of jobs, that are passed to Kafka, but not yet acknowledged.
+     */
+    private Admission admission = new Admission();
+    /**
+     * Local spool for jobs, that cannot be passed to Kafka.
+     */
+    private Spool spool = new Spool();
+    /**
+     * Deduplication of jobs by the "Idempotency-Key" header.
+     */
+    private Idempotency idempotency = new Idempotency();
+    /**
+     * Byte patterns, that must not occur in a job. A job containing one of them is rejected.
+     */
+    private List<String> forbiddenPatterns = List.of("PATTERN-X");
+    /**
+     * If true, POST /api/jobs answers with 202, before Kafka has acknowledged the job.
+     * A client can request this per request with the header "Prefer: respond-async".
+     */
+    private boolean asyncAccept;
+    /**
+     * Maximum number of jobs, whose publish outcome is kept for GET /api/jobs/{id}/status.
+     */
+    private int jobStatusCacheSize = 100000;
+    /**
+     * Offload of large payloads to a blob store.
+     */
+    private ClaimCheck claimCheck = new ClaimCheck();
 
     @SuppressWarnings("squid:S2629") // invoke conditionally
     @PostConstruct
@@ -85,6 +120,70 @@ public class ApplicationProperties {
         this.jobAcceptedTopic = jobAcceptedTopic;
     }
 
+    public Producer getProducer() {
+        return producer;
+    }
+
+    public void setProducer(Producer producer) {
+        this.producer = producer;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public void setSpool(Spool spool) {
+        this.spool = spool;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    public List<String> getForbiddenPatterns() {
+        return forbiddenPatterns;
+    }
+
+    public void setForbiddenPatterns(List<String> forbiddenPatterns) {
+        this.forbiddenPatterns = forbiddenPatterns;
+    }
+
+    public boolean isAsyncAccept() {
+        return asyncAccept;
+    }
+
+    public void setAsyncAccept(boolean asyncAccept) {
+        this.asyncAccept = asyncAccept;
+    }
+
+    public int getJobStatusCacheSize() {
+        return jobStatusCacheSize;
+    }
+
+    public void setJobStatusCacheSize(int jobStatusCacheSize) {
+        this.jobStatusCacheSize = jobStatusCacheSize;
+    }
+
+    public ClaimCheck getClaimCheck() {
+        return claimCheck;
+    }
+
+    public void setClaimCheck(ClaimCheck claimCheck) {
+        this.claimCheck = claimCheck;
+    }
+
     @Override
     public String toString() {
         return "ApplicationProperties{" +
@@ -92,6 +191,363 @@ public class ApplicationProperties {
             ", debugHooks=" + debugHooks +
             ", debugAgent=" + debugAgent +
             ", jobAcceptedTopic='" + jobAcceptedTopic + '\'' +
+            ", producer=" + producer +
+            ", admission=" + admission +
+            ", spool=" + spool +
+            ", idempotency=" + idempotency +
+            ", forbiddenPatterns=" + forbiddenPatterns.size() +
+            ", asyncAccept=" + asyncAccept +
+            ", jobStatusCacheSize=" + jobStatusCacheSize +
+            ", claimCheck=" + claimCheck +
             '}';
     }
+
+    /**
+     * Named trade-offs between latency and throughput of the Kafka producer.
+     */
+    public enum ProducerProfile {
+        /**
+         * One unacknowledged record at a time. Ordering is kept by serializing all sends.
+         */
+        LATENCY(false, 1, 0, 16384),
+        /**
+         * Many unacknowledged records, batched by the Kafka client. Ordering and no duplicates are guaranteed
+         * by the idempotent producer (with at most 5 in-flight requests per connection).
+         */
+        THROUGHPUT(true, 1024, 5, 65536);
+
+        private final boolean idempotence;
+        private final int maxInFlight;
+        private final int lingerMs;
+        private final int batchSize;
+
+        ProducerProfile(boolean idempotence, int maxInFlight, int lingerMs, int batchSize) {
+            this.idempotence = idempotence;
+            this.maxInFlight = maxInFlight;
+            this.lingerMs = lingerMs;
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Producer {
+        /**
+         * The named profile, that defines the default values of the other producer settings.
+         */
+        private ProducerProfile profile = ProducerProfile.LATENCY;
+        /**
+         * Overrides the maximum number of records, that are sent without acknowledgement (reactor-kafka maxInFlight).
+         */
+        private Integer maxInFlight;
+        /**
+         * Overrides the Kafka producer setting linger.ms.
+         */
+        private Integer lingerMs;
+        /**
+         * Overrides the Kafka producer setting batch.size.
+         */
+        private Integer batchSize;
+
+        public ProducerProfile getProfile() {
+            return profile;
+        }
+
+        public void setProfile(ProducerProfile profile) {
+            this.profile = profile;
+        }
+
+        public Integer getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(Integer maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public Integer getLingerMs() {
+            return lingerMs;
+        }
+
+        public void setLingerMs(Integer lingerMs) {
+            this.lingerMs = lingerMs;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public boolean isIdempotenceEffective() {
+            return profile.idempotence;
+        }
+
+        public int getMaxInFlightEffective() {
+            return maxInFlight != null ? maxInFlight : profile.maxInFlight;
+        }
+
+        public int getLingerMsEffective() {
+            return lingerMs != null ? lingerMs : profile.lingerMs;
+        }
+
+        public int getBatchSizeEffective() {
+            return batchSize != null ? batchSize : profile.batchSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Producer{" +
+                "profile=" + profile +
+                ", maxInFlight=" + getMaxInFlightEffective() +
+                ", lingerMs=" + getLingerMsEffective() +
+                ", batchSize=" + getBatchSizeEffective() +
+                '}';
+        }
+    }
+
+    public static class Admission {
+        /**
+         * Maximum number of jobs in flight over all process keys. Further jobs are rejected with 429.
+         */
+        private int maxInFlight = 10000;
+        /**
+         * Maximum number of jobs in flight for one process key. Further jobs are rejected with 429.
+         */
+        private int maxInFlightPerProcessKey = 2000;
+        /**
+         * Value of the Retry-After header of a rejection.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxInFlightPerProcessKey() {
+            return maxInFlightPerProcessKey;
+        }
+
+        public void setMaxInFlightPerProcessKey(int maxInFlightPerProcessKey) {
+            this.maxInFlightPerProcessKey = maxInFlightPerProcessKey;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        @Override
+        public String toString() {
+            return "Admission{" +
+                "maxInFlight=" + maxInFlight +
+                ", maxInFlightPerProcessKey=" + maxInFlightPerProcessKey +
+                ", retryAfter=" + retryAfter +
+                '}';
+        }
+    }
+
+    public static class Spool {
+        /**
+         * If true, jobs are spooled, when Kafka is not available.
+         */
+        private boolean enabled;
+        /**
+         * Directory of the segment files.
+         */
+        private String directory = "spool";
+        /**
+         * Size of one segment file in bytes.
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+        /**
+         * Interval, in which the spooled jobs are replayed to Kafka.
+         */
+        private Duration replayInterval = Duration.ofSeconds(5);
+        /**
+         * Number of spooled jobs, that are replayed pipelined and committed together.
+         */
+        private int replayChunkSize = 1000;
+        /**
+         * Maximum duration of a send to Kafka (blocking for metadata and delivery), before the job is spooled.
+         */
+        private Duration sendTimeout = Duration.ofSeconds(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Duration getReplayInterval() {
+            return replayInterval;
+        }
+
+        public void setReplayInterval(Duration replayInterval) {
+            this.replayInterval = replayInterval;
+        }
+
+        public int getReplayChunkSize() {
+            return replayChunkSize;
+        }
+
+        public void setReplayChunkSize(int replayChunkSize) {
+            this.replayChunkSize = replayChunkSize;
+        }
+
+        public Duration getSendTimeout() {
+            return sendTimeout;
+        }
+
+        public void setSendTimeout(Duration sendTimeout) {
+            this.sendTimeout = sendTimeout;
+        }
+
+        @Override
+        public String toString() {
+            return "Spool{" +
+                "enabled=" + enabled +
+                ", directory='" + directory + '\'' +
+                ", segmentSize=" + segmentSize +
+                ", replayInterval=" + replayInterval +
+                ", replayChunkSize=" + replayChunkSize +
+                ", sendTimeout=" + sendTimeout +
+                '}';
+        }
+    }
+
+    public static class Idempotency {
+        /**
+         * Maximum number of idempotency keys in memory.
+         */
+        private int maxSize = 100000;
+        /**
+         * Time, in which a job with the same idempotency key is detected as duplicate.
+         */
+        private Duration timeToLive = Duration.ofHours(1);
+        /**
+         * Optional compacted topic, that keeps the idempotency keys over a restart.
+         */
+        private String topic;
+        /**
+         * Maximum time to load the idempotency keys from the topic on startup.
+         */
+        private Duration loadTimeout = Duration.ofSeconds(30);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        public Duration getLoadTimeout() {
+            return loadTimeout;
+        }
+
+        public void setLoadTimeout(Duration loadTimeout) {
+            this.loadTimeout = loadTimeout;
+        }
+
+        @Override
+        public String toString() {
+            return "Idempotency{" +
+                "maxSize=" + maxSize +
+                ", timeToLive=" + timeToLive +
+                ", topic='" + topic + '\'' +
+                ", loadTimeout=" + loadTimeout +
+                '}';
+        }
+    }
+
+    public static class ClaimCheck {
+        /**
+         * If true, a "payload" larger than the threshold is written to the blob store and the job carries
+         * only the reference in "payloadRef".
+         */
+        private boolean enabled;
+        /**
+         * Minimum size of the payload in bytes, that is offloaded.
+         */
+        private int threshold = 64 * 1024;
+        /**
+         * Directory of the file based blob store - it must be shared with the schedule service.
+         */
+        private String directory = "blobs";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public String toString() {
+            return "ClaimCheck{" +
+                "enabled=" + enabled +
+                ", threshold=" + threshold +
+                ", directory='" + directory + '\'' +
+                '}';
+        }
+    }
 }
@@ -1,33 +1,100 @@
 package com.giraone.jobs.receiver.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
 import reactor.kafka.sender.SenderOptions;
 
+import java.util.Map;
+
 @Configuration
 public class KafkaProducerConfig {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaProducerConfig.class);
+
     @Bean
-    public SenderOptions<String, String> kafkaSenderOptions(KafkaProperties kafkaProperties) {
+    public SenderOptions<String, byte[]> kafkaSenderOptions(KafkaProperties kafkaProperties,
+                                                            ApplicationProperties applicationProperties) {
+
+        final ApplicationProperties.Producer producer = applicationProperties.getProducer();
+        final Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties();
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLingerMsEffective());
+        producerProperties.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSizeEffective());
+        if (producer.isIdempotenceEffective()) {
+            // the idempotent producer keeps ordering and prevents duplicates with up to 5 in-flight requests
+            producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+            producerProperties.put(ProducerConfig.ACKS_CONFIG, "all");
+            producerProperties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        }
+        final ApplicationProperties.Spool spool = applicationProperties.getSpool();
+        if (spool.isEnabled()) {
+            // A send fails after the send timeout instead of up to 60 s blocking plus 120 s delivery (the defaults), so
+            // the job is spooled. The timeout applies to every send, so also a latency spike of the broker spools jobs.
+            // An expired record may be appended by the broker nevertheless, so the job may be written twice with the
+            // same key: by the send and by the replay of the spool (at-least-once).
+            final int sendTimeoutMs = (int) spool.getSendTimeout().toMillis();
+            producerProperties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, (long) sendTimeoutMs);
+            producerProperties.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, sendTimeoutMs);
+            // delivery.timeout.ms must be at least linger.ms + request.timeout.ms
+            producerProperties.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Math.max(sendTimeoutMs - producer.getLingerMsEffective(), 1));
+            LOGGER.info("Jobs are spooled after a send timeout of {}", spool.getSendTimeout());
+        }
+        LOGGER.info("Using producer profile {}", producer);
 
-        SenderOptions<String, String> basicSenderOptions = SenderOptions
-            .create(kafkaProperties.buildProducerProperties());
+        // the message body is passed as the received JSON bytes
+        SenderOptions<String, byte[]> basicSenderOptions = SenderOptions.<String, byte[]>create(producerProperties)
+            .withKeySerializer(new StringSerializer())
+            .withValueSerializer(new ByteArraySerializer());
 
         // set some properties programmatically
         basicSenderOptions = basicSenderOptions
-            .maxInFlight(1) // to keep ordering, prevent duplicate messages (and avoid data loss )
+            // LATENCY: 1 to keep ordering, prevent duplicate messages (and avoid data loss )
+            // THROUGHPUT: ordering and no duplicates are guaranteed by the idempotent producer
+            .maxInFlight(producer.getMaxInFlightEffective())
+            // a failed record must not cancel the other records of a bulk request - see ProducerService
+            .stopOnError(false)
         ;
 
         return basicSenderOptions;
     }
 
     @Bean
-    public ReactiveKafkaProducerTemplate<String, String> reactiveKafkaProducerTemplate(SenderOptions<String, String> kafkaSenderOptions) {
+    @Primary
+    public ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate(SenderOptions<String, byte[]> kafkaSenderOptions) {
 
         return new ReactiveKafkaProducerTemplate<>(kafkaSenderOptions);
     }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.spool", name = "enabled", havingValue = "true")
+    public ReactiveKafkaProducerTemplate<String, byte[]> spoolReplayProducerTemplate(SenderOptions<String, byte[]> kafkaSenderOptions,
+                                                                                      ApplicationProperties applicationProperties) {
+
+        // A chunk of spooled jobs is sent pipelined, independent of the producer profile. The idempotent producer
+        // keeps the order with up to 5 in-flight requests per connection.
+        final SenderOptions<String, byte[]> replaySenderOptions = kafkaSenderOptions
+            .producerProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true)
+            .producerProperty(ProducerConfig.ACKS_CONFIG, "all")
+            .producerProperty(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5)
+            .maxInFlight(applicationProperties.getSpool().getReplayChunkSize());
+        return new ReactiveKafkaProducerTemplate<>(replaySenderOptions);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.idempotency", name = "topic")
+    public NewTopic idempotencyTopic(ApplicationProperties applicationProperties) {
+
+        // only the latest job key per idempotency key is needed
+        return TopicBuilder.name(applicationProperties.getIdempotency().getTopic()).compact().build();
+    }
 }
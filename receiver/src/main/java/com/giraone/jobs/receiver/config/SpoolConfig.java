@@ -0,0 +1,20 @@
+package com.giraone.jobs.receiver.config;
+
+import com.giraone.jobs.receiver.service.JobSpool;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(prefix = "application.spool", name = "enabled", havingValue = "true")
+public class SpoolConfig {
+
+    @Bean(destroyMethod = "close")
+    public JobSpool jobSpool(ApplicationProperties applicationProperties) {
+
+        final ApplicationProperties.Spool spool = applicationProperties.getSpool();
+        return new JobSpool(Path.of(spool.getDirectory()), spool.getSegmentSize());
+    }
+}
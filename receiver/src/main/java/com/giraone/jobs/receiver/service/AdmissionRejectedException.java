@@ -0,0 +1,20 @@
+package com.giraone.jobs.receiver.service;
+
+import java.time.Duration;
+
+/**
+ * Signals, that a job was not passed to Kafka, because too many jobs are already in flight.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
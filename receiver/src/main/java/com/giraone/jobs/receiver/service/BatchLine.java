@@ -0,0 +1,20 @@
+package com.giraone.jobs.receiver.service;
+
+/**
+ * One job of a bulk request. Contains the position of the job within the request and either the
+ * job content or the reason why the job cannot be accepted.
+ *
+ * @param index the 0-based index of the job within the request (blank lines are not counted)
+ * @param content the validated job content or null, when the line is invalid
+ * @param error the reason why the line cannot be accepted or null
+ */
+public record BatchLine(long index, JobContent content, Exception error) {
+
+    public static BatchLine of(long index, JobContent content) {
+        return new BatchLine(index, content, null);
+    }
+
+    public static BatchLine failed(long index, Exception error) {
+        return new BatchLine(index, null, error);
+    }
+}
@@ -0,0 +1,23 @@
+package com.giraone.jobs.receiver.service;
+
+/**
+ * The outcome for one job of a bulk request.
+ *
+ * @param index the 0-based index of the job within the request
+ * @param key the message key (TSID) of the job, when it was passed to Kafka, otherwise null
+ * @param error the reason why the job was not passed to Kafka or null
+ */
+public record BatchLineResult(long index, String key, Throwable error) {
+
+    public static BatchLineResult sent(long index, String key) {
+        return new BatchLineResult(index, key, null);
+    }
+
+    public static BatchLineResult failed(long index, Throwable error) {
+        return new BatchLineResult(index, null, error);
+    }
+
+    public boolean isSent() {
+        return error == null;
+    }
+}
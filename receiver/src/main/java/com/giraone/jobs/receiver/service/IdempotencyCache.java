@@ -0,0 +1,109 @@
+package com.giraone.jobs.receiver.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Maps idempotency keys of the clients to the job keys (TSIDs) of their jobs. The cache is bounded and each entry
+ * expires after the same time to live, so the entries are evicted in the order of insertion.
+ * <p>
+ * A duplicate submission, that arrives, while the first one is still sent, waits for the result of the first one.
+ * When the first submission fails, its entry is removed, so the client can retry.
+ */
+public class IdempotencyCache {
+
+    private final int maxSize;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // insertion order = expiration order
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    // the size of a ConcurrentLinkedQueue is not a constant time operation
+    private final AtomicInteger orderSize = new AtomicInteger();
+
+    public IdempotencyCache(int maxSize, Duration timeToLive) {
+        this(maxSize, timeToLive, Clock.systemUTC());
+    }
+
+    IdempotencyCache(int maxSize, Duration timeToLive, Clock clock) {
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Return the job key of an earlier submission with the same idempotency key or create a new one.
+     *
+     * @param idempotencyKey the key, that is sent by the client
+     * @param jobKeySupplier the (lazy) submission of the job - called only, if there is no valid entry
+     * @return the job key of the first submission
+     */
+    public Mono<String> computeIfAbsent(String idempotencyKey, Supplier<Mono<String>> jobKeySupplier) {
+
+        final long now = clock.millis();
+        final Entry[] created = {null};
+        final Entry entry = entries.compute(idempotencyKey, (key, existing) -> {
+            if (existing != null && existing.expiresAt > now) {
+                return existing;
+            }
+            created[0] = new Entry(key, jobKeySupplier.get().cache(), now + timeToLiveMillis);
+            return created[0];
+        });
+        if (created[0] != null) {
+            add(created[0]);
+            evict();
+        }
+        return entry.jobKey.doOnError(e -> entries.remove(idempotencyKey, entry));
+    }
+
+    /**
+     * Add the job key of a submission, that was done earlier (e.g. before a restart).
+     *
+     * @param acceptedAtMillis the time of the submission - expired entries are ignored
+     */
+    public void put(String idempotencyKey, String jobKey, long acceptedAtMillis) {
+
+        final long expiresAt = acceptedAtMillis + timeToLiveMillis;
+        if (expiresAt <= clock.millis()) {
+            return;
+        }
+        final Entry entry = new Entry(idempotencyKey, Mono.just(jobKey), expiresAt);
+        entries.put(idempotencyKey, entry);
+        add(entry);
+        evict();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void add(Entry entry) {
+        order.add(entry);
+        orderSize.incrementAndGet();
+    }
+
+    private void evict() {
+
+        final long now = clock.millis();
+        Entry head;
+        while ((head = order.peek()) != null && (head.expiresAt <= now || orderSize.get() > maxSize)) {
+            final Entry evicted = order.poll();
+            if (evicted != null) {
+                orderSize.decrementAndGet();
+                // the key may already belong to a newer entry
+                entries.remove(evicted.idempotencyKey, evicted);
+            }
+        }
+    }
+
+    private record Entry(String idempotencyKey, Mono<String> jobKey, long expiresAt) {
+    }
+}
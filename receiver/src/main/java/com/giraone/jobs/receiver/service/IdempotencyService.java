@@ -0,0 +1,123 @@
+package com.giraone.jobs.receiver.service;
+
+import com.giraone.jobs.receiver.config.ApplicationProperties;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Deduplication of job submissions by the "Idempotency-Key" of the client. If a topic is configured, each new mapping
+ * from idempotency key to job key is also written to this (compacted) topic and read back on startup.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyCache idempotencyCache;
+    // null, if the cache is not backed by a topic
+    private final String topic;
+    private final Duration loadTimeout;
+    private final KafkaProperties kafkaProperties;
+    private final ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate;
+
+    public IdempotencyService(ApplicationProperties applicationProperties, KafkaProperties kafkaProperties,
+                              ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate) {
+
+        final ApplicationProperties.Idempotency idempotency = applicationProperties.getIdempotency();
+        this.idempotencyCache = new IdempotencyCache(idempotency.getMaxSize(), idempotency.getTimeToLive());
+        this.topic = idempotency.getTopic();
+        this.loadTimeout = idempotency.getLoadTimeout();
+        this.kafkaProperties = kafkaProperties;
+        this.reactiveKafkaProducerTemplate = reactiveKafkaProducerTemplate;
+    }
+
+    @PostConstruct
+    private void load() {
+
+        if (topic == null) {
+            return;
+        }
+        final Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties();
+        consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProperties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        final long start = System.currentTimeMillis();
+        int loaded = 0;
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProperties)) {
+            final List<TopicPartition> partitions = consumer.partitionsFor(topic, loadTimeout).stream()
+                .map(partitionInfo -> new TopicPartition(topic, partitionInfo.partition()))
+                .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            final Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, loadTimeout);
+            while (partitions.stream().anyMatch(partition -> consumer.position(partition) < endOffsets.get(partition))) {
+                if (System.currentTimeMillis() - start > loadTimeout.toMillis()) {
+                    LOGGER.warn("Loading of idempotency keys from topic \"{}\" stopped after {}.", topic, loadTimeout);
+                    break;
+                }
+                for (ConsumerRecord<String, String> consumerRecord : consumer.poll(Duration.ofMillis(500))) {
+                    if (consumerRecord.value() != null) {
+                        idempotencyCache.put(consumerRecord.key(), consumerRecord.value(), consumerRecord.timestamp());
+                        loaded++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // the receiver works without the old keys - only duplicates are not detected
+            LOGGER.error("Cannot load idempotency keys from topic \"{}\".", topic, e);
+        }
+        LOGGER.info("Loaded {} idempotency keys from topic \"{}\" in {} ms.", loaded, topic, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Submit a job once per idempotency key.
+     *
+     * @param idempotencyKey the key, that is sent by the client, or null
+     * @param send the submission of the job
+     * @return the job key of the first submission with this idempotency key
+     */
+    public Mono<String> sendOnce(String idempotencyKey, Supplier<Mono<String>> send) {
+
+        if (idempotencyKey == null) {
+            return send.get();
+        }
+        return idempotencyCache.computeIfAbsent(idempotencyKey, () -> send.get().flatMap(jobKey -> store(idempotencyKey, jobKey)));
+    }
+
+    // The job is already accepted, so a failure of the backing topic only weakens the deduplication after a restart.
+    private Mono<String> store(String idempotencyKey, String jobKey) {
+
+        if (topic == null) {
+            return Mono.just(jobKey);
+        }
+        return reactiveKafkaProducerTemplate
+            .send(topic, idempotencyKey, jobKey.getBytes(StandardCharsets.US_ASCII))
+            .doOnNext(r -> {
+                if (r.exception() != null) {
+                    LOGGER.warn("Storing idempotency key to topic \"{}\" failed.", topic, r.exception());
+                }
+            })
+            .onErrorResume(e -> {
+                LOGGER.warn("Storing idempotency key to topic \"{}\" failed.", topic, e);
+                return Mono.empty();
+            })
+            .thenReturn(jobKey);
+    }
+}
@@ -0,0 +1,86 @@
+package com.giraone.jobs.receiver.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of jobs, that are passed to Kafka, but not yet acknowledged. There is a global limit and a limit
+ * per process key, so a single busy process cannot use up the whole budget.
+ */
+public class InFlightBudget {
+
+    private final int maxInFlight;
+    private final int maxInFlightPerProcessKey;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // only process keys with jobs in flight are kept
+    private final Map<String, Integer> inFlightPerProcessKey = new ConcurrentHashMap<>();
+
+    public InFlightBudget(int maxInFlight, int maxInFlightPerProcessKey) {
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerProcessKey = maxInFlightPerProcessKey;
+    }
+
+    /**
+     * Try to take one unit of the budget.
+     *
+     * @param processKey the process key of the job or null, if only the global limit applies
+     * @return the permit, that must be released, when the job is acknowledged or failed, or null, if the budget is exhausted
+     */
+    public Permit tryAcquire(String processKey) {
+
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return null;
+        }
+        if (processKey != null) {
+            final boolean[] acquired = {false};
+            inFlightPerProcessKey.compute(processKey, (key, count) -> {
+                final int current = count != null ? count : 0;
+                if (current >= maxInFlightPerProcessKey) {
+                    return count;
+                }
+                acquired[0] = true;
+                return current + 1;
+            });
+            if (!acquired[0]) {
+                inFlight.decrementAndGet();
+                return null;
+            }
+        }
+        return new Permit(processKey);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getInFlight(String processKey) {
+        return inFlightPerProcessKey.getOrDefault(processKey, 0);
+    }
+
+    public final class Permit {
+
+        private final String processKey;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String processKey) {
+            this.processKey = processKey;
+        }
+
+        /**
+         * Give the unit back. Calling it more than once has no effect.
+         */
+        public void release() {
+
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (processKey != null) {
+                inFlightPerProcessKey.computeIfPresent(processKey, (key, count) -> count > 1 ? count - 1 : null);
+            }
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.giraone.jobs.receiver.service;
+
+import java.util.Arrays;
+
+/**
+ * The raw bytes of a received and validated JSON job object. The position of the closing brace is known,
+ * so fields can be added without parsing and serializing the JSON again.
+ *
+ * @param bytes the received bytes - the array may be larger than the content
+ * @param closingBraceIndex the index of the closing brace of the JSON object within bytes
+ * @param empty true, if the JSON object has no fields
+ * @param processKey the value of the top level field "processKey" or null, if there is none
+ * @param payloadStart the index of the opening quote of the top level string field "payload" or -1, if there is none
+ * @param payloadEnd the index after the closing quote of the "payload" value or -1, if there is none
+ */
+public record JobContent(byte[] bytes, int closingBraceIndex, boolean empty, String processKey,
+                         int payloadStart, int payloadEnd) {
+
+    /**
+     * Copy the JSON object and add fields at its end. On duplicate field names, JSON readers take the last value,
+     * so the added fields replace fields with the same name.
+     *
+     * @param rawFields the serialized fields, e.g. {@code "a":1,"b":"x"} (without a leading comma)
+     * @return the JSON object with the added fields
+     */
+    public byte[] withAddedFields(byte[] rawFields) {
+
+        final int separatorLength = empty ? 0 : 1;
+        final byte[] result = new byte[closingBraceIndex + separatorLength + rawFields.length + 1];
+        System.arraycopy(bytes, 0, result, 0, closingBraceIndex);
+        if (!empty) {
+            result[closingBraceIndex] = ',';
+        }
+        System.arraycopy(rawFields, 0, result, closingBraceIndex + separatorLength, rawFields.length);
+        result[result.length - 1] = '}';
+        return result;
+    }
+
+    /**
+     * @return the length of the "payload" value in bytes (as JSON string with quotes) or 0, if there is none
+     */
+    public int payloadLength() {
+        return payloadStart >= 0 ? payloadEnd - payloadStart : 0;
+    }
+
+    /**
+     * @return the "payload" value as JSON string (with quotes and escapes)
+     */
+    public byte[] payload() {
+        return Arrays.copyOfRange(bytes, payloadStart, payloadEnd);
+    }
+
+    /**
+     * Copy the JSON object with the "payload" value replaced.
+     *
+     * @param replacement the raw JSON, that is inserted instead of the value,
+     *                    e.g. {@code null,"payloadRef":"sha256-..."}
+     * @return the JSON object without the payload
+     */
+    public JobContent withReplacedPayload(byte[] replacement) {
+
+        final int tailLength = closingBraceIndex + 1 - payloadEnd;
+        final byte[] result = new byte[payloadStart + replacement.length + tailLength];
+        System.arraycopy(bytes, 0, result, 0, payloadStart);
+        System.arraycopy(replacement, 0, result, payloadStart, replacement.length);
+        System.arraycopy(bytes, payloadEnd, result, payloadStart + replacement.length, tailLength);
+        return new JobContent(result, result.length - 1, empty, processKey, -1, -1);
+    }
+}
@@ -0,0 +1,238 @@
+package com.giraone.jobs.receiver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A write-ahead spool for jobs, that cannot be passed to Kafka. The jobs are appended to memory-mapped segment files
+ * of a fixed size and read back in the order of appending. A segment is deleted, when all of its jobs are committed.
+ * The read position is kept in a small memory-mapped checkpoint file, so the spool survives a restart.
+ * <p>
+ * Record layout within a segment: record length (int, 0 marks the end), key length (int), key bytes, value bytes.
+ * <p>
+ * The memory-mapped pages survive a crash of the process. Only {@link #close()} and rolling to a new segment force
+ * the pages to the disk, so an outage of the operating system may lose the latest jobs.
+ */
+public class JobSpool implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobSpool.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 8;
+    private static final int END_MARKER_SIZE = 4;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final MappedByteBuffer checkpoint;
+    // the oldest segment is the read segment, the newest one is the write segment
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private int readPosition;
+    private int writePosition;
+
+    public JobSpool(Path directory, int segmentSize) {
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, 12);
+            }
+            final List<Path> segmentFiles;
+            try (Stream<Path> files = Files.list(directory)) {
+                segmentFiles = files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+            }
+            for (Path segmentFile : segmentFiles) {
+                segments.addLast(Segment.open(segmentFile, sequenceOf(segmentFile), segmentSize));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(newSegment(0L));
+        } else {
+            // a checkpoint of an older, already deleted segment means: nothing is read from the current one
+            readPosition = checkpoint.getLong(0) == segments.getFirst().sequence ? checkpoint.getInt(8) : 0;
+            writePosition = endOf(segments.getLast());
+        }
+        LOGGER.info("Spool in {} opened with {} segment(s). Empty={}", directory, segments.size(), isEmpty());
+    }
+
+    /**
+     * Append a job.
+     *
+     * @param key the message key
+     * @param value the message body
+     */
+    public synchronized void append(String key, byte[] value) {
+
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final int recordLength = HEADER_SIZE + keyBytes.length + value.length;
+        if (recordLength + END_MARKER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Job of " + value.length + " bytes does not fit into a spool segment!");
+        }
+        if (writePosition + recordLength + END_MARKER_SIZE > segmentSize) {
+            segments.getLast().buffer.force();
+            segments.addLast(newSegment(segments.getLast().sequence + 1));
+            writePosition = 0;
+        }
+        final MappedByteBuffer buffer = segments.getLast().buffer;
+        // the length is written last, so a partially written record is never read
+        buffer.putInt(writePosition + 4, keyBytes.length);
+        buffer.put(writePosition + HEADER_SIZE, keyBytes);
+        buffer.put(writePosition + HEADER_SIZE + keyBytes.length, value);
+        buffer.putInt(writePosition, recordLength);
+        writePosition += recordLength;
+    }
+
+    /**
+     * Read the oldest job, that is not committed. Calling it again without commit returns the same job.
+     *
+     * @return the job or null, if the spool is empty
+     */
+    public synchronized SpooledJob peek() {
+
+        final List<SpooledJob> jobs = peek(1);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    /**
+     * Read the oldest jobs, that are not committed, up to the end of the oldest segment. Calling it again without
+     * commit returns the same jobs.
+     *
+     * @param maxJobs the maximum number of jobs
+     * @return the jobs in the order of appending - empty, if the spool is empty
+     */
+    public synchronized List<SpooledJob> peek(int maxJobs) {
+
+        int recordLength = segments.getFirst().buffer.getInt(readPosition);
+        while (recordLength == 0 && segments.size() > 1) {
+            deleteSegment(segments.removeFirst());
+            readPosition = 0;
+            writeCheckpoint();
+            recordLength = segments.getFirst().buffer.getInt(readPosition);
+        }
+        final Segment segment = segments.getFirst();
+        final List<SpooledJob> jobs = new ArrayList<>();
+        int position = readPosition;
+        while (jobs.size() < maxJobs && position + END_MARKER_SIZE <= segmentSize
+            && (recordLength = segment.buffer.getInt(position)) != 0) {
+            final byte[] keyBytes = new byte[segment.buffer.getInt(position + 4)];
+            final byte[] value = new byte[recordLength - HEADER_SIZE - keyBytes.length];
+            segment.buffer.get(position + HEADER_SIZE, keyBytes);
+            segment.buffer.get(position + HEADER_SIZE + keyBytes.length, value);
+            jobs.add(new SpooledJob(segment.sequence, position, recordLength, new String(keyBytes, StandardCharsets.UTF_8), value));
+            position += recordLength;
+        }
+        return jobs;
+    }
+
+    /**
+     * Mark the job, returned by {@link #peek()}, and all jobs before it as passed to Kafka.
+     */
+    public synchronized void commit(SpooledJob job) {
+
+        if (job.segment() != segments.getFirst().sequence || job.position() < readPosition) {
+            throw new IllegalStateException("Only jobs of the oldest segment, that are not committed, can be committed!");
+        }
+        readPosition = job.position() + job.length();
+        writeCheckpoint();
+    }
+
+    public synchronized boolean isEmpty() {
+
+        return segments.size() == 1 && readPosition == writePosition;
+    }
+
+    @Override
+    public synchronized void close() {
+
+        segments.forEach(segment -> segment.buffer.force());
+        checkpoint.force();
+    }
+
+    private void writeCheckpoint() {
+
+        checkpoint.putLong(0, segments.getFirst().sequence);
+        checkpoint.putInt(8, readPosition);
+    }
+
+    private Segment newSegment(long sequence) {
+
+        final Path file = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        try {
+            return Segment.open(file, sequence, segmentSize);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+
+        try {
+            Files.delete(segment.file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete replayed spool segment {}", segment.file, e);
+        }
+    }
+
+    private static int endOf(Segment segment) {
+
+        int position = 0;
+        int recordLength;
+        while (position + END_MARKER_SIZE <= segment.buffer.capacity()
+            && (recordLength = segment.buffer.getInt(position)) != 0) {
+            position += recordLength;
+        }
+        return position;
+    }
+
+    private static long sequenceOf(Path segmentFile) {
+
+        final String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A job read from the spool.
+     *
+     * @param segment the sequence number of the segment
+     * @param position the position of the record within the segment
+     * @param length the length of the record
+     * @param key the message key
+     * @param value the message body
+     */
+    public record SpooledJob(long segment, int position, int length, String key, byte[] value) {
+    }
+
+    private record Segment(Path file, long sequence, MappedByteBuffer buffer) {
+
+        // the file is filled with zeros, when it is created
+        static Segment open(Path file, long sequence, int segmentSize) throws IOException {
+            try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(file, sequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.giraone.jobs.receiver.service;
+
+/**
+ * The publish outcome of a job, that was accepted asynchronously.
+ */
+public enum JobStatus {
+    /**
+     * Passed to the Kafka producer, but not yet acknowledged.
+     */
+    PENDING,
+    /**
+     * Acknowledged by Kafka.
+     */
+    SENT,
+    /**
+     * Written to the local spool - it is passed to Kafka later.
+     */
+    SPOOLED,
+    /**
+     * Not passed to Kafka. The client has to submit the job again.
+     */
+    FAILED
+}
@@ -0,0 +1,57 @@
+package com.giraone.jobs.receiver.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded cache of the publish outcome of asynchronously accepted jobs. When the cache is full, the status of the
+ * oldest job is dropped. The cache is used on the event loop threads, so it does not use a global lock.
+ */
+public class JobStatusCache {
+
+    private final int maxSize;
+    private final Map<String, JobStatus> statusById = new ConcurrentHashMap<>();
+    // insertion order of the ids - an update of the status does not change the order
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+    // the size of a ConcurrentLinkedQueue is not a constant time operation
+    private final AtomicInteger orderSize = new AtomicInteger();
+
+    public JobStatusCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void put(String id, JobStatus status) {
+
+        if (statusById.put(id, status) == null) {
+            order.add(id);
+            orderSize.incrementAndGet();
+            evict();
+        }
+    }
+
+    /**
+     * @return the status or null, if the job is unknown or its status was already dropped
+     */
+    public JobStatus get(String id) {
+        return statusById.get(id);
+    }
+
+    public int size() {
+        return statusById.size();
+    }
+
+    private void evict() {
+
+        while (orderSize.get() > maxSize) {
+            final String evicted = order.poll();
+            if (evicted == null) {
+                return;
+            }
+            orderSize.decrementAndGet();
+            statusById.remove(evicted);
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.giraone.jobs.receiver.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.giraone.jobs.common.ObjectMapperBuilder;
+import com.giraone.jobs.common.BlobStore;
 import com.giraone.jobs.receiver.config.ApplicationProperties;
 import com.github.f4b6a3.tsid.Tsid;
 import com.github.f4b6a3.tsid.TsidCreator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.annotation.Observed;
+import org.apache.kafka.common.errors.RetriableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Observed(name = "ProducerService")
@@ -23,40 +38,153 @@ public class ProducerService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProducerService.class);
 
-    private static final ObjectMapper objectMapper = ObjectMapperBuilder.build(false, false);
+    private static final String METRICS_PREFIX = "receiver.jobs";
+    private static final String PAYLOAD_REF = "payloadRef";
 
     private final String topic;
-    private final ReactiveKafkaProducerTemplate<String, String> reactiveKafkaProducerTemplate;
+    private final ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate;
+    private final InFlightBudget inFlightBudget;
+    private final Duration retryAfter;
+    private final Counter rejectedCounter;
+    private final Counter spooledCounter;
+    // null, if spooling is disabled
+    private final JobSpool jobSpool;
+    private final JobStatusCache jobStatusCache;
+    // null, if the claim-check is disabled
+    private final BlobStore blobStore;
+    private final int claimCheckThreshold;
 
     private final AtomicLong counterSent = new AtomicLong();
     private final AtomicLong counterFailed = new AtomicLong();
+    private final AtomicLong counterRejected = new AtomicLong();
+    private final AtomicLong counterSpooled = new AtomicLong();
+    private final AtomicLong counterOffloaded = new AtomicLong();
+    // sends, that failed and whose jobs are not yet appended to the spool
+    private final AtomicInteger failingSends = new AtomicInteger();
 
     public ProducerService(ApplicationProperties applicationProperties,
-                           ReactiveKafkaProducerTemplate<String, String> reactiveKafkaProducerTemplate) {
+                           ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate,
+                           MeterRegistry meterRegistry,
+                           ObjectProvider<JobSpool> jobSpool,
+                           ObjectProvider<BlobStore> blobStore) {
 
         this.topic = applicationProperties.getJobAcceptedTopic();
         this.reactiveKafkaProducerTemplate = reactiveKafkaProducerTemplate;
+        final ApplicationProperties.Admission admission = applicationProperties.getAdmission();
+        this.inFlightBudget = new InFlightBudget(admission.getMaxInFlight(), admission.getMaxInFlightPerProcessKey());
+        this.retryAfter = admission.getRetryAfter();
+        Gauge.builder(METRICS_PREFIX + ".inflight", inFlightBudget, InFlightBudget::getInFlight)
+            .description("Number of jobs, that are passed to Kafka, but not yet acknowledged.")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(METRICS_PREFIX + ".rejected")
+            .description("Counter for all received jobs, that are rejected, because too many jobs are in flight.")
+            .register(meterRegistry);
+        this.spooledCounter = Counter.builder(METRICS_PREFIX + ".spooled")
+            .description("Counter for all received jobs, that are written to the local spool.")
+            .register(meterRegistry);
+        this.jobSpool = jobSpool.getIfAvailable();
+        this.jobStatusCache = new JobStatusCache(applicationProperties.getJobStatusCacheSize());
+        this.blobStore = blobStore.getIfAvailable();
+        this.claimCheckThreshold = applicationProperties.getClaimCheck().getThreshold();
     }
 
     public Mono<Map<String, Object>> getMetrics() {
 
-        return Mono.just(Map.of("sent", counterSent, "failed", counterFailed));
+        return Mono.just(Map.of("sent", counterSent, "failed", counterFailed, "rejected", counterRejected,
+            "spooled", counterSpooled, "offloaded", counterOffloaded, "inFlight", inFlightBudget.getInFlight()));
     }
 
-    public Mono<String> send(Map<String, Object> event) {
+    /**
+     * Send a job to the accepted topic. The job gets a new TSID as "id" and the "jobAcceptedTimestamp".
+     * Both fields are spliced into the received JSON bytes, so the job content is never parsed into a tree.
+     *
+     * If the spool is enabled, a job, that cannot be passed to Kafka because of a retriable error, is written to the
+     * spool and acknowledged with its TSID. A job, that only exceeds the in-flight budget, is rejected.
+     *
+     * @param content the received job
+     * @return the TSID, which is also the message key, or an error with {@link AdmissionRejectedException},
+     * when too many jobs are in flight
+     */
+    public Mono<String> send(JobContent content) {
 
-        final Tsid tsid = TsidCreator.getTsid256();
-        final String id = tsid.toString();
-        event.put("id", id);
-        event.put("jobAcceptedTimestamp", Instant.now());
-        final String messageBody;
-        try {
-            messageBody = objectMapper.writeValueAsString(event);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+        return offload(content).flatMap(offloaded -> {
+            final String id = nextId();
+            final byte[] messageBody = enrich(offloaded, id);
+            return publish(id, messageBody, admit(offloaded)).thenReturn(id);
+        });
+    }
+
+    /**
+     * Accept a job without waiting for the acknowledgement of Kafka. The job is only rejected, when it cannot be
+     * queued. The publish outcome can be read with {@link #getStatus(String)}.
+     *
+     * @param content the received job
+     * @return the TSID, which is also the message key, or an error with {@link AdmissionRejectedException},
+     * when too many jobs are in flight
+     */
+    public Mono<String> sendAsync(JobContent content) {
+
+        return offload(content).map(offloaded -> {
+            final String id = nextId();
+            final byte[] messageBody = enrich(offloaded, id);
+            final InFlightBudget.Permit permit = admit(offloaded);
+            jobStatusCache.put(id, JobStatus.PENDING);
+            publish(id, messageBody, permit).subscribe(
+                status -> jobStatusCache.put(id, status),
+                e -> jobStatusCache.put(id, JobStatus.FAILED));
+            return id;
+        });
+    }
+
+    /**
+     * @param id the TSID of an asynchronously accepted job
+     * @return the publish outcome or null, if it is unknown
+     */
+    public JobStatus getStatus(String id) {
+        return jobStatusCache.get(id);
+    }
+
+    /**
+     * Decide, whether the job is sent or spooled.
+     *
+     * @return the permit of the in-flight budget for sending or null for spooling
+     * @throws AdmissionRejectedException, if too many jobs are in flight
+     */
+    private InFlightBudget.Permit admit(JobContent content) {
+
+        // as long as a send is failing or the spool is not empty, all jobs are spooled to keep their order
+        if (jobSpool != null && (failingSends.get() > 0 || !jobSpool.isEmpty())) {
+            return null;
+        }
+        // an overload is not spooled - the client retries after "Retry-After"
+        final InFlightBudget.Permit permit = tryAcquire(content);
+        if (permit == null) {
+            throw rejected();
         }
+        return permit;
+    }
+
+    private Mono<JobStatus> publish(String id, byte[] messageBody, InFlightBudget.Permit permit) {
+
+        if (permit == null) {
+            return spool(id, messageBody);
+        }
+        // the send is bounded by the producer timeouts (application.spool.send-timeout)
+        return doSend(id, messageBody)
+            .thenReturn(JobStatus.SENT)
+            .doFinally(signalType -> permit.release())
+            .onErrorResume(e -> jobSpool != null && e instanceof RetriableException, e -> {
+                // from the failure until the job is in the spool, later jobs are spooled, too
+                failingSends.incrementAndGet();
+                return spool(id, messageBody).doFinally(signalType -> failingSends.decrementAndGet());
+            });
+    }
+
+    private Mono<String> doSend(String id, byte[] messageBody) {
+
         return reactiveKafkaProducerTemplate
             .send(topic, id, messageBody)
+            .flatMap(r -> r.exception() == null ? Mono.just(r) : Mono.error(r.exception()))
             .doOnError(e -> {
                 LOGGER.error("Send to topic \"{}\" failed.", topic, e);
                 counterFailed.incrementAndGet();
@@ -68,4 +196,152 @@ public class ProducerService {
             })
             .map(r -> id);
     }
+
+    /**
+     * Send many jobs as one pipelined stream of sender records. The number of outstanding records is limited by the
+     * sender's maxInFlight, so the input is consumed with backpressure. Each line takes a unit of the in-flight
+     * budget - lines, that exceed the budget, are rejected with {@link AdmissionRejectedException}.
+     *
+     * @param lines the jobs of a bulk request - invalid lines are passed through as failures
+     * @return exactly one result per line in the order of the lines
+     */
+    public Flux<BatchLineResult> sendBatch(Flux<BatchLine> lines) {
+
+        final Flux<BatchLineResult> results = Flux.defer(() -> {
+            // permits of records, that are not acknowledged, when the request is cancelled
+            final Set<InFlightBudget.Permit> open = ConcurrentHashMap.newKeySet();
+            return lines
+                .concatMap(this::offload)
+                .map(line -> prepare(line, open))
+                .publish(shared -> Flux.merge(
+                    shared
+                        .filter(prepared -> prepared.error() != null)
+                        .map(prepared -> BatchLineResult.failed(prepared.index(), prepared.error())),
+                    reactiveKafkaProducerTemplate
+                        .send(shared
+                            .filter(prepared -> prepared.error() == null)
+                            .map(prepared -> SenderRecord.create(topic, null, null, prepared.id(), prepared.messageBody(), prepared)))
+                        .map(senderResult -> toBatchLineResult(senderResult, open))
+                ))
+                .doFinally(signalType -> open.forEach(InFlightBudget.Permit::release));
+        });
+        return inLineOrder(results);
+    }
+
+    private Mono<BatchLine> offload(BatchLine line) {
+
+        if (line.error() != null) {
+            return Mono.just(line);
+        }
+        return offload(line.content())
+            .map(offloaded -> BatchLine.of(line.index(), offloaded))
+            .onErrorResume(Exception.class, e -> Mono.just(BatchLine.failed(line.index(), e)));
+    }
+
+    /**
+     * Claim-check: a large payload is written to the blob store and replaced by its reference ("payloadRef").
+     */
+    private Mono<JobContent> offload(JobContent content) {
+
+        if (blobStore == null || content.payloadLength() < claimCheckThreshold) {
+            return Mono.just(content);
+        }
+        // file IO must not block the event loop
+        return Mono.fromCallable(() -> {
+                final String reference = blobStore.put(content.payload());
+                counterOffloaded.incrementAndGet();
+                // the reference contains only ASCII characters, that need no JSON escaping
+                final String replacement = "null,\"" + PAYLOAD_REF + "\":\"" + reference + "\"";
+                return content.withReplacedPayload(replacement.getBytes(StandardCharsets.US_ASCII));
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private PreparedLine prepare(BatchLine line, Set<InFlightBudget.Permit> open) {
+
+        if (line.error() != null) {
+            return new PreparedLine(line.index(), null, null, null, line.error());
+        }
+        final InFlightBudget.Permit permit = tryAcquire(line.content());
+        if (permit == null) {
+            return new PreparedLine(line.index(), null, null, null, rejected());
+        }
+        open.add(permit);
+        final String id = nextId();
+        return new PreparedLine(line.index(), id, enrich(line.content(), id), permit, null);
+    }
+
+    private BatchLineResult toBatchLineResult(SenderResult<PreparedLine> senderResult, Set<InFlightBudget.Permit> open) {
+
+        final PreparedLine prepared = senderResult.correlationMetadata();
+        prepared.permit().release();
+        open.remove(prepared.permit());
+        if (senderResult.exception() != null) {
+            LOGGER.error("Send to topic \"{}\" failed.", topic, senderResult.exception());
+            counterFailed.incrementAndGet();
+            return BatchLineResult.failed(prepared.index(), senderResult.exception());
+        }
+        counterSent.incrementAndGet();
+        return BatchLineResult.sent(prepared.index(), prepared.id());
+    }
+
+    // Kafka acknowledges records of different partitions in any order, but the caller expects the order of the request.
+    private static Flux<BatchLineResult> inLineOrder(Flux<BatchLineResult> results) {
+
+        return Flux.defer(() -> {
+            final Map<Long, BatchLineResult> pending = new HashMap<>();
+            final AtomicLong next = new AtomicLong();
+            return results.concatMapIterable(result -> {
+                pending.put(result.index(), result);
+                final List<BatchLineResult> ready = new ArrayList<>();
+                BatchLineResult nextResult;
+                while ((nextResult = pending.remove(next.get())) != null) {
+                    ready.add(nextResult);
+                    next.incrementAndGet();
+                }
+                return ready;
+            });
+        });
+    }
+
+    private Mono<JobStatus> spool(String id, byte[] messageBody) {
+
+        return Mono.fromCallable(() -> {
+                jobSpool.append(id, messageBody);
+                counterSpooled.incrementAndGet();
+                spooledCounter.increment();
+                return JobStatus.SPOOLED;
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private InFlightBudget.Permit tryAcquire(JobContent content) {
+
+        final InFlightBudget.Permit permit = inFlightBudget.tryAcquire(content.processKey());
+        if (permit == null) {
+            counterRejected.incrementAndGet();
+            rejectedCounter.increment();
+        }
+        return permit;
+    }
+
+    private AdmissionRejectedException rejected() {
+        return new AdmissionRejectedException("Too many jobs in flight", retryAfter);
+    }
+
+    private static String nextId() {
+
+        final Tsid tsid = TsidCreator.getTsid256();
+        return tsid.toString();
+    }
+
+    // The TSID and the ISO-8601 timestamp contain only ASCII characters, that need no JSON escaping.
+    private static byte[] enrich(JobContent content, String id) {
+
+        final String rawFields = "\"id\":\"" + id + "\",\"jobAcceptedTimestamp\":\"" + Instant.now() + "\"";
+        return content.withAddedFields(rawFields.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private record PreparedLine(long index, String id, byte[] messageBody, InFlightBudget.Permit permit, Throwable error) {
+    }
 }
@@ -0,0 +1,99 @@
+package com.giraone.jobs.receiver.service;
+
+import com.giraone.jobs.receiver.config.ApplicationProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replays the spooled jobs to Kafka in the order of spooling. The jobs are sent pipelined in chunks and a chunk is
+ * committed, when Kafka has acknowledged all of its jobs. The next chunk is replayed immediately. On the first failure,
+ * the replay stops and the chunk is replayed again in the next interval - jobs of the chunk, that were acknowledged
+ * already, are sent twice (at-least-once).
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.spool", name = "enabled", havingValue = "true")
+public class SpoolReplayService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpoolReplayService.class);
+
+    private final String topic;
+    private final Duration replayInterval;
+    private final int replayChunkSize;
+    private final JobSpool jobSpool;
+    private final ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate;
+
+    private Disposable replay;
+
+    public SpoolReplayService(ApplicationProperties applicationProperties, JobSpool jobSpool,
+                              @Qualifier("spoolReplayProducerTemplate")
+                              ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate) {
+
+        this.topic = applicationProperties.getJobAcceptedTopic();
+        this.replayInterval = applicationProperties.getSpool().getReplayInterval();
+        this.replayChunkSize = applicationProperties.getSpool().getReplayChunkSize();
+        this.jobSpool = jobSpool;
+        this.reactiveKafkaProducerTemplate = reactiveKafkaProducerTemplate;
+    }
+
+    @PostConstruct
+    private void start() {
+
+        // only one replay at a time - ticks during a running replay are dropped
+        replay = Flux.interval(replayInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> replayAll(), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    private void stop() {
+        replay.dispose();
+    }
+
+    /**
+     * Pass all spooled jobs to Kafka - chunk after chunk to keep the order.
+     *
+     * @return the number of replayed jobs
+     */
+    public Mono<Long> replayAll() {
+
+        return Mono.fromCallable(() -> jobSpool.peek(replayChunkSize))
+            .expand(chunk -> chunk.isEmpty()
+                ? Mono.empty()
+                : sendAndCommit(chunk).then(Mono.fromCallable(() -> jobSpool.peek(replayChunkSize))))
+            .map(chunk -> (long) chunk.size())
+            .reduce(0L, Long::sum)
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnNext(count -> {
+                if (count > 0) {
+                    LOGGER.info("Replayed {} spooled job(s) to topic \"{}\".", count, topic);
+                }
+            })
+            .onErrorResume(e -> {
+                LOGGER.warn("Replay of spooled jobs to topic \"{}\" failed. Retry in {}.", topic, replayInterval, e);
+                return Mono.just(0L);
+            });
+    }
+
+    private Mono<Void> sendAndCommit(List<JobSpool.SpooledJob> chunk) {
+
+        return reactiveKafkaProducerTemplate
+            .send(Flux.fromIterable(chunk).map(job -> SenderRecord.create(topic, null, null, job.key(), job.value(), job)))
+            .concatMap(r -> r.exception() == null ? Mono.just(r) : Mono.error(r.exception()))
+            .then(Mono.fromRunnable(() -> jobSpool.commit(chunk.get(chunk.size() - 1))));
+    }
+}
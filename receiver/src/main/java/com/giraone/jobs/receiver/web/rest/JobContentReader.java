@@ -0,0 +1,318 @@
+package com.giraone.jobs.receiver.web.rest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.giraone.jobs.common.ObjectMapperBuilder;
+import com.giraone.jobs.receiver.config.ApplicationProperties;
+import com.giraone.jobs.receiver.service.BatchLine;
+import com.giraone.jobs.receiver.service.JobContent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a JSON job request body in one streaming pass. Each incoming {@link DataBuffer} is
+ * <ul>
+ *     <li>scanned for the forbidden patterns,</li>
+ *     <li>appended to the content bytes, that are later sent to Kafka, and</li>
+ *     <li>fed into a non-blocking Jackson parser, that validates the JSON without building a tree</li>
+ * </ul>
+ * before it is released. Pooled (direct) Netty buffers are read through their {@link ByteBuffer} views.
+ */
+@Component
+public class JobContentReader {
+
+    private static final ObjectMapper objectMapper = ObjectMapperBuilder.build(false, false);
+    private static final byte[] NEW_LINE = {'\n'};
+
+    static final String PROCESS_KEY = "processKey";
+    static final String PAYLOAD = "payload";
+
+    private final PatternScanner patternScanner;
+
+    public JobContentReader(ApplicationProperties applicationProperties) {
+        // compiled once - the scan cost per byte does not depend on the number of patterns
+        this.patternScanner = new PatternScanner(applicationProperties.getForbiddenPatterns());
+    }
+
+    /**
+     * Read and validate the content.
+     *
+     * @param content the request body
+     * @return the JSON object or an error with {@link PatternDetectedException}, as soon as the pattern is found
+     */
+    public Mono<JobContent> read(Flux<DataBuffer> content) {
+
+        return Mono.defer(() -> {
+            final SinglePassReader reader = new SinglePassReader();
+            return content
+                .doOnNext(dataBuffer -> {
+                    reader.feed(dataBuffer);
+                    reader.throwIfFailed();
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .then(Mono.fromCallable(() -> reader.finish(false)))
+                .doFinally(signalType -> reader.close());
+        });
+    }
+
+    /**
+     * Read newline delimited JSON (one job per line). The buffers are split at the line ends without copying.
+     * A line, that is not a valid JSON object or contains a forbidden pattern, does not stop reading the following lines.
+     * Blank lines are skipped.
+     *
+     * @param content the request body
+     * @return one {@link BatchLine} per non-blank line in the order of the request
+     */
+    public Flux<BatchLine> readLines(Flux<DataBuffer> content) {
+
+        return Flux.defer(() -> {
+            final LineSplitter splitter = new LineSplitter();
+            return content
+                .concatMapIterable(splitter::split)
+                .concatWith(Mono.fromSupplier(splitter::finish))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .doFinally(signalType -> splitter.close());
+        });
+    }
+
+    private final class LineSplitter {
+
+        private final DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(NEW_LINE);
+        private SinglePassReader reader = new SinglePassReader();
+        private long index;
+
+        List<BatchLine> split(DataBuffer dataBuffer) {
+            final List<BatchLine> lines = new ArrayList<>();
+            int endIndex;
+            while ((endIndex = matcher.match(dataBuffer)) != -1) {
+                // the returned buffer shares the memory, the remaining bytes stay in dataBuffer
+                reader.feed(dataBuffer.split(endIndex + 1));
+                final BatchLine line = completeLine();
+                if (line != null) {
+                    lines.add(line);
+                }
+            }
+            reader.feed(dataBuffer);
+            return lines;
+        }
+
+        // the last line may not be terminated by a new line
+        BatchLine finish() {
+            return completeLine();
+        }
+
+        void close() {
+            reader.close();
+        }
+
+        private BatchLine completeLine() {
+            final SinglePassReader completed = reader;
+            reader = new SinglePassReader();
+            try {
+                final JobContent jobContent = completed.finish(true);
+                return jobContent != null ? BatchLine.of(index++, jobContent) : null;
+            } catch (RuntimeException e) {
+                return BatchLine.failed(index++, e);
+            } finally {
+                completed.close();
+            }
+        }
+    }
+
+    private final class SinglePassReader {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final PatternScanner.Matcher matcher = patternScanner.matcher();
+        private Exception failure;
+        // the received bytes - this is the only copy of the content
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int length;
+        // validation state
+        private int depth;
+        private boolean rootStarted;
+        private boolean rootClosed;
+        private boolean empty = true;
+        private boolean processKeyFollows;
+        private String processKey;
+        // byte offsets within bytes
+        private int payloadNameEnd = -1;
+        private int payloadStart = -1;
+        private int payloadEnd = -1;
+
+        private SinglePassReader() {
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        /**
+         * Scan, keep and validate the buffer and release it. After a failure, the remaining content is only released.
+         */
+        void feed(DataBuffer dataBuffer) {
+            try {
+                if (failure != null || dataBuffer.readableByteCount() == 0) {
+                    return;
+                }
+                try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+                    while (iterator.hasNext()) {
+                        final ByteBuffer byteBuffer = iterator.next();
+                        if (matcher.scan(byteBuffer)) {
+                            failure = new PatternDetectedException("Pattern detected in request body");
+                            return;
+                        }
+                        append(byteBuffer);
+                        feeder.feedInput(byteBuffer);
+                        drainTokens();
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+
+        void throwIfFailed() {
+            if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        }
+
+        /**
+         * @param blankAllowed if true, null is returned for content without any JSON token
+         */
+        JobContent finish(boolean blankAllowed) {
+            throwIfFailed();
+            feeder.endOfInput();
+            try {
+                drainTokens();
+                if (!rootStarted) {
+                    if (blankAllowed) {
+                        return null;
+                    }
+                    throw new JsonParseException(parser, "No content");
+                }
+                if (!rootClosed) {
+                    throw new JsonParseException(parser, "Incomplete JSON object");
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            // only whitespace may follow the closing brace - otherwise the parser would have failed
+            int closingBraceIndex = length - 1;
+            while (bytes[closingBraceIndex] != '}') {
+                closingBraceIndex--;
+            }
+            return new JobContent(bytes, closingBraceIndex, empty, processKey, payloadStart, payloadEnd);
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // nothing to release
+            }
+        }
+
+        private void append(ByteBuffer byteBuffer) {
+            final int remaining = byteBuffer.remaining();
+            if (length + remaining > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + remaining));
+            }
+            // absolute bulk get - the position is not changed
+            byteBuffer.get(byteBuffer.position(), bytes, length, remaining);
+            length += remaining;
+        }
+
+        // Validate, that the content is exactly one JSON object - without building a tree.
+        // Only the processKey and the position of the payload are kept.
+        private void drainTokens() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (rootClosed) {
+                    throw new JsonParseException(parser, "Only one JSON object expected");
+                }
+                if (!rootStarted) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new JsonParseException(parser, "JSON object expected");
+                    }
+                    rootStarted = true;
+                }
+                if (processKeyFollows) {
+                    processKeyFollows = false;
+                    if (token == JsonToken.VALUE_STRING) {
+                        processKey = parser.getText();
+                    }
+                }
+                if (payloadNameEnd >= 0) {
+                    if (token == JsonToken.VALUE_STRING) {
+                        locatePayload(payloadNameEnd);
+                    }
+                    payloadNameEnd = -1;
+                }
+                switch (token) {
+                    case START_OBJECT, START_ARRAY -> depth++;
+                    case END_OBJECT, END_ARRAY -> {
+                        depth--;
+                        rootClosed = depth == 0;
+                    }
+                    case FIELD_NAME -> {
+                        empty = false;
+                        processKeyFollows = depth == 1 && PROCESS_KEY.equals(parser.currentName());
+                        if (depth == 1 && PAYLOAD.equals(parser.currentName())) {
+                            payloadNameEnd = (int) parser.currentLocation().getByteOffset();
+                        }
+                    }
+                    default -> {
+                        // values are not needed
+                    }
+                }
+            }
+        }
+
+        // The string value is located in the kept bytes, because the parser does not report the start of a value
+        // exactly. The value is not decoded.
+        private void locatePayload(int nameEnd) {
+            int i = nameEnd;
+            boolean colon = false;
+            while (i < length && (bytes[i] == ':' || bytes[i] == ' ' || bytes[i] == '\t' || bytes[i] == '\r' || bytes[i] == '\n')) {
+                colon |= bytes[i] == ':';
+                i++;
+            }
+            if (!colon || i >= length || bytes[i] != '"') {
+                return;
+            }
+            final int start = i++;
+            while (i < length && bytes[i] != '"') {
+                if (bytes[i] == '\\') {
+                    i++;
+                }
+                i++;
+            }
+            if (i < length) {
+                payloadStart = start;
+                payloadEnd = i + 1;
+            }
+        }
+    }
+}
@@ -1,28 +1,30 @@
 package com.giraone.jobs.receiver.web.rest;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.giraone.jobs.common.ObjectMapperBuilder;
+import com.giraone.jobs.receiver.config.ApplicationProperties;
+import com.giraone.jobs.receiver.service.AdmissionRejectedException;
+import com.giraone.jobs.receiver.service.BatchLineResult;
+import com.giraone.jobs.receiver.service.IdempotencyService;
+import com.giraone.jobs.receiver.service.JobStatus;
 import com.giraone.jobs.receiver.service.ProducerService;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.annotation.Observed;
 import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-import reactor.util.function.Tuple2;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.Map;
 
 @Observed(name = "JobReceiveResource")
@@ -30,9 +32,9 @@ import java.util.Map;
 @RequestMapping(value = "/api")
 public class JobReceiveResource {
 
-    private static final ObjectMapper objectMapper = ObjectMapperBuilder.build(false, false);
-    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
-    };
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String PREFER = "Prefer";
+    static final String PREFER_RESPOND_ASYNC = "respond-async";
 
     private static final String METRICS_PREFIX = "receiver.jobs.received";
     private static final String METRICS_JOBS_VALUE_SUCCESS = "success";
@@ -42,11 +44,19 @@ public class JobReceiveResource {
     private Counter failureCounter;
 
     private final ProducerService producerService;
+    private final IdempotencyService idempotencyService;
+    private final JobContentReader jobContentReader;
     private final MeterRegistry meterRegistry;
+    private final boolean asyncAccept;
 
-    public JobReceiveResource(ProducerService producerService, MeterRegistry meterRegistry) {
+    public JobReceiveResource(ProducerService producerService, IdempotencyService idempotencyService,
+                              JobContentReader jobContentReader, MeterRegistry meterRegistry,
+                              ApplicationProperties applicationProperties) {
         this.producerService = producerService;
+        this.idempotencyService = idempotencyService;
+        this.jobContentReader = jobContentReader;
         this.meterRegistry = meterRegistry;
+        this.asyncAccept = applicationProperties.isAsyncAccept();
     }
 
     @PostConstruct
@@ -66,26 +76,76 @@ public class JobReceiveResource {
 
     // @Timed(value = "receiver.jobs.time", description = "Time taken to pass job to Kafka")
     @PostMapping("/jobs")
-    public Mono<ResponseEntity<Map<String, Object>>> create(@RequestBody Flux<ByteBuffer> body) {
-
-        // Flux<ByteBuffer> cached = body.replay(0).autoConnect();
-        Flux<ByteBuffer> cached = body.cache(0);
-
-        Mono<String> mono1 = deserialize(cached)
-            .flatMap(producerService::send);
-
-        // Mono<String> mono1 = doSomethingWithTheContent(cached);
+    public Mono<ResponseEntity<Map<String, Object>>> create(@RequestBody Flux<DataBuffer> body,
+                                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                            @RequestHeader(value = PREFER, required = false) String prefer) {
+
+        // 202 with the key, when the job is queued - the outcome is available with GET /api/jobs/{id}/status
+        final boolean async = asyncAccept || (prefer != null && prefer.contains(PREFER_RESPOND_ASYNC));
+        // One pass over the body: pattern scan and JSON parsing are done on each buffer, when it arrives.
+        // A retry with the same idempotency key gets the key of the first job without reading the body again.
+        return idempotencyService.sendOnce(idempotencyKey, () -> jobContentReader.read(body)
+                .flatMap(content -> async ? producerService.sendAsync(content) : producerService.send(content)))
+            .map(key -> async ? accepted(key) : ok(key))
+            .doOnSuccess(any -> successCounter.increment())
+            .doOnError(any -> failureCounter.increment())
+            .onErrorResume(PatternDetectedException.class, this::bad)
+            .onErrorResume(AdmissionRejectedException.class, this::tooManyRequests);
+    }
 
-        Mono<Boolean> mono2 = stopOnPatternDetection(cached.subscribeOn(Schedulers.boundedElastic()));
+    /**
+     * GET /api/jobs/{id}/status : The publish outcome of a job, that was accepted with 202.
+     *
+     * @param id the key of the job
+     * @return the status (PENDING, SENT, SPOOLED or FAILED) or 404, if the job is unknown or no longer cached
+     */
+    @GetMapping("/jobs/{id}/status")
+    public Mono<ResponseEntity<Map<String, Object>>> getStatus(@PathVariable String id) {
+
+        final JobStatus status = producerService.getStatus(id);
+        if (status == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return Mono.just(ResponseEntity.ok(Map.of("key", id, "status", status)));
+    }
 
-        Mono<Tuple2<String, Boolean>> zippedMono = mono1.zipWith(mono2);
+    /**
+     * POST /api/jobs/batch : Accept many jobs as newline delimited JSON (one job per line).
+     * The jobs are streamed to Kafka without waiting for the whole request body.
+     *
+     * @param body the jobs - one JSON object per line
+     * @return a stream with one result per (non-blank) line in the order of the request, either with the message
+     * key ("key") or with the reason ("error"), why the job was not accepted.
+     */
+    @PostMapping(value = "/jobs/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Map<String, Object>> createBatch(@RequestBody Flux<DataBuffer> body) {
+
+        return producerService.sendBatch(jobContentReader.readLines(body))
+            .doOnNext(result -> {
+                if (result.isSent()) {
+                    successCounter.increment();
+                } else {
+                    failureCounter.increment();
+                }
+            })
+            .map(this::toBatchResponse);
+    }
 
-        return zippedMono
-            .map(Tuple2::getT1)
-            .map(this::ok)
-            .doOnSuccess(any -> successCounter.increment())
-            .doOnError(any -> failureCounter.increment())
-            .onErrorResume(PatternDetectedException.class, this::bad);
+    Map<String, Object> toBatchResponse(BatchLineResult result) {
+        if (result.isSent()) {
+            return Map.of(
+                "index", result.index(),
+                "key", result.key(),
+                "detection", false
+            );
+        }
+        final String error = result.error().getMessage() != null
+            ? result.error().getMessage() : result.error().getClass().getSimpleName();
+        return Map.of(
+            "index", result.index(),
+            "error", error,
+            "detection", result.error() instanceof PatternDetectedException
+        );
     }
 
     Mono<ResponseEntity<Map<String, Object>>> bad(PatternDetectedException patternDetectedException) {
@@ -96,9 +156,19 @@ public class JobReceiveResource {
         );
     }
 
-    ResponseEntity<Map<String, Object>> ok(String key) {
+    // The client should slow down - the job was not passed to Kafka.
+    Mono<ResponseEntity<Map<String, Object>>> tooManyRequests(AdmissionRejectedException admissionRejectedException) {
+        return Mono.just(
+            ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(admissionRejectedException.getRetryAfter().toSeconds()))
+                .body(Map.of("detection", false))
+        );
+    }
+
+    ResponseEntity<Map<String, Object>> accepted(String key) {
         return ResponseEntity
-            .ok()
+            .accepted()
             .body(
                 Map.of(
                     "key", key,
@@ -107,48 +177,14 @@ public class JobReceiveResource {
             );
     }
 
-    Mono<Boolean> stopOnPatternDetection(Flux<ByteBuffer> content) {
-        return readContent(content)
-            .map(bytes -> {
-                if (patternIsDetected(bytes)) {
-                    throw new PatternDetectedException("Pattern detected in " + Arrays.toString(bytes));
-                }
-                return true;
-            });
-    }
-
-    Mono<String> doSomethingWithTheContent(Flux<ByteBuffer> content) {
-        return readContent(content)
-            .map(bytes -> new String(bytes));
-    }
-
-    Mono<Map<String, Object>> deserialize(Flux<ByteBuffer> content) {
-
-        return readContent(content)
-            .map(bytes -> {
-                try {
-                    return objectMapper.readValue(bytes, MAP);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
-    }
-
-    @Observed
-    Mono<byte[]> readContent(Flux<ByteBuffer> content) {
-
-        return content
-            .reduce(
-                new ByteArrayOutputStream(),
-                (byteArrayOutputStream, buffer) -> {
-                    byteArrayOutputStream.write(buffer.array(), 0, buffer.limit());
-                    return byteArrayOutputStream;
-                })
-            .map(ByteArrayOutputStream::toByteArray);
-    }
-
-    private boolean patternIsDetected(byte[] content) {
-
-        return new String(content).contains("PATTERN-X");
+    ResponseEntity<Map<String, Object>> ok(String key) {
+        return ResponseEntity
+            .ok()
+            .body(
+                Map.of(
+                    "key", key,
+                    "detection", false
+                )
+            );
     }
-}
\ No newline at end of file
+}
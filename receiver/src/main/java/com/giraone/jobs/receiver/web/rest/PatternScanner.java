@@ -0,0 +1,118 @@
+package com.giraone.jobs.receiver.web.rest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Scans byte content for a set of fixed patterns without decoding it into a String.
+ * The patterns are compiled once into an Aho-Corasick automaton, whose failure links are resolved into a full
+ * transition table, so each byte costs one table lookup - independent of the number of patterns.
+ * The state of a single scan is held in a {@link Matcher}, so content can be fed chunk by chunk, and a pattern
+ * spanning two chunks is detected.
+ */
+public class PatternScanner {
+
+    private static final int ALPHABET_SIZE = 256;
+
+    // transitions[state * 256 + unsigned byte] = next state
+    private final int[] transitions;
+    // true, if a pattern ends in the state or in one of its suffix states
+    private final boolean[] accepting;
+
+    public PatternScanner(Collection<String> patterns) {
+
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("At least one pattern is needed!");
+        }
+        int maxStates = 1;
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern must not be empty!");
+            }
+            maxStates += pattern.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        // 1. trie of all patterns, -1 = no transition
+        int[] trie = new int[maxStates * ALPHABET_SIZE];
+        Arrays.fill(trie, -1);
+        boolean[] ends = new boolean[maxStates];
+        int states = 1;
+        for (String pattern : patterns) {
+            int state = 0;
+            for (byte b : pattern.getBytes(StandardCharsets.UTF_8)) {
+                final int index = state * ALPHABET_SIZE + (b & 0xff);
+                if (trie[index] == -1) {
+                    trie[index] = states++;
+                }
+                state = trie[index];
+            }
+            ends[state] = true;
+        }
+
+        // 2. breadth first: resolve missing transitions by the failure link of the state
+        final int[] failure = new int[states];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            if (trie[c] == -1) {
+                trie[c] = 0;
+            } else {
+                queue.add(trie[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            ends[state] |= ends[failure[state]];
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                final int index = state * ALPHABET_SIZE + c;
+                final int fallback = trie[failure[state] * ALPHABET_SIZE + c];
+                if (trie[index] == -1) {
+                    trie[index] = fallback;
+                } else {
+                    failure[trie[index]] = fallback;
+                    queue.add(trie[index]);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(trie, states * ALPHABET_SIZE);
+        this.accepting = Arrays.copyOf(ends, states);
+    }
+
+    /**
+     * Create a new matcher for scanning one content stream.
+     */
+    public Matcher matcher() {
+        return new Matcher();
+    }
+
+    public final class Matcher {
+
+        private int state;
+
+        private Matcher() {
+        }
+
+        /**
+         * Scan the readable bytes of the buffer. The position of the buffer is not changed.
+         *
+         * @param buffer the next chunk of content
+         * @return true, if one of the patterns was detected (also, when it started in a previous chunk)
+         */
+        public boolean scan(ByteBuffer buffer) {
+            for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+                if (next(buffer.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean next(byte b) {
+            state = transitions[state * ALPHABET_SIZE + (b & 0xff)];
+            return accepting[state];
+        }
+    }
+}
@@ -0,0 +1,20 @@
+#!/bin/bash
+
+if [[ $# != 2 ]]; then
+  echo "Usage: $0 <from> <to>"
+  echo " e.g. $0 1000 2000"
+  exit 1
+fi
+
+typeset -i from=$1
+typeset -i to=$2
+
+while ((from < to)); do
+  echo "{\"id\":${from},\"eventTimestamp\":\"$(date +'%Y-%m-%dT%H:%M:%S.%NZ')\",\"test\":\"PATTERN-OK\"}"
+  ((from+=1))
+done | curl http://localhost:8090/api/jobs/batch \
+     --request POST \
+     --silent \
+     --header 'Content-Type: application/x-ndjson' \
+     --data-binary @-
+echo
@@ -0,0 +1,113 @@
+package com.giraone.jobs.receiver.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyCacheTest {
+
+    private final AtomicInteger submissions = new AtomicInteger();
+
+    @Test
+    void computeIfAbsent_returnsTheFirstJobKeyForDuplicates() {
+
+        // arrange
+        IdempotencyCache cache = new IdempotencyCache(10, Duration.ofMinutes(1));
+
+        // act
+        String jobKey1 = cache.computeIfAbsent("i1", this::submit).block();
+        String jobKey2 = cache.computeIfAbsent("i1", this::submit).block();
+        String jobKey3 = cache.computeIfAbsent("i2", this::submit).block();
+
+        // assert
+        assertThat(jobKey2).isEqualTo(jobKey1);
+        assertThat(jobKey3).isNotEqualTo(jobKey1);
+        assertThat(submissions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void computeIfAbsent_submitsAgainAfterFailure() {
+
+        // arrange
+        IdempotencyCache cache = new IdempotencyCache(10, Duration.ofMinutes(1));
+
+        // act/assert
+        StepVerifier.create(cache.computeIfAbsent("i1", () -> Mono.error(new IllegalStateException("Kafka down"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+        assertThat(cache.computeIfAbsent("i1", this::submit).block()).isEqualTo("job1");
+    }
+
+    @Test
+    void computeIfAbsent_evictsExpiredAndOldestEntries() {
+
+        // arrange
+        MutableClock clock = new MutableClock();
+        IdempotencyCache cache = new IdempotencyCache(2, Duration.ofSeconds(10), clock);
+        cache.computeIfAbsent("i1", this::submit).block();
+        cache.computeIfAbsent("i2", this::submit).block();
+        cache.computeIfAbsent("i3", this::submit).block();
+
+        // act/assert - i1 was evicted by size
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.computeIfAbsent("i1", this::submit).block()).isEqualTo("job4");
+
+        // act/assert - all entries expired
+        clock.millis += 11_000L;
+        assertThat(cache.computeIfAbsent("i3", this::submit).block()).isEqualTo("job5");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void put_ignoresExpiredEntries() {
+
+        // arrange
+        MutableClock clock = new MutableClock();
+        IdempotencyCache cache = new IdempotencyCache(10, Duration.ofSeconds(10), clock);
+
+        // act
+        cache.put("i1", "old", clock.millis - 20_000L);
+        cache.put("i2", "recent", clock.millis - 5_000L);
+
+        // assert
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.computeIfAbsent("i2", this::submit).block()).isEqualTo("recent");
+    }
+
+    private Mono<String> submit() {
+        return Mono.fromSupplier(() -> "job" + submissions.incrementAndGet());
+    }
+
+    private static class MutableClock extends Clock {
+
+        long millis = 1_000_000L;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.giraone.jobs.receiver.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightBudgetTest {
+
+    @Test
+    void tryAcquire_rejectsWhenGlobalLimitIsReached() {
+
+        // arrange
+        InFlightBudget budget = new InFlightBudget(2, 10);
+
+        // act
+        InFlightBudget.Permit permit1 = budget.tryAcquire("p1");
+        InFlightBudget.Permit permit2 = budget.tryAcquire(null);
+        InFlightBudget.Permit permit3 = budget.tryAcquire("p2");
+
+        // assert
+        assertThat(permit1).isNotNull();
+        assertThat(permit2).isNotNull();
+        assertThat(permit3).isNull();
+        assertThat(budget.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void tryAcquire_rejectsWhenProcessKeyLimitIsReached() {
+
+        // arrange
+        InFlightBudget budget = new InFlightBudget(10, 1);
+
+        // act
+        InFlightBudget.Permit permit1 = budget.tryAcquire("p1");
+        InFlightBudget.Permit permit2 = budget.tryAcquire("p1");
+        InFlightBudget.Permit permit3 = budget.tryAcquire("p2");
+
+        // assert
+        assertThat(permit1).isNotNull();
+        assertThat(permit2).isNull();
+        assertThat(permit3).isNotNull();
+        assertThat(budget.getInFlight()).isEqualTo(2);
+        assertThat(budget.getInFlight("p1")).isEqualTo(1);
+    }
+
+    @Test
+    void release_givesBackTheBudgetOnlyOnce() {
+
+        // arrange
+        InFlightBudget budget = new InFlightBudget(1, 1);
+        InFlightBudget.Permit permit = budget.tryAcquire("p1");
+
+        // act
+        permit.release();
+        permit.release();
+
+        // assert
+        assertThat(budget.getInFlight()).isZero();
+        assertThat(budget.getInFlight("p1")).isZero();
+        assertThat(budget.tryAcquire("p1")).isNotNull();
+        assertThat(budget.tryAcquire("p1")).isNull();
+    }
+}
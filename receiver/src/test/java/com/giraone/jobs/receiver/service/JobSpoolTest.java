@@ -0,0 +1,110 @@
+package com.giraone.jobs.receiver.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void peekAndCommit_returnJobsInOrderOverSegments() throws IOException {
+
+        // arrange - 3 jobs per segment
+        JobSpool jobSpool = new JobSpool(directory, 64);
+        for (int i = 0; i < 7; i++) {
+            jobSpool.append("key" + i, ("{\"a\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(segmentFiles()).isEqualTo(3);
+
+        // act/assert
+        for (int i = 0; i < 7; i++) {
+            JobSpool.SpooledJob job = jobSpool.peek();
+            assertThat(job.key()).isEqualTo("key" + i);
+            assertThat(new String(job.value(), StandardCharsets.UTF_8)).isEqualTo("{\"a\":" + i + "}");
+            jobSpool.commit(job);
+        }
+        assertThat(jobSpool.peek()).isNull();
+        assertThat(jobSpool.isEmpty()).isTrue();
+        assertThat(segmentFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void peek_withoutCommitReturnsTheSameJob() {
+
+        // arrange
+        JobSpool jobSpool = new JobSpool(directory, 100);
+        jobSpool.append("key0", new byte[]{'{', '}'});
+
+        // act
+        JobSpool.SpooledJob job1 = jobSpool.peek();
+        JobSpool.SpooledJob job2 = jobSpool.peek();
+
+        // assert
+        assertThat(job2.key()).isEqualTo(job1.key());
+        assertThat(jobSpool.isEmpty()).isFalse();
+    }
+
+    @Test
+    void open_continuesAfterTheCommittedJobs() {
+
+        // arrange
+        JobSpool jobSpool = new JobSpool(directory, 100);
+        for (int i = 0; i < 5; i++) {
+            jobSpool.append("key" + i, new byte[]{'{', '}'});
+        }
+        jobSpool.commit(jobSpool.peek());
+        jobSpool.commit(jobSpool.peek());
+        jobSpool.close();
+
+        // act
+        JobSpool reopened = new JobSpool(directory, 100);
+        reopened.append("key5", new byte[]{'{', '}'});
+
+        // assert
+        for (int i = 2; i < 6; i++) {
+            JobSpool.SpooledJob job = reopened.peek();
+            assertThat(job.key()).isEqualTo("key" + i);
+            reopened.commit(job);
+        }
+        assertThat(reopened.isEmpty()).isTrue();
+    }
+
+    @Test
+    void peekChunkAndCommit_stopAtSegmentEnd() {
+
+        // arrange - 3 jobs per segment
+        JobSpool jobSpool = new JobSpool(directory, 64);
+        for (int i = 0; i < 5; i++) {
+            jobSpool.append("key" + i, ("{\"a\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+        }
+
+        // act
+        List<JobSpool.SpooledJob> chunk1 = jobSpool.peek(10);
+        jobSpool.commit(chunk1.get(chunk1.size() - 1));
+        List<JobSpool.SpooledJob> chunk2 = jobSpool.peek(10);
+        jobSpool.commit(chunk2.get(chunk2.size() - 1));
+
+        // assert
+        assertThat(chunk1).extracting(JobSpool.SpooledJob::key).containsExactly("key0", "key1", "key2");
+        assertThat(chunk2).extracting(JobSpool.SpooledJob::key).containsExactly("key3", "key4");
+        assertThat(jobSpool.peek(10)).isEmpty();
+        assertThat(jobSpool.isEmpty()).isTrue();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+}
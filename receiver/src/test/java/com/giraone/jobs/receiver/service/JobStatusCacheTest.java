@@ -0,0 +1,60 @@
+package com.giraone.jobs.receiver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobStatusCacheTest {
+
+    @Test
+    void put_updatesStatusWithoutChangingTheOrder() {
+
+        // arrange
+        JobStatusCache cache = new JobStatusCache(2);
+        cache.put("1", JobStatus.PENDING);
+        cache.put("2", JobStatus.PENDING);
+
+        // act
+        cache.put("1", JobStatus.SENT);
+        cache.put("3", JobStatus.PENDING);
+
+        // assert - 1 is still the oldest job
+        assertThat(cache.get("1")).isNull();
+        assertThat(cache.get("2")).isEqualTo(JobStatus.PENDING);
+        assertThat(cache.get("3")).isEqualTo(JobStatus.PENDING);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void put_staysBoundedUnderConcurrentWriters() throws InterruptedException {
+
+        // arrange
+        JobStatusCache cache = new JobStatusCache(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+
+        // act
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    String id = thread + "-" + i;
+                    cache.put(id, JobStatus.PENDING);
+                    cache.put(id, JobStatus.SENT);
+                }
+                done.countDown();
+            });
+        }
+        boolean completed = done.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // assert
+        assertThat(completed).isTrue();
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+}
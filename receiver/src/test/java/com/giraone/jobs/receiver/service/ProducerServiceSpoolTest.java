@@ -0,0 +1,185 @@
+package com.giraone.jobs.receiver.service;
+
+import com.giraone.jobs.receiver.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProducerServiceSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private ApplicationProperties applicationProperties;
+    private JobSpool jobSpool;
+    private ReactiveKafkaProducerTemplate<String, byte[]> reactiveKafkaProducerTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+
+        applicationProperties = new ApplicationProperties();
+        jobSpool = new JobSpool(directory, 64 * 1024);
+        reactiveKafkaProducerTemplate = mock(ReactiveKafkaProducerTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        jobSpool.close();
+    }
+
+    @Test
+    void send_spoolsJobsDuringOutageInOrder() {
+
+        // arrange - the producer fails the record after the send timeout
+        ProducerService producerService = newProducerService();
+        when(reactiveKafkaProducerTemplate.send(anyString(), anyString(), any(byte[].class)))
+            .thenReturn(Mono.error(new TimeoutException("Expiring 1 record(s)")));
+
+        // act
+        String id1 = producerService.send(jobContent()).block();
+        String id2 = producerService.send(jobContent()).block();
+
+        // assert - the second job is spooled without a send attempt
+        verify(reactiveKafkaProducerTemplate, times(1)).send(anyString(), anyString(), any(byte[].class));
+        JobSpool.SpooledJob job1 = jobSpool.peek();
+        assertThat(job1.key()).isEqualTo(id1);
+        jobSpool.commit(job1);
+        JobSpool.SpooledJob job2 = jobSpool.peek();
+        assertThat(job2.key()).isEqualTo(id2);
+        assertThat(new String(job2.value(), StandardCharsets.UTF_8)).contains("\"id\":\"" + id2 + "\"");
+        assertThat(producerService.getMetrics().block().get("spooled")).hasToString("2");
+    }
+
+    @Test
+    void send_rejectsJobOverInFlightBudgetInsteadOfSpooling() {
+
+        // arrange - the first job is never acknowledged
+        applicationProperties.getAdmission().setMaxInFlight(1);
+        ProducerService producerService = newProducerService();
+        when(reactiveKafkaProducerTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(Mono.never());
+        producerService.sendAsync(jobContent()).block();
+
+        // act/assert
+        assertThatThrownBy(() -> producerService.send(jobContent()).block()).isInstanceOf(AdmissionRejectedException.class);
+        assertThat(jobSpool.isEmpty()).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayAll_drainsSpoolUnderContinuousIngest() throws InterruptedException {
+
+        // arrange - a backlog in the spool and a producer, that acknowledges every record
+        ProducerService producerService = newProducerService();
+        SpoolReplayService spoolReplayService = new SpoolReplayService(applicationProperties, jobSpool, reactiveKafkaProducerTemplate);
+        Queue<String> sentKeys = new ConcurrentLinkedQueue<>();
+        Queue<String> directKeys = new ConcurrentLinkedQueue<>();
+        when(reactiveKafkaProducerTemplate.send(anyString(), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            sentKeys.add(invocation.getArgument(1));
+            directKeys.add(invocation.getArgument(1));
+            return Mono.just(acknowledged(null));
+        });
+        when(reactiveKafkaProducerTemplate.send(any(Publisher.class))).thenAnswer(invocation ->
+            Flux.from((Publisher<SenderRecord<String, byte[], JobSpool.SpooledJob>>) invocation.getArgument(0))
+                .map(record -> {
+                    sentKeys.add(record.key());
+                    return acknowledged(record.correlationMetadata());
+                }));
+        List<String> expectedKeys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            jobSpool.append("spooled-" + i, "{}".getBytes(StandardCharsets.UTF_8));
+            expectedKeys.add("spooled-" + i);
+        }
+        List<String> ingestedKeys = new ArrayList<>();
+        AtomicBoolean ingesting = new AtomicBoolean(true);
+        Thread ingest = new Thread(() -> {
+            // until the first job is sent directly (spool drained) plus some more jobs
+            final long deadline = System.currentTimeMillis() + 10_000L;
+            while (directKeys.isEmpty() && System.currentTimeMillis() < deadline) {
+                ingestedKeys.add(producerService.send(jobContent()).block());
+            }
+            for (int i = 0; i < 100; i++) {
+                ingestedKeys.add(producerService.send(jobContent()).block());
+            }
+            ingesting.set(false);
+        });
+
+        // act
+        ingest.start();
+        while (ingesting.get()) {
+            spoolReplayService.replayAll().block();
+        }
+        ingest.join();
+        spoolReplayService.replayAll().block();
+
+        // assert - drained while jobs were ingested, every job sent once in the order of acceptance
+        expectedKeys.addAll(ingestedKeys);
+        assertThat(directKeys).isNotEmpty();
+        assertThat(jobSpool.isEmpty()).isTrue();
+        assertThat(sentKeys).containsExactlyElementsOf(expectedKeys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerService newProducerService() {
+
+        ObjectProvider<JobSpool> jobSpoolProvider = mock(ObjectProvider.class);
+        when(jobSpoolProvider.getIfAvailable()).thenReturn(jobSpool);
+        return new ProducerService(applicationProperties, reactiveKafkaProducerTemplate,
+            new SimpleMeterRegistry(), jobSpoolProvider, mock(ObjectProvider.class));
+    }
+
+    private static JobContent jobContent() {
+        return new JobContent("{}".getBytes(StandardCharsets.UTF_8), 1, true, "V001", -1, -1);
+    }
+
+    private static <T> SenderResult<T> acknowledged(T correlationMetadata) {
+
+        final RecordMetadata recordMetadata = new RecordMetadata(new TopicPartition("job-accepted", 0), 0L, 0, 0L, 0, 0);
+        return new SenderResult<>() {
+            @Override
+            public RecordMetadata recordMetadata() {
+                return recordMetadata;
+            }
+
+            @Override
+            public Exception exception() {
+                return null;
+            }
+
+            @Override
+            public T correlationMetadata() {
+                return correlationMetadata;
+            }
+        };
+    }
+}
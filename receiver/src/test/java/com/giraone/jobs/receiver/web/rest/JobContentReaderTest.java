@@ -0,0 +1,153 @@
+package com.giraone.jobs.receiver.web.rest;
+
+import com.giraone.jobs.receiver.config.ApplicationProperties;
+import com.giraone.jobs.receiver.service.JobContent;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobContentReaderTest {
+
+    private final JobContentReader jobContentReader = new JobContentReader(new ApplicationProperties());
+
+    @Test
+    void read_worksForChunkedContent() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("{\"requesterId\":\"abc\",", "\"nu", "mber\":42,\"list\":[1,2]}");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .assertNext(jobContent -> assertThat(withAddedId(jobContent))
+                .isEqualTo("{\"requesterId\":\"abc\",\"number\":42,\"list\":[1,2],\"id\":1}"))
+            .verifyComplete();
+    }
+
+    @Test
+    void read_worksForEmptyObjectWithWhitespace() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks(" { ", " } \n");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .assertNext(jobContent -> assertThat(withAddedId(jobContent)).isEqualTo(" { \"id\":1}"))
+            .verifyComplete();
+    }
+
+    @Test
+    void read_detectsPatternSpanningChunks() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("{\"test\":\"PATT", "ERN-X\"}");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .expectError(PatternDetectedException.class)
+            .verify();
+    }
+
+    @Test
+    void read_failsForInvalidJson() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("{\"test\":");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .expectError(RuntimeException.class)
+            .verify();
+    }
+
+    @Test
+    void read_keepsTopLevelProcessKey() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("{\"payload\":{\"processKey\":\"X\"},\"proc", "essKey\":\"V001\"}");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .assertNext(jobContent -> assertThat(jobContent.processKey()).isEqualTo("V001"))
+            .verifyComplete();
+    }
+
+    @Test
+    void read_locatesPayloadForClaimCheck() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("{\"a\":{\"payload\":\"x\"}, \"payl", "oad\" : \"ab\\\"c\" ,\"b\":2}");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .assertNext(jobContent -> {
+                assertThat(new String(jobContent.payload(), StandardCharsets.UTF_8)).isEqualTo("\"ab\\\"c\"");
+                JobContent offloaded = jobContent.withReplacedPayload("null,\"payloadRef\":\"r\"".getBytes(StandardCharsets.UTF_8));
+                assertThat(offloaded.payloadLength()).isZero();
+                assertThat(withAddedId(offloaded))
+                    .isEqualTo("{\"a\":{\"payload\":\"x\"}, \"payload\" : null,\"payloadRef\":\"r\" ,\"b\":2,\"id\":1}");
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void read_failsForJsonArray() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("[{\"a\":1}]");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .expectError(RuntimeException.class)
+            .verify();
+    }
+
+    @Test
+    void read_failsForTrailingContent() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks("{\"a\":1}", "{\"a\":2}");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.read(content))
+            .expectError(RuntimeException.class)
+            .verify();
+    }
+
+    @Test
+    void readLines_worksForLinesSpanningChunks() {
+
+        // arrange
+        Flux<DataBuffer> content = chunks(
+            "{\"a\":1}\n{\"a\"", ":2}\n\n{\"test\":\"PATTERN-X\"}\n{\"a\":", "\n{\"a\":5}");
+
+        // act/assert
+        StepVerifier.create(jobContentReader.readLines(content))
+            .assertNext(line -> assertThat(withAddedId(line.content())).isEqualTo("{\"a\":1,\"id\":1}"))
+            .assertNext(line -> assertThat(withAddedId(line.content())).isEqualTo("{\"a\":2,\"id\":1}"))
+            .assertNext(line -> {
+                assertThat(line.index()).isEqualTo(2L);
+                assertThat(line.error()).isInstanceOf(PatternDetectedException.class);
+            })
+            .assertNext(line -> assertThat(line.error()).isNotNull())
+            .assertNext(line -> {
+                assertThat(line.index()).isEqualTo(4L);
+                assertThat(withAddedId(line.content())).isEqualTo("{\"a\":5,\"id\":1}");
+            })
+            .verifyComplete();
+    }
+
+    private static String withAddedId(JobContent jobContent) {
+        return new String(jobContent.withAddedFields("\"id\":1".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    private static Flux<DataBuffer> chunks(String... chunks) {
+        return Flux.fromArray(chunks)
+            .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -2,18 +2,22 @@ package com.giraone.jobs.receiver.web.rest;
 
 import com.giraone.jobs.common.MetricsTestUtil;
 import com.giraone.jobs.receiver.config.ApplicationProperties;
+import com.giraone.jobs.receiver.service.AdmissionRejectedException;
+import com.giraone.jobs.receiver.service.JobStatus;
 import com.giraone.jobs.receiver.service.ProducerService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -74,4 +78,63 @@ public class JobReceiveResourceTest {
         // assert metrics counter
         metricsTestUtil.counterExistsAndIsGreaterThan("/actuator/metrics/receiver.jobs.received.failure", failures);
     }
-}
\ No newline at end of file
+
+    @Test
+    void addJobIsRejected_whenTooManyJobsAreInFlight() {
+
+        // arrange
+        when(producerService.send(any()))
+            .thenReturn(Mono.error(new AdmissionRejectedException("Too many jobs in flight", Duration.ofSeconds(2))));
+
+        Map<String, Object> body = Map.of(
+            "requesterId", "JobReceiveResourceTest-" + System.nanoTime(),
+            "processKey", "V001"
+        );
+
+        // act/assert
+        webTestClient
+            .post()
+            .uri("/api/jobs")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(BodyInserters.fromValue(body))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+            .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2");
+    }
+
+    @Test
+    void addJobIsAccepted_whenAsyncIsPreferred() {
+
+        // arrange
+        when(producerService.sendAsync(any())).thenReturn(Mono.just("0ABC"));
+        when(producerService.getStatus("0ABC")).thenReturn(JobStatus.PENDING);
+
+        Map<String, Object> body = Map.of("requesterId", "JobReceiveResourceTest-" + System.nanoTime());
+
+        // act/assert
+        webTestClient
+            .post()
+            .uri("/api/jobs")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .body(BodyInserters.fromValue(body))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.ACCEPTED)
+            .expectBody().jsonPath("$.key").isEqualTo("0ABC");
+
+        webTestClient
+            .get()
+            .uri("/api/jobs/0ABC/status")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.status").isEqualTo("PENDING");
+
+        webTestClient
+            .get()
+            .uri("/api/jobs/0XYZ/status")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+}
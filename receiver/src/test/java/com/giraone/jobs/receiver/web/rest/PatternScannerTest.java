@@ -0,0 +1,65 @@
+package com.giraone.jobs.receiver.web.rest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatternScannerTest {
+
+    private final PatternScanner patternScanner = new PatternScanner(List.of("PATTERN-X", "he", "she", "hers"));
+
+    @ParameterizedTest
+    @CsvSource({
+        "{\"a\":\"PATTERN-X\"},true",
+        "{\"a\":\"PATTERN-\"},false",
+        "abcPATTPATTERN-X,true",
+        "ushers,true",
+        "xsh,false",
+        "h e,false"
+    })
+    void scan_detectsAnyPattern(String content, boolean expectedResult) {
+
+        // act
+        boolean result = patternScanner.matcher().scan(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+
+        // assert
+        assertThat(result).isEqualTo(expectedResult);
+    }
+
+    @Test
+    void scan_detectsPatternSpanningChunks() {
+
+        // arrange
+        PatternScanner.Matcher matcher = patternScanner.matcher();
+
+        // act
+        boolean result1 = matcher.scan(ByteBuffer.wrap("{\"a\":\"PATT".getBytes(StandardCharsets.UTF_8)));
+        boolean result2 = matcher.scan(ByteBuffer.wrap("ERN-X\"}".getBytes(StandardCharsets.UTF_8)));
+
+        // assert
+        assertThat(result1).isFalse();
+        assertThat(result2).isTrue();
+    }
+
+    @Test
+    void scan_worksForManyPatterns() {
+
+        // arrange
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            patterns.add("P" + (i * 7919) + "X");
+        }
+        PatternScanner manyPatterns = new PatternScanner(patterns);
+
+        // act/assert
+        assertThat(manyPatterns.matcher().scan(ByteBuffer.wrap("{\"a\":\"P2375700X\"}".getBytes(StandardCharsets.UTF_8)))).isTrue();
+        assertThat(manyPatterns.matcher().scan(ByteBuffer.wrap("{\"a\":\"P2375701X\"}".getBytes(StandardCharsets.UTF_8)))).isFalse();
+    }
+}
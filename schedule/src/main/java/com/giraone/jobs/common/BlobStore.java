@@ -0,0 +1,24 @@
+package com.giraone.jobs.common;
+
+/**
+ * Store for large job payloads (claim-check). The events carry only the reference, which is derived from the content,
+ * so the same payload is stored only once.
+ */
+public interface BlobStore {
+
+    /**
+     * Store the content, if it is not already stored.
+     *
+     * @param content the content
+     * @return the reference to the content
+     */
+    String put(byte[] content);
+
+    /**
+     * Read stored content.
+     *
+     * @param reference the reference, that was returned by {@link #put(byte[])}
+     * @return the content
+     */
+    byte[] get(String reference);
+}
@@ -8,6 +8,10 @@ import java.time.Instant;
 public abstract class AbstractAssignedJobEvent extends AbstractJobStatusChangedEvent {
 
     protected String agentKey;
+    /**
+     * Number of the retry of the job - 0 for the first execution.
+     */
+    protected int attempt;
 
     protected AbstractAssignedJobEvent() {
     }
@@ -27,6 +31,14 @@ public abstract class AbstractAssignedJobEvent extends AbstractJobStatusChangedE
         this.agentKey = agentKey;
     }
 
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(int attempt) {
+        this.attempt = attempt;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + "{" +
@@ -34,8 +46,10 @@ public abstract class AbstractAssignedJobEvent extends AbstractJobStatusChangedE
             ", eventTimestamp=" + eventTimestamp +
             ", processKey='" + processKey + '\'' +
             ", payload='" + payload + '\'' +
+            ", payloadRef='" + payloadRef + '\'' +
             ", status='" + status + '\'' +
             ", agentKey='" + agentKey + '\'' +
+            ", attempt=" + attempt +
             '}';
     }
 }
@@ -25,6 +25,10 @@ public abstract class AbstractJobEvent implements Serializable {
     protected Instant eventTimestamp;
 
     protected String payload;
+    /**
+     * Reference to the payload in the blob store (claim-check), if the payload was too large to be passed in events.
+     */
+    protected String payloadRef;
 
     protected AbstractJobEvent() {
     }
@@ -84,6 +88,14 @@ public abstract class AbstractJobEvent implements Serializable {
         this.payload = payload;
     }
 
+    public String getPayloadRef() {
+        return payloadRef;
+    }
+
+    public void setPayloadRef(String payloadRef) {
+        this.payloadRef = payloadRef;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + "{" +
@@ -92,6 +104,7 @@ public abstract class AbstractJobEvent implements Serializable {
             ", jobAcceptedTimestamp=" + jobAcceptedTimestamp +
             ", eventTimestamp=" + eventTimestamp +
             ", payload='" + payload + '\'' +
+            ", payloadRef='" + payloadRef + '\'' +
             '}';
     }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@ public abstract class AbstractJobStatusChangedEvent extends AbstractJobEvent {
             ", eventTimestamp=" + eventTimestamp +
             ", processKey='" + processKey + '\'' +
             ", payload='" + payload + '\'' +
+            ", payloadRef='" + payloadRef + '\'' +
             ", status='" + status + '\'' +
             '}';
     }
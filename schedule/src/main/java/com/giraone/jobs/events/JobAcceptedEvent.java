@@ -1,6 +1,13 @@
 package com.giraone.jobs.events;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.giraone.jobs.common.CustomInstantSerializer;
+import com.giraone.jobs.common.TolerantInstantDeserializer;
+
 import java.io.Serial;
+import java.time.Duration;
 import java.time.Instant;
 
 public class JobAcceptedEvent extends AbstractJobEvent {
@@ -8,6 +15,17 @@ public class JobAcceptedEvent extends AbstractJobEvent {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The job must not be scheduled before this time (optional).
+     */
+    @JsonDeserialize(using = TolerantInstantDeserializer.class)
+    @JsonSerialize(using = CustomInstantSerializer.class)
+    private Instant notBefore;
+    /**
+     * The job must not be scheduled before this delay after jobAcceptedTimestamp (optional, e.g. "PT10M").
+     */
+    private Duration delay;
+
     public JobAcceptedEvent() {
         super();
     }
@@ -20,4 +38,34 @@ public class JobAcceptedEvent extends AbstractJobEvent {
     public String getStatus() {
         return "ACCEPTED";
     }
+
+    public Instant getNotBefore() {
+        return notBefore;
+    }
+
+    public void setNotBefore(Instant notBefore) {
+        this.notBefore = notBefore;
+    }
+
+    public Duration getDelay() {
+        return delay;
+    }
+
+    public void setDelay(Duration delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * @return the earliest time, when the job may be scheduled, or null, if it can be scheduled immediately
+     */
+    @JsonIgnore
+    public Instant getDueTimestamp() {
+        if (notBefore != null) {
+            return notBefore;
+        }
+        if (delay != null && jobAcceptedTimestamp != null) {
+            return jobAcceptedTimestamp.plus(delay);
+        }
+        return null;
+    }
 }
\ No newline at end of file
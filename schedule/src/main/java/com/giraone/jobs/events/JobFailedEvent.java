@@ -14,6 +14,7 @@ public class JobFailedEvent extends AbstractAssignedJobEvent {
     public JobFailedEvent(JobScheduledEvent jobScheduledEvent, String result) {
         this(jobScheduledEvent.getId(), jobScheduledEvent.getProcessKey(), jobScheduledEvent.getJobAcceptedTimestamp(),
             Instant.now(), result, jobScheduledEvent.getAgentKey());
+        this.attempt = jobScheduledEvent.getAttempt();
     }
 
     public JobFailedEvent(String id, String processKey, Instant jobAcceptedTimestamp, Instant eventTimestamp, String payload, String agentKey) {
@@ -16,6 +16,8 @@ public class JobPausedEvent extends AbstractJobStatusChangedEvent {
     public JobPausedEvent(String pausedBucketKey, JobAcceptedEvent jobAcceptedEvent) {
         this(jobAcceptedEvent.getId(), jobAcceptedEvent.getProcessKey(), jobAcceptedEvent.getJobAcceptedTimestamp(),
             Instant.now(), jobAcceptedEvent.getPayload(), pausedBucketKey);
+        // the reference to an offloaded payload is passed on
+        this.payloadRef = jobAcceptedEvent.getPayloadRef();
     }
 
     public JobPausedEvent(String id, String processKey, Instant jobAcceptedTimestamp,
@@ -32,4 +34,8 @@ public class JobPausedEvent extends AbstractJobStatusChangedEvent {
     public String getPausedBucketKey() {
         return pausedBucketKey;
     }
+
+    public void setPausedBucketKey(String pausedBucketKey) {
+        this.pausedBucketKey = pausedBucketKey;
+    }
 }
\ No newline at end of file
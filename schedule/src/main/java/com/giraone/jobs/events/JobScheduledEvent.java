@@ -14,11 +14,14 @@ public class JobScheduledEvent extends AbstractAssignedJobEvent {
     public JobScheduledEvent(JobAcceptedEvent jobAcceptedEvent, String agentKey) {
         this(jobAcceptedEvent.getId(), jobAcceptedEvent.getProcessKey(), jobAcceptedEvent.getJobAcceptedTimestamp(),
             Instant.now(), jobAcceptedEvent.getPayload(), agentKey);
+        // the reference to an offloaded payload is passed on
+        this.payloadRef = jobAcceptedEvent.getPayloadRef();
     }
 
     public JobScheduledEvent(JobPausedEvent jobPausedEvent, String agentKey) {
         this(jobPausedEvent.getId(), jobPausedEvent.getProcessKey(), jobPausedEvent.getJobAcceptedTimestamp(),
             Instant.now(), jobPausedEvent.getPayload(), agentKey);
+        this.payloadRef = jobPausedEvent.getPayloadRef();
     }
 
     public JobScheduledEvent(String id, String processKey, Instant jobAcceptedTimestamp,
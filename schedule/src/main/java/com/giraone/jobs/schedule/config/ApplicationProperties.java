@@ -15,6 +15,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Properties specific to application.
@@ -42,6 +46,38 @@ public class ApplicationProperties {
     private boolean showConfigOnStartup;
     private boolean disableStopper;
     private long sleep = 0;
+    /**
+     * If true, the functions consume all records of one poll as a batch (see profile "batch").
+     */
+    private boolean batchMode;
+    /**
+     * Number of workers per processor, that process the records of a batch in parallel. The order is kept only for
+     * records with the same message key. Only used in batch mode.
+     */
+    private int parallelism = 1;
+    /**
+     * If true, processSchedule and processResume read only the process key and forward the original value bytes
+     * with the routing fields as Kafka headers.
+     */
+    private boolean headerRouting;
+    /**
+     * If true, the offsets and all outbound sends of a batch are committed in one Kafka transaction (see profile
+     * "transactional"). The records of a batch are then processed on the listener thread only.
+     */
+    private boolean transactional;
+    /**
+     * Number of records per transaction - used as max-poll-records in the profile "transactional".
+     */
+    private int transactionBatchSize = 500;
+    private AgentExecution agentExecution = new AgentExecution();
+    private AgentSelection agentSelection = new AgentSelection();
+    private DynamicBindings dynamicBindings = new DynamicBindings();
+    private Streams streams = new Streams();
+    private Parking parking = new Parking();
+    private Delay delay = new Delay();
+    private RetryTopics retryTopics = new RetryTopics();
+    private ErrorCompression errorCompression = new ErrorCompression();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
     private RetrySpecification retry = new RetrySpecification();
 
     private Topics topics;
@@ -52,6 +88,11 @@ public class ApplicationProperties {
     private String jobAdminHost;
     private String jobAdminPathAll;
     private int jobAdminBlockMaxSeconds = 30;
+    /**
+     * Directory of the file based blob store for offloaded payloads (claim-check), that is shared with the receiver.
+     * If not set, offloaded payloads cannot be resolved.
+     */
+    private String blobStoreDirectory;
 
     /**
      * Comma separated names of processors.
@@ -149,6 +190,261 @@ public class ApplicationProperties {
         private int attempts = RETRY_DEFAULT_NUMBER_OF_ATTEMPTS;
     }
 
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class AgentExecution {
+        /**
+         * If true, the agent work of a batch is performed on worker threads and not on the listener thread.
+         * Only used in batch mode.
+         */
+        private boolean enabled;
+        /**
+         * Maximum number of concurrent agent invocations for agents, that are not listed in maxConcurrencyPerAgent
+         */
+        private int maxConcurrency = 16;
+        /**
+         * Maximum number of concurrent agent invocations per agent key, e.g. A01
+         */
+        private Map<String, Integer> maxConcurrencyPerAgent = new HashMap<>();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class AgentSelection {
+        /**
+         * If true, a job is scheduled to the least loaded of the eligible agents of its process agent. If false,
+         * the agent key of the process is used.
+         */
+        private boolean enabled;
+        private Strategy strategy = Strategy.POWER_OF_TWO;
+        /**
+         * Eligible agents per agent key of a process, e.g. A01: A01,A02,A03
+         */
+        private Map<String, List<String>> eligibleAgents = new HashMap<>();
+        /**
+         * The agent of the process is kept, unless its load exceeds the load of the selected agent by this factor
+         */
+        private double stickiness = 0.2;
+        /**
+         * Interval of reading the consumer lag of the agent topics
+         */
+        private long lagPollIntervalMs = 5000L;
+        /**
+         * If the consumer lag of the agent of the process is older, the agent of the process is used.
+         */
+        private Duration lagMaxAge = Duration.ofSeconds(30);
+
+        public enum Strategy {
+            /**
+             * Compare two random eligible agents
+             */
+            POWER_OF_TWO,
+            /**
+             * Compare all eligible agents
+             */
+            LEAST_LOADED
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class DynamicBindings {
+        /**
+         * If true, consumer bindings are created at runtime for agent and bucket keys of the process catalog,
+         * that have no binding in application.yml.
+         */
+        private boolean enabled;
+        /**
+         * If true, the topics of new agents and buckets are created, when the binding is created.
+         */
+        private boolean createTopics;
+        private int partitions = 4;
+        private short replicationFactor = 1;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class Parking {
+        /**
+         * If true, jobs of processes, that are still paused, are parked in a local store per process key and
+         * re-emitted, when the process is active again. If false, these jobs are dropped.
+         */
+        private boolean enabled;
+        /**
+         * Directory of the parking store - an absolute path of a mounted persistent volume, required, when enabled
+         */
+        private String directory;
+        /**
+         * Maximum size of one segment file of a process
+         */
+        private long segmentBytes = 64L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class Delay {
+        /**
+         * If true, accepted jobs with a notBefore or delay attribute are held in a timing wheel and scheduled, when
+         * they are due. If false, these attributes are ignored.
+         */
+        private boolean enabled;
+        /**
+         * Compacted topic of this schedule node, which backs the timing wheel - one topic per node.
+         */
+        private String topic = "job-delayed-0";
+        /**
+         * Duration of one tick of the lowest level of the timing wheel - the precision of the release
+         */
+        private long tickMs = 100L;
+        /**
+         * Number of buckets per level of the timing wheel
+         */
+        private int wheelSize = 512;
+        /**
+         * Maximum duration of loading the delayed jobs from the topic on startup
+         */
+        private Duration loadTimeout = Duration.ofSeconds(60);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class RetryTopics {
+        /**
+         * If true, failed jobs are scheduled again after the delays of the retry topics. If false, a failed job is
+         * only sent to the failed topic of its agent.
+         */
+        private boolean enabled;
+        /**
+         * Delay per retry - the n-th retry uses the n-th delay, further retries up to maxAttempts use the last delay
+         */
+        private List<Duration> delays = List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1), Duration.ofMinutes(10));
+        /**
+         * Maximum number of retries of a job - if not set, one retry per delay
+         */
+        private Integer maxAttempts;
+        /**
+         * Prefix of the retry topics - one topic per delay, e.g. job-retry-10s
+         */
+        private String topicPrefix = "job-retry";
+        /**
+         * Topic for the jobs, that failed after all retries
+         */
+        private String topicDeadLetter = "job-dlt";
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class ErrorCompression {
+        /**
+         * If true, only the first error of a fingerprint per window is sent with its stack trace to the error topic and
+         * the errors above the budget are sent without error text. If false, each error is sent with its stack trace.
+         */
+        private boolean enabled = true;
+        /**
+         * Duration of a window - also the interval of sending the summaries
+         */
+        private long windowMs = 10000L;
+        /**
+         * Maximum number of errors per process and window, that are logged and sent with error text to the error topic
+         */
+        private int budgetPerWindow = 100;
+        /**
+         * Number of message keys per fingerprint and window in a summary
+         */
+        private int sampledKeys = 10;
+        /**
+         * Number of stack frames, that are part of the fingerprint
+         */
+        private int topFrames = 3;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class CircuitBreaker {
+        /**
+         * If true, the processors are stopped by a circuit breaker with a sliding window and are started again
+         * automatically to probe the downstream. If false, the processors are stopped after too many errors and have to
+         * be started by the admin endpoints.
+         */
+        private boolean enabled;
+        /**
+         * Number of buckets of the sliding window
+         */
+        private int windowBuckets = 10;
+        /**
+         * Duration of one bucket of the sliding window
+         */
+        private long bucketMs = 1000L;
+        /**
+         * Minimum number of calls in the window, before the rates are checked
+         */
+        private int minimumNumberOfCalls = 20;
+        /**
+         * Failure rate in percent, at which the processor is stopped
+         */
+        private double failureRateThreshold = 50.0;
+        /**
+         * Duration, above which a successful call is slow
+         */
+        private long slowCallDurationMs = 10000L;
+        /**
+         * Rate of slow calls in percent, at which the processor is stopped
+         */
+        private double slowCallRateThreshold = 100.0;
+        /**
+         * Duration, after which a stopped processor is started again to probe the downstream
+         */
+        private long waitInOpenStateMs = 5000L;
+        /**
+         * Number of calls, that decide whether a started processor keeps running or is stopped again
+         */
+        private int permittedCallsInHalfOpenState = 10;
+        /**
+         * Interval of checking, whether stopped processors have to be started again
+         */
+        private long checkIntervalMs = 1000L;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @ToString
+    public static final class Streams {
+        /**
+         * If true, the jobs are processed by the Kafka Streams topology (see profile "streams") and not by the
+         * functions of the message channel binder.
+         */
+        private boolean enabled;
+        /**
+         * Compacted topic with the process catalog (key = process key), that is read into a global state store.
+         */
+        private String topicProcessCatalog = "process-catalog";
+        /**
+         * Interval, in which the parked jobs of paused processes are checked for resume.
+         */
+        private Duration resumeInterval = Duration.ofSeconds(5);
+        /**
+         * Maximum number of parked jobs, that are forwarded in one check. The rest is forwarded in the next checks.
+         */
+        private int resumeChunkSize = 1000;
+    }
+
     @Getter
     @Setter
     @NoArgsConstructor
@@ -0,0 +1,19 @@
+package com.giraone.jobs.schedule.config;
+
+import com.giraone.jobs.common.BlobStore;
+import com.giraone.jobs.common.FileBlobStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(prefix = "application", name = "blob-store-directory")
+public class ClaimCheckConfig {
+
+    @Bean
+    public BlobStore blobStore(ApplicationProperties applicationProperties) {
+        return new FileBlobStore(Path.of(applicationProperties.getBlobStoreDirectory()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.giraone.jobs.schedule.config;
+
+import com.giraone.jobs.schedule.clients.JobAdminClient;
+import com.giraone.jobs.schedule.processor.ProcessorAgent;
+import com.giraone.jobs.schedule.processor.ProcessorNotify;
+import com.giraone.jobs.schedule.streams.ProcessCatalogPublisher;
+import com.giraone.jobs.schedule.streams.SchedulingTopology;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * The Kafka Streams topology, that replaces the functions of the message channel binder (see profile "streams").
+ * The streams configuration (application id, processing guarantee, number of stream threads) is taken from
+ * spring.kafka.streams.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(prefix = "application.streams", name = "enabled", havingValue = "true")
+public class KafkaStreamsConfig {
+
+    @Bean
+    public SchedulingTopology schedulingTopology(StreamsBuilder streamsBuilder, ApplicationProperties applicationProperties,
+                                                 ProcessorAgent processorAgent, ProcessorNotify processorNotify) {
+        final SchedulingTopology schedulingTopology = new SchedulingTopology(applicationProperties, processorAgent, processorNotify);
+        schedulingTopology.addTo(streamsBuilder);
+        return schedulingTopology;
+    }
+
+    @Bean
+    public ProcessCatalogPublisher processCatalogPublisher(JobAdminClient jobAdminClient, ApplicationProperties applicationProperties,
+                                                           KafkaTemplate<String, byte[]> kafkaTemplate) {
+        return new ProcessCatalogPublisher(jobAdminClient, applicationProperties, kafkaTemplate);
+    }
+}
@@ -0,0 +1,211 @@
+package com.giraone.jobs.schedule.delay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel for a large number of timers. Level 0 has wheelSize buckets of tickMs each, every
+ * higher level has buckets of the total interval of the level below. Adding and cancelling a timer is O(1): the timer
+ * is linked into the bucket of its expiration time in the lowest level, whose interval covers it. When the clock
+ * passes the start of a bucket of a higher level, its timers are moved down one level, so each timer is moved at most
+ * once per level.
+ * <p>
+ * The clock is advanced by the caller, e.g. by one thread every tickMs. A timer expires, when the clock reaches the
+ * start of its level 0 bucket, so it expires at most tickMs early. The class is thread safe.
+ * </p>
+ *
+ * @param <T> the value of a timer
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final Level root;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs must be > 0 and wheelSize > 1!");
+        }
+        this.root = new Level(tickMs, wheelSize, startMs);
+    }
+
+    /**
+     * Add a timer.
+     *
+     * @return the timer, that can be cancelled, or null, if the expiration time is already reached - the caller
+     * has to handle the value immediately
+     */
+    public synchronized Timer<T> add(long expirationMs, T value) {
+
+        final Timer<T> timer = new Timer<>(expirationMs, value);
+        if (!root.add(timer)) {
+            return null;
+        }
+        size++;
+        return timer;
+    }
+
+    /**
+     * Remove a timer, that is not yet expired.
+     *
+     * @return true, if the timer was removed
+     */
+    public synchronized boolean cancel(Timer<T> timer) {
+
+        if (timer.bucket == null) {
+            return false;
+        }
+        timer.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Advance the clock to the given time.
+     *
+     * @return the values of all timers, that are expired, in the order of their expiration time (per tick)
+     */
+    public synchronized List<T> advanceClock(long nowMs) {
+
+        final List<T> expired = new ArrayList<>();
+        while (root.currentTime + root.tickMs <= nowMs) {
+            root.currentTime += root.tickMs;
+            if (root.overflow != null) {
+                root.overflow.advance(root.currentTime, expired);
+            }
+            final Bucket<T> bucket = root.bucketOf(root.currentTime);
+            for (Timer<T> timer = bucket.poll(); timer != null; timer = bucket.poll()) {
+                expired.add(timer.value);
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getCurrentTime() {
+        return root.currentTime;
+    }
+
+    public static final class Timer<T> {
+
+        private final long expirationMs;
+        private final T value;
+        private Bucket<T> bucket;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long expirationMs, T value) {
+            this.expirationMs = expirationMs;
+            this.value = value;
+        }
+
+        public long getExpirationMs() {
+            return expirationMs;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+            bucket = null;
+        }
+    }
+
+    // circular doubly linked list with a sentinel
+    private static final class Bucket<T> {
+
+        private final Timer<T> sentinel = new Timer<>(0L, null);
+
+        private Bucket() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        private void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = sentinel.prev;
+            timer.next = sentinel;
+            sentinel.prev.next = timer;
+            sentinel.prev = timer;
+        }
+
+        private Timer<T> poll() {
+            final Timer<T> first = sentinel.next;
+            if (first == sentinel) {
+                return null;
+            }
+            first.unlink();
+            return first;
+        }
+    }
+
+    private final class Level {
+
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        // start of the current bucket, always a multiple of tickMs
+        private long currentTime;
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.currentTime = startMs - (startMs % tickMs);
+        }
+
+        // false, if the timer is expired
+        private boolean add(Timer<T> timer) {
+
+            if (timer.expirationMs < currentTime + tickMs) {
+                return false;
+            }
+            if (timer.expirationMs < currentTime + interval) {
+                bucketOf(timer.expirationMs).add(timer);
+            } else {
+                if (overflow == null) {
+                    overflow = new Level(interval, wheelSize, currentTime);
+                }
+                overflow.add(timer);
+            }
+            return true;
+        }
+
+        // move the timers of the bucket, that starts at the new time, to the lower levels
+        private void advance(long timeMs, List<T> expired) {
+
+            if (timeMs < currentTime + tickMs) {
+                return;
+            }
+            currentTime = timeMs - (timeMs % tickMs);
+            if (overflow != null) {
+                overflow.advance(timeMs, expired);
+            }
+            final Bucket<T> bucket = bucketOf(currentTime);
+            for (Timer<T> timer = bucket.poll(); timer != null; timer = bucket.poll()) {
+                if (!root.add(timer)) {
+                    expired.add(timer.value);
+                }
+            }
+        }
+
+        private Bucket<T> bucketOf(long timeMs) {
+            return buckets[(int) ((timeMs / tickMs) % wheelSize)];
+        }
+    }
+}
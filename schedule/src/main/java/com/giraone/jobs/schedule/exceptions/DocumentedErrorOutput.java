@@ -5,9 +5,14 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.giraone.jobs.schedule.constants.UtilsAndConstants;
 import lombok.Generated;
 
+import java.util.List;
+
 /**
  * A data class for storing a message (key, value) that caused a processing exception.
- * The class contains also the error text and the stack trace.
+ * The class contains also the error text and the stack trace. During an error storm (see {@link ErrorStormCompressor})
+ * the stack trace is only contained in the first output of an error fingerprint, an error above the budget is sent
+ * with the message and the fingerprint only and a summary with the counters and sampled message keys is sent at the
+ * end of each window.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -18,11 +23,49 @@ public class DocumentedErrorOutput {
     public final Object causedByMessage;
     public final String errorText;
     public final String stacktrace;
+    public final String fingerprint;
+    public final Long occurrences;
+    public final Long suppressed;
+    public final List<String> sampledKeys;
 
     public DocumentedErrorOutput(String causedByKey, Object causedByMessage, Exception exception) {
+        this(causedByKey, causedByMessage, exception, null, true);
+    }
+
+    public DocumentedErrorOutput(String causedByKey, Object causedByMessage, Exception exception, String fingerprint,
+                                 boolean withStacktrace) {
         this.causedByKey = causedByKey;
         this.causedByMessage = causedByMessage;
         this.errorText = exception.getMessage();
-        this.stacktrace = UtilsAndConstants.convertStackTraceToString(exception);
+        this.stacktrace = withStacktrace ? UtilsAndConstants.convertStackTraceToString(exception) : null;
+        this.fingerprint = fingerprint;
+        this.occurrences = null;
+        this.suppressed = null;
+        this.sampledKeys = null;
+    }
+
+    /**
+     * The minimal output of a suppressed error - the message is kept, the error text and stack trace are omitted.
+     */
+    public DocumentedErrorOutput(String causedByKey, Object causedByMessage, String fingerprint) {
+        this.causedByKey = causedByKey;
+        this.causedByMessage = causedByMessage;
+        this.errorText = null;
+        this.stacktrace = null;
+        this.fingerprint = fingerprint;
+        this.occurrences = null;
+        this.suppressed = null;
+        this.sampledKeys = null;
+    }
+
+    public DocumentedErrorOutput(ErrorStormCompressor.Summary summary) {
+        this.causedByKey = null;
+        this.causedByMessage = null;
+        this.errorText = summary.errorText();
+        this.stacktrace = null;
+        this.fingerprint = summary.fingerprint();
+        this.occurrences = summary.occurrences();
+        this.suppressed = summary.suppressed();
+        this.sampledKeys = summary.sampledKeys();
     }
 }
@@ -0,0 +1,179 @@
+package com.giraone.jobs.schedule.exceptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compresses error storms. Errors are grouped by a fingerprint (exception types of the cause chain plus the top stack
+ * frames) in fixed time windows per process:
+ * <ul>
+ *     <li>The first error of a fingerprint in a window is documented in full (with stack trace).</li>
+ *     <li>Further errors of the fingerprint are documented compact (without stack trace).</li>
+ *     <li>If the error budget of the process for the window is used up, errors are documented minimal (message and
+ *     fingerprint only, without error text), counted and a sample of their message keys is kept.</li>
+ * </ul>
+ * At the end of a window, a summary with the counters and the sampled message keys is returned for each fingerprint,
+ * that occurred more than once.
+ */
+public class ErrorStormCompressor {
+
+    public enum Action {
+        FULL,
+        COMPACT,
+        SUPPRESS
+    }
+
+    /**
+     * The errors of one fingerprint in one window.
+     *
+     * @param occurrences all errors of the fingerprint
+     * @param suppressed the errors, that were not documented, because the budget was used up
+     * @param sampledKeys a random sample of the message keys of all errors
+     */
+    public record Summary(String processName, String fingerprint, String errorText, long windowStartMillis,
+                          long occurrences, long suppressed, List<String> sampledKeys) {
+    }
+
+    private final long windowMs;
+    private final int budgetPerWindow;
+    private final int maxSampledKeys;
+    private final Map<String, ProcessWindow> windows = new HashMap<>();
+    private final List<Summary> summaries = new ArrayList<>();
+
+    public ErrorStormCompressor(long windowMs, int budgetPerWindow, int maxSampledKeys) {
+        this.windowMs = windowMs;
+        this.budgetPerWindow = budgetPerWindow;
+        this.maxSampledKeys = maxSampledKeys;
+    }
+
+    /**
+     * Build the fingerprint of an exception without rendering the stack trace.
+     *
+     * @param topFrames the number of stack frames of the innermost cause, that are part of the fingerprint
+     */
+    public static String fingerprint(Throwable throwable, int topFrames) {
+
+        final StringBuilder sb = new StringBuilder();
+        Throwable cause = throwable;
+        Throwable innermost = throwable;
+        // the depth is limited, because a cause chain may contain a cycle
+        for (int depth = 0; cause != null && depth < 8; depth++) {
+            if (depth > 0) {
+                sb.append('/');
+            }
+            sb.append(cause.getClass().getSimpleName());
+            innermost = cause;
+            cause = cause.getCause() != cause ? cause.getCause() : null;
+        }
+        final StackTraceElement[] stackTrace = innermost.getStackTrace();
+        for (int i = 0; i < Math.min(topFrames, stackTrace.length); i++) {
+            final StackTraceElement frame = stackTrace[i];
+            final String className = frame.getClassName();
+            sb.append(i == 0 ? '@' : '|')
+                .append(className, className.lastIndexOf('.') + 1, className.length())
+                .append('.').append(frame.getMethodName())
+                .append(':').append(frame.getLineNumber());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Count an error and decide, how it is documented.
+     */
+    public synchronized Action record(String processName, String fingerprint, String errorText, String messageKey, long nowMillis) {
+
+        final ProcessWindow window = window(processName, nowMillis);
+        final FingerprintCount count = window.counts.computeIfAbsent(fingerprint, key -> new FingerprintCount(errorText));
+        count.occurrences++;
+        count.sample(messageKey);
+        final Action action;
+        if (window.documented >= budgetPerWindow) {
+            count.suppressed++;
+            action = Action.SUPPRESS;
+        } else {
+            window.documented++;
+            action = count.occurrences == 1L ? Action.FULL : Action.COMPACT;
+        }
+        return action;
+    }
+
+    /**
+     * Return and remove the summaries of all windows, that are over.
+     */
+    public synchronized List<Summary> drainSummaries(long nowMillis) {
+
+        windows.entrySet().removeIf(entry -> {
+            if (nowMillis - entry.getValue().startMillis < windowMs) {
+                return false;
+            }
+            close(entry.getKey(), entry.getValue());
+            return true;
+        });
+        final List<Summary> ret = new ArrayList<>(summaries);
+        summaries.clear();
+        return ret;
+    }
+
+    private ProcessWindow window(String processName, long nowMillis) {
+
+        final ProcessWindow window = windows.get(processName);
+        if (window != null && nowMillis - window.startMillis < windowMs) {
+            return window;
+        }
+        if (window != null) {
+            close(processName, window);
+        }
+        final ProcessWindow newWindow = new ProcessWindow(nowMillis);
+        windows.put(processName, newWindow);
+        return newWindow;
+    }
+
+    private void close(String processName, ProcessWindow window) {
+        window.counts.forEach((fingerprint, count) -> {
+            if (count.occurrences > 1L || count.suppressed > 0L) {
+                summaries.add(new Summary(processName, fingerprint, count.errorText, window.startMillis,
+                    count.occurrences, count.suppressed, List.copyOf(count.sampledKeys)));
+            }
+        });
+    }
+
+    private static final class ProcessWindow {
+
+        private final long startMillis;
+        private final Map<String, FingerprintCount> counts = new LinkedHashMap<>();
+        // number of errors, that were documented in the window
+        private int documented;
+
+        private ProcessWindow(long startMillis) {
+            this.startMillis = startMillis;
+        }
+    }
+
+    private final class FingerprintCount {
+
+        private final String errorText;
+        private final List<String> sampledKeys = new ArrayList<>();
+        private long occurrences;
+        private long suppressed;
+
+        private FingerprintCount(String errorText) {
+            this.errorText = errorText;
+        }
+
+        // reservoir sampling, so the keys are a uniform sample of the whole window
+        private void sample(String messageKey) {
+            if (sampledKeys.size() < maxSampledKeys) {
+                sampledKeys.add(messageKey);
+            } else {
+                final long index = ThreadLocalRandom.current().nextLong(occurrences);
+                if (index < maxSampledKeys) {
+                    sampledKeys.set((int) index, messageKey);
+                }
+            }
+        }
+    }
+}
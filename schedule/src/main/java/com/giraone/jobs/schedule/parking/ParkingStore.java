@@ -0,0 +1,293 @@
+package com.giraone.jobs.schedule.parking;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * A local store for the jobs of paused processes. The jobs are appended per process key to segment files
+ * ({base offset}.seg in a directory per process key), so the jobs of one process can be re-emitted without reading
+ * the jobs of other processes. The read position of each process is kept in an offset index (offset.idx), so a drain,
+ * that was interrupted, continues after a restart at the last indexed position. Segments, that are read completely,
+ * are deleted.
+ * <p>
+ * Each record is stored as [int key length][key][int value length][value]. A key length of -1 is a null key.
+ * The records are written to the OS page cache without fsync, so only a crash of the host can lose the last records.
+ * </p>
+ */
+public class ParkingStore implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "offset.idx";
+    // the read position is written to the index every n records of a drain
+    private static final int INDEX_INTERVAL = 1000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Map<String, ProcessLog> logs = new ConcurrentHashMap<>();
+
+    public ParkingStore(Path directory, long segmentBytes) throws IOException {
+
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> processDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path processDirectory : processDirectories) {
+                final String processKey = URLDecoder.decode(processDirectory.getFileName().toString(), StandardCharsets.UTF_8);
+                logs.put(processKey, new ProcessLog(processDirectory));
+            }
+        }
+    }
+
+    /**
+     * Append a job to the log of its process.
+     */
+    public void park(String processKey, String messageKey, byte[] value) {
+        log(processKey).append(messageKey, value);
+    }
+
+    /**
+     * @return true, if there are jobs of the process, that are not yet drained
+     */
+    public boolean hasParked(String processKey) {
+        final ProcessLog processLog = logs.get(processKey);
+        return processLog != null && processLog.hasParked();
+    }
+
+    /**
+     * @return the number of bytes of the jobs of the process, that are not yet drained
+     */
+    public long getParkedBytes(String processKey) {
+        final ProcessLog processLog = logs.get(processKey);
+        return processLog != null ? processLog.getParkedBytes() : 0L;
+    }
+
+    public Set<String> getProcessKeys() {
+        return logs.keySet();
+    }
+
+    /**
+     * Pass all jobs of the process, that were parked before the call, to the consumer in the order of parking.
+     * Jobs, that are parked while the drain is running, are kept for the next drain. The drain stops at the first job,
+     * that the consumer cannot process (returns false). This job is the first one of the next drain.
+     *
+     * @return the number of drained jobs
+     */
+    public int drain(String processKey, BiPredicate<String, byte[]> consumer) {
+        final ProcessLog processLog = logs.get(processKey);
+        return processLog != null ? processLog.drain(consumer) : 0;
+    }
+
+    @Override
+    public void close() {
+        logs.values().forEach(ProcessLog::close);
+    }
+
+    private ProcessLog log(String processKey) {
+        return logs.computeIfAbsent(processKey, key -> {
+            try {
+                return new ProcessLog(directory.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private final class ProcessLog {
+
+        private final Path directory;
+        // base offsets of the segments in ascending order
+        private final List<Long> segmentBases = new ArrayList<>();
+        private FileChannel appendChannel;
+        private long endOffset;
+        private volatile long readOffset;
+
+        private ProcessLog(Path directory) throws IOException {
+
+            this.directory = directory;
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path segment : segments) {
+                    final String fileName = segment.getFileName().toString();
+                    segmentBases.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+            segmentBases.sort(Long::compare);
+            final Path index = directory.resolve(INDEX_FILE);
+            if (Files.exists(index)) {
+                readOffset = ByteBuffer.wrap(Files.readAllBytes(index)).getLong();
+            } else if (!segmentBases.isEmpty()) {
+                readOffset = segmentBases.get(0);
+            }
+            if (!segmentBases.isEmpty()) {
+                final long lastBase = segmentBases.get(segmentBases.size() - 1);
+                endOffset = lastBase + Files.size(segment(lastBase));
+            } else {
+                endOffset = readOffset;
+            }
+        }
+
+        private synchronized void append(String messageKey, byte[] value) {
+
+            final byte[] key = messageKey != null ? messageKey.getBytes(StandardCharsets.UTF_8) : null;
+            final ByteBuffer buffer = ByteBuffer.allocate(8 + (key != null ? key.length : 0) + value.length);
+            buffer.putInt(key != null ? key.length : -1);
+            if (key != null) {
+                buffer.put(key);
+            }
+            buffer.putInt(value.length).put(value).flip();
+            try {
+                if (appendChannel == null || endOffset - segmentBases.get(segmentBases.size() - 1) >= segmentBytes) {
+                    roll();
+                }
+                while (buffer.hasRemaining()) {
+                    appendChannel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            endOffset += buffer.limit();
+        }
+
+        private boolean hasParked() {
+            return getParkedBytes() > 0L;
+        }
+
+        private synchronized long getParkedBytes() {
+            return endOffset - readOffset;
+        }
+
+        private int drain(BiPredicate<String, byte[]> consumer) {
+
+            final long end;
+            final List<Long> bases;
+            synchronized (this) {
+                end = endOffset;
+                bases = new ArrayList<>(segmentBases);
+            }
+            long position = readOffset;
+            int count = 0;
+            try {
+                boolean failed = false;
+                for (int i = 0; i < bases.size() && position < end && !failed; i++) {
+                    final long base = bases.get(i);
+                    final long segmentEnd = i + 1 < bases.size() ? bases.get(i + 1) : end;
+                    if (segmentEnd <= position) {
+                        continue;
+                    }
+                    try (FileChannel channel = FileChannel.open(segment(base), StandardOpenOption.READ);
+                         DataInputStream in = new DataInputStream(new BufferedInputStream(
+                             Channels.newInputStream(channel.position(position - base)), READ_BUFFER_SIZE))) {
+                        while (position < segmentEnd && !failed) {
+                            final int keyLength = in.readInt();
+                            final String messageKey = keyLength >= 0 ? new String(in.readNBytes(keyLength), StandardCharsets.UTF_8) : null;
+                            final int valueLength = in.readInt();
+                            final byte[] value = in.readNBytes(valueLength);
+                            if (value.length != valueLength) {
+                                throw new EOFException("Truncated record at offset " + position + " in " + directory);
+                            }
+                            // the index stays before a failed job, so it is retried by the next drain
+                            failed = !consumer.test(messageKey, value);
+                            if (!failed) {
+                                position += 8 + Math.max(keyLength, 0) + valueLength;
+                                if (++count % INDEX_INTERVAL == 0) {
+                                    writeIndex(position);
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writeIndex(position);
+                deleteDrainedSegments();
+            }
+            return count;
+        }
+
+        private void writeIndex(long position) {
+
+            readOffset = position;
+            final Path index = directory.resolve(INDEX_FILE);
+            final Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+            try {
+                Files.write(tmp, ByteBuffer.allocate(8).putLong(position).array());
+                Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // The offsets stay ascending, also when all segments are deleted.
+        private synchronized void deleteDrainedSegments() {
+
+            while (!segmentBases.isEmpty()) {
+                final boolean last = segmentBases.size() == 1;
+                final long segmentEnd = last ? endOffset : segmentBases.get(1);
+                if (segmentEnd > readOffset) {
+                    return;
+                }
+                try {
+                    if (last) {
+                        closeAppendChannel();
+                    }
+                    Files.deleteIfExists(segment(segmentBases.remove(0)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private void roll() throws IOException {
+
+            closeAppendChannel();
+            // after a restart, the last segment may be empty
+            if (segmentBases.isEmpty() || segmentBases.get(segmentBases.size() - 1) != endOffset) {
+                segmentBases.add(endOffset);
+            }
+            appendChannel = FileChannel.open(segment(endOffset),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        private synchronized void close() {
+            try {
+                closeAppendChannel();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void closeAppendChannel() throws IOException {
+            if (appendChannel != null) {
+                appendChannel.close();
+                appendChannel = null;
+            }
+        }
+
+        private Path segment(long base) {
+            return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.giraone.jobs.schedule.processor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking agent invocations on worker threads with a limit of concurrent invocations per agent key.
+ * The listener thread submits the agent work of a whole batch and joins the results in the order of the records.
+ * When the limit of an agent is reached, {@link #submit} blocks the listener thread, until an invocation is done.
+ * <p>
+ * Java 17 has no virtual threads, so the workers are taken from a cached pool, which creates threads only for the
+ * invocations in flight. With Java 21 the pool can be replaced by {@code Executors.newVirtualThreadPerTaskExecutor()}.
+ * </p>
+ */
+public class AgentExecutor {
+
+    private final int defaultMaxConcurrency;
+    private final Map<String, Integer> maxConcurrencyPerAgent;
+    private final Map<String, Semaphore> permitsPerAgent = new ConcurrentHashMap<>();
+    private final ExecutorService executorService;
+
+    public AgentExecutor(int defaultMaxConcurrency, Map<String, Integer> maxConcurrencyPerAgent) {
+
+        this.defaultMaxConcurrency = defaultMaxConcurrency;
+        this.maxConcurrencyPerAgent = Map.copyOf(maxConcurrencyPerAgent);
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "agent-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start the agent work, as soon as the agent has a free slot.
+     *
+     * @param agentKey the agent key, e.g. "A01"
+     * @param work the blocking agent invocation
+     * @param <T> the result type of the agent work
+     * @return the future result of the agent work
+     */
+    public <T> CompletableFuture<T> submit(String agentKey, Supplier<T> work) {
+
+        final Semaphore permits = permitsPerAgent.computeIfAbsent(agentKey,
+            key -> new Semaphore(maxConcurrencyPerAgent.getOrDefault(key, defaultMaxConcurrency)));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(work, executorService).whenComplete((result, throwable) -> permits.release());
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for the result of the agent work. An exception of the agent work is thrown unwrapped.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    int availablePermits(String agentKey) {
+        final Semaphore permits = permitsPerAgent.get(agentKey);
+        return permits != null ? permits.availablePermits() : maxConcurrencyPerAgent.getOrDefault(agentKey, defaultMaxConcurrency);
+    }
+}
@@ -13,6 +13,12 @@ import com.giraone.jobs.events.JobPausedEvent;
 import com.giraone.jobs.events.JobScheduledEvent;
 import com.giraone.jobs.schedule.config.ApplicationProperties;
 import com.giraone.jobs.schedule.exceptions.DocumentedErrorOutput;
+import com.giraone.jobs.schedule.exceptions.ErrorStormCompressor;
+import com.giraone.jobs.schedule.retry.RetryLadder;
+import com.giraone.jobs.schedule.service.AgentLoadService;
+import com.giraone.jobs.schedule.service.DelayedJobService;
+import com.giraone.jobs.schedule.service.ParkingService;
+import com.giraone.jobs.schedule.stopper.CircuitBreakerProcessingStopper;
 import com.giraone.jobs.schedule.stopper.DefaultProcessingStopperImpl;
 import com.giraone.jobs.schedule.stopper.ProcessingStopper;
 import com.giraone.jobs.schedule.stopper.SwitchOnOff;
@@ -20,25 +26,37 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
-import org.springframework.cloud.stream.binder.Binding;
-import org.springframework.cloud.stream.binding.BindingsLifecycleController;
-import org.springframework.cloud.stream.endpoint.BindingsEndpoint;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.KafkaNull;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * The central class where all processing logic starts. This class should not contain any
@@ -61,16 +79,23 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
     private static final String METRICS_FAILURE = ".failure";
 
     public static final String PROCESS_schedule = "processSchedule";
+    // schedules the delayed jobs, when they are due
+    public static final String PROCESS_schedule_delayed = PROCESS_schedule + "Delayed";
     public static final String PROCESS_resume = "processResume";
     public static final String PROCESS_resume_B01 = PROCESS_resume + "B01";
     public static final String PROCESS_resume_B02 = PROCESS_resume + "B02";
+    // re-emits the parked jobs of resumed processes
+    public static final String PROCESS_resume_parked = PROCESS_resume + "Parked";
     public static final String PROCESS_agent = "processAgent";
     public static final String PROCESS_agent_A01 = PROCESS_agent + "A01";
     public static final String PROCESS_agent_A02 = PROCESS_agent + "A02";
     public static final String PROCESS_agent_A03 = PROCESS_agent + "A03";
+    // passes failed jobs from the retry topics back to their agents - one processor per retry topic
+    public static final String PROCESS_retry = "processRetry";
     public static final String PROCESS_notify = "processNotify";
 
-    public static final Map<String, ProcessingStopper> STOPPER = Map.of(
+    // processors of agents and buckets, that are created at runtime, are added by registerProcessor
+    public static final Map<String, ProcessingStopper> STOPPER = new ConcurrentHashMap<>(Map.of(
         PROCESS_schedule, new DefaultProcessingStopperImpl(),
         PROCESS_resume_B01, new DefaultProcessingStopperImpl(),
         PROCESS_resume_B02, new DefaultProcessingStopperImpl(),
@@ -78,45 +103,65 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
         PROCESS_agent_A02, new DefaultProcessingStopperImpl(),
         PROCESS_agent_A03, new DefaultProcessingStopperImpl(),
         PROCESS_notify, new DefaultProcessingStopperImpl()
-    );
+    ));
 
     private final ApplicationProperties applicationProperties;
     private final MeterRegistry meterRegistry;
     private final SwitchOnOff switchOnOff;
-    private final BindingsEndpoint bindingsEndpoint;
     private final StreamBridge streamBridge;
     private final ProcessorSchedule processorSchedule;
     private final ProcessorResume processorResume;
     private final ProcessorAgent processorAgent;
     private final ProcessorNotify processorNotify;
+    private final ParkingService parkingService;
+    private final DelayedJobService delayedJobService;
+    private final AgentLoadService agentLoadService;
+    private final RetryLadder retryLadder;
 
-    private final Map<String, Counter> processSuccessCounter = new HashMap<>();
-    private final Map<String, Counter> processFailureCounter = new HashMap<>();
-    private final Map<String, Counter> topicMessageCounter = new HashMap<>();
+    private final Map<String, Counter> processSuccessCounter = new ConcurrentHashMap<>();
+    private final Map<String, Counter> processFailureCounter = new ConcurrentHashMap<>();
+    private final Map<String, Counter> topicMessageCounter = new ConcurrentHashMap<>();
+    // processors, that are called directly and not by a consumer binding - they have no stopper
+    private final Set<String> processorsWithoutBinding = ConcurrentHashMap.newKeySet();
+    // parallel processing of batches per processor name - empty, if the records of a batch are processed sequentially
+    private final Map<String, KeyOrderedExecutor> keyOrderedExecutors = new ConcurrentHashMap<>();
+    // null, if the agent work is performed on the listener thread
+    private AgentExecutor agentExecutor;
+    // null, if each error is sent with its stack trace
+    private ErrorStormCompressor errorStormCompressor;
 
     public EventProcessor(ApplicationProperties applicationProperties,
                           MeterRegistry meterRegistry,
                           SwitchOnOff switchOnOff,
-                          BindingsEndpoint bindingsEndpoint,
                           StreamBridge streamBridge,
                           ProcessorSchedule processorSchedule,
                           ProcessorResume processorResume,
                           ProcessorAgent processorAgent,
-                          ProcessorNotify processorNotify
+                          ProcessorNotify processorNotify,
+                          ParkingService parkingService,
+                          DelayedJobService delayedJobService,
+                          AgentLoadService agentLoadService,
+                          RetryLadder retryLadder
     ) {
         this.applicationProperties = applicationProperties;
         this.meterRegistry = meterRegistry;
         this.switchOnOff = switchOnOff;
-        this.bindingsEndpoint = bindingsEndpoint;
         this.streamBridge = streamBridge;
         this.processorSchedule = processorSchedule;
         this.processorResume = processorResume;
         this.processorAgent = processorAgent;
         this.processorNotify = processorNotify;
+        this.parkingService = parkingService;
+        this.delayedJobService = delayedJobService;
+        this.agentLoadService = agentLoadService;
+        this.retryLadder = retryLadder;
     }
 
     @Override
     public void onApplicationEvent(ApplicationStartedEvent event) {
+        if (applicationProperties.getStreams().isEnabled()) {
+            return;
+        }
         this.switchOnOff.changeStateToPausedForProcessResume("B01", true);
         this.switchOnOff.changeStateToPausedForProcessResume("B02", true);
     }
@@ -124,6 +169,10 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
     @PostConstruct
     private void init() {
 
+        if (applicationProperties.getCircuitBreaker().isEnabled()) {
+            STOPPER.replaceAll((processorName, processingStopper) -> newProcessingStopper());
+            LOGGER.info("Processors are stopped and started by circuit breakers: {}", applicationProperties.getCircuitBreaker());
+        }
         final String[] processorNames = applicationProperties.getProcessorNames().split(",");
         for (String processorName: processorNames) {
             initializeSuccessCounterForProcessor(processorName);
@@ -135,23 +184,166 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
                 initializeCounterForTopic(topic);
             }
         }
+        if (parkingService.isEnabled()) {
+            registerProcessorWithoutBinding(PROCESS_resume_parked);
+        }
+        if (delayedJobService.isEnabled()) {
+            registerProcessorWithoutBinding(PROCESS_schedule_delayed, delayedJobService.getTopic());
+        }
+        if (retryLadder.isEnabled()) {
+            for (int level = 0; level < retryLadder.size(); level++) {
+                initializeCounterForTopic(retryLadder.getTopic(level));
+            }
+            initializeCounterForTopic(retryLadder.getTopicDeadLetter());
+        }
+        if (applicationProperties.isTransactional()) {
+            LOGGER.info("Offsets and sends are committed in transactions of up to {} records.",
+                applicationProperties.getTransactionBatchSize());
+        }
+        if (isParallel()) {
+            for (String processorName: processorNames) {
+                keyOrderedExecutors.put(processorName, new KeyOrderedExecutor(applicationProperties.getParallelism(), processorName));
+            }
+            LOGGER.info("Batches are processed with {} workers per processor.", applicationProperties.getParallelism());
+        }
+        final ApplicationProperties.ErrorCompression errorCompression = applicationProperties.getErrorCompression();
+        if (errorCompression.isEnabled()) {
+            errorStormCompressor = new ErrorStormCompressor(errorCompression.getWindowMs(),
+                errorCompression.getBudgetPerWindow(), errorCompression.getSampledKeys());
+        }
+        final ApplicationProperties.AgentExecution agentExecution = applicationProperties.getAgentExecution();
+        if (applicationProperties.isBatchMode() && agentExecution.isEnabled()) {
+            agentExecutor = new AgentExecutor(agentExecution.getMaxConcurrency(), agentExecution.getMaxConcurrencyPerAgent());
+            LOGGER.info("Agent work is performed on worker threads: {}", agentExecution);
+        }
+    }
+
+    /**
+     * Add the stopper and the metrics of a processor, that is created at runtime for a new agent or bucket.
+     *
+     * @param processorName the processor name, e.g. processAgentA04
+     * @param outboundTopics the topics, to which the processor sends its events
+     */
+    public void registerProcessor(String processorName, String... outboundTopics) {
+
+        STOPPER.computeIfAbsent(processorName, name -> newProcessingStopper());
+        registerMetrics(processorName, outboundTopics);
+        if (isParallel()) {
+            keyOrderedExecutors.computeIfAbsent(processorName,
+                name -> new KeyOrderedExecutor(applicationProperties.getParallelism(), name));
+        }
+    }
+
+    /**
+     * Add the metrics of a processor, that is called directly and not by a consumer binding, e.g. for parked or delayed jobs.
+     * Without a binding, the processor cannot be stopped, so it gets no stopper.
+     *
+     * @param processorName the processor name, e.g. processResumeParked or processScheduleDelayed
+     * @param outboundTopics the topics, to which the processor sends its events
+     */
+    public void registerProcessorWithoutBinding(String processorName, String... outboundTopics) {
+
+        processorsWithoutBinding.add(processorName);
+        registerMetrics(processorName, outboundTopics);
+    }
+
+    private void registerMetrics(String processorName, String... outboundTopics) {
+
+        if (!processSuccessCounter.containsKey(processorName)) {
+            initializeSuccessCounterForProcessor(processorName);
+            initializeFailureCounterForProcessor(processorName);
+        }
+        for (String topic: outboundTopics) {
+            if (!topicMessageCounter.containsKey(topic)) {
+                initializeCounterForTopic(topic);
+            }
+        }
+    }
+
+    private ProcessingStopper newProcessingStopper() {
+        return applicationProperties.getCircuitBreaker().isEnabled()
+            ? new CircuitBreakerProcessingStopper(applicationProperties.getCircuitBreaker())
+            : new DefaultProcessingStopperImpl();
+    }
+
+    // The sends of a transaction must be performed on the listener thread, that has started the transaction.
+    private boolean isParallel() {
+
+        if (!applicationProperties.isBatchMode() || applicationProperties.getParallelism() <= 1) {
+            return false;
+        }
+        if (applicationProperties.isTransactional()) {
+            LOGGER.warn("Parallelism {} is ignored in transactional mode!", applicationProperties.getParallelism());
+            return false;
+        }
+        return true;
+    }
+
+    @PreDestroy
+    private void destroy() {
+        keyOrderedExecutors.values().forEach(KeyOrderedExecutor::shutdown);
+        if (agentExecutor != null) {
+            agentExecutor.shutdown();
+        }
     }
 
     //- SCHEDULE -------------------------------------------------------------------------------------------------------
 
     @Bean
-    public Consumer<byte[]> processSchedule() {
-        return in ->
-            tryCatchForConsumer(
-                in,
-                (messageBytesIn) -> deserialize(messageBytesIn, JobAcceptedEvent.class),
-                (jobInput) -> performSchedule().accept(jobInput),
-                PROCESS_schedule
-            );
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
+    public Consumer<Message<byte[]>> processSchedule() {
+        return in -> processScheduleRecord(in, PROCESS_schedule);
+    }
+
+    @Bean(PROCESS_schedule)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processScheduleBatch() {
+        return in -> forEachInBatch(in, message -> processScheduleRecord(message, PROCESS_schedule), PROCESS_schedule);
+    }
+
+    // With delays, the notBefore and delay attributes of the job have to be read, so header routing is not used.
+    private boolean processScheduleRecord(Message<byte[]> message, String processName) {
+
+        if (isHeaderRouting(message) && !delayedJobService.isEnabled()) {
+            return tryCatchForRouting(message, (messageKey, processKey) -> {
+                final RoutingDecision routingDecision = processorSchedule.decide(messageKey, processKey);
+                final String topic = routingDecision.isPaused()
+                    ? applicationProperties.getTopics().getTopicJobPaused(routingDecision.pausedBucketKey())
+                    : applicationProperties.getTopics().getTopicJobScheduled(routingDecision.agentKey());
+                sendRawToTarget(topic, messageKey, message.getPayload(), RoutingHeaders.of(processKey, routingDecision, Instant.now()));
+            }, processName);
+        }
+        return tryCatchForConsumer(
+            message.getPayload(),
+            (messageBytesIn) -> deserialize(messageBytesIn, JobAcceptedEvent.class),
+            (jobInput) -> performSchedule(message.getPayload()).accept(jobInput),
+            processName
+        );
     }
 
-    private Consumer<JobAcceptedEvent> performSchedule() {
+    /**
+     * Schedule a job, that was held in the {@link DelayedJobService} until it is due, and remove it from the delay
+     * topic.
+     */
+    public boolean processDelayed(String messageKey, byte[] messageValue) {
+
+        final Message<byte[]> message = MessageBuilder.withPayload(messageValue)
+            .setHeader(KafkaHeaders.RECEIVED_KEY, messageKey)
+            .build();
+        final boolean success = processScheduleRecord(message, PROCESS_schedule_delayed);
+        send(delayedJobService.getTopic(), MessageBuilder.withPayload(KafkaNull.INSTANCE)
+            .setHeader(KafkaHeaders.KEY, messageKey)
+            .build());
+        return success;
+    }
+
+    private Consumer<JobAcceptedEvent> performSchedule(byte[] messageValue) {
         return jobAcceptedEvent -> {
+            if (delayedJobService.isDelayed(jobAcceptedEvent)) {
+                sendRawToTarget(delayedJobService.getTopic(), jobAcceptedEvent.getMessageKey(), messageValue, Map.of());
+                delayedJobService.delay(jobAcceptedEvent.getMessageKey(), jobAcceptedEvent.getDueTimestamp(), messageValue);
+                return;
+            }
             AbstractJobStatusChangedEvent event = processorSchedule.streamProcess(jobAcceptedEvent);
             sendToDynamicTarget(event, jobEvent -> {
                 if (event instanceof final JobScheduledEvent jobScheduledEvent) {
@@ -170,28 +362,63 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
     //- RESUME ---------------------------------------------------------------------------------------------------------
 
     @Bean
-    public Consumer<byte[]> processResumeB01() {
-        return in ->
-            tryCatchForConsumer(
-                in,
-                (messageBytesIn) -> deserialize(messageBytesIn, JobPausedEvent.class),
-                (jobInput) -> performResume(PROCESS_resume_B01).accept(jobInput),
-                PROCESS_resume_B01
-            );
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
+    public Consumer<Message<byte[]>> processResumeB01() {
+        return in -> processResumeRecord(in, PROCESS_resume_B01);
     }
 
     @Bean
-    public Consumer<byte[]> processResumeB02() {
-        return in ->
-            tryCatchForConsumer(
-                in,
-                (messageBytesIn) -> deserialize(messageBytesIn, JobPausedEvent.class),
-                (jobInput) -> performResume(PROCESS_resume_B02).accept(jobInput),
-                PROCESS_resume_B02
-            );
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
+    public Consumer<Message<byte[]>> processResumeB02() {
+        return in -> processResumeRecord(in, PROCESS_resume_B02);
+    }
+
+    @Bean(PROCESS_resume_B01)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processResumeB01Batch() {
+        return in -> forEachInBatch(in, message -> processResumeRecord(message, PROCESS_resume_B01), PROCESS_resume_B01);
+    }
+
+    @Bean(PROCESS_resume_B02)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processResumeB02Batch() {
+        return in -> forEachInBatch(in, message -> processResumeRecord(message, PROCESS_resume_B02), PROCESS_resume_B02);
+    }
+
+    private boolean processResumeRecord(Message<byte[]> message, String processName) {
+
+        if (isHeaderRouting(message)) {
+            return tryCatchForRouting(message, (messageKey, processKey) -> {
+                final Optional<RoutingDecision> routingDecision = processorResume.decide(messageKey, processKey);
+                if (routingDecision.isPresent()) {
+                    final String topic = applicationProperties.getTopics().getTopicJobScheduled(routingDecision.get().agentKey());
+                    sendRawToTarget(topic, messageKey, message.getPayload(), RoutingHeaders.of(processKey, routingDecision.get(), Instant.now()));
+                } else {
+                    parkOrDrop(processName, processKey, messageKey, message.getPayload());
+                }
+            }, processName);
+        }
+        return tryCatchForConsumer(
+            message.getPayload(),
+            (messageBytesIn) -> RoutingHeaders.applyTo(deserialize(messageBytesIn, JobPausedEvent.class), message.getHeaders()),
+            (jobInput) -> performResume(processName, message.getPayload()).accept(jobInput),
+            processName
+        );
+    }
+
+    /**
+     * Process a job, that was parked in the {@link ParkingService}, when its process was still paused.
+     */
+    public boolean processParked(String processKey, String messageKey, byte[] messageValue) {
+
+        final Message<byte[]> message = MessageBuilder.withPayload(messageValue)
+            .setHeader(KafkaHeaders.RECEIVED_KEY, messageKey)
+            .setHeader(RoutingHeaders.HEADER_processKey, processKey.getBytes(StandardCharsets.UTF_8))
+            .build();
+        return processResumeRecord(message, PROCESS_resume_parked);
     }
 
-    private Consumer<JobPausedEvent> performResume(String processName) {
+    private Consumer<JobPausedEvent> performResume(String processName, byte[] messageValue) {
         return jobPausedEvent -> {
             Optional<JobScheduledEvent> jobScheduledEventOptional = processorResume.streamProcess(jobPausedEvent);
             if (jobScheduledEventOptional.isPresent()) {
@@ -199,69 +426,268 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
                 final String binding = applicationProperties.getTopics().getTopicJobScheduled(jobScheduledEvent.getAgentKey());
                 sendToDynamicTarget(jobScheduledEvent, jobEvent -> binding);
             } else {
-                LOGGER.warn(">>> STILL-PAUSED '{}'", processName);
-                // TODO: Kein ACK
+                parkOrDrop(processName, jobPausedEvent.getProcessKey(), jobPausedEvent.getMessageKey(), messageValue);
             }
         };
     }
 
+    private void parkOrDrop(String processName, String processKey, String messageKey, byte[] messageValue) {
+
+        if (parkingService.isEnabled()) {
+            parkingService.park(processKey, messageKey, messageValue);
+        } else {
+            LOGGER.warn(">>> STILL-PAUSED '{}'", processName);
+            // TODO: Kein ACK
+        }
+    }
+
     //- AGENT ----------------------------------------------------------------------------------------------------------
 
     @Bean
-    public Consumer<byte[]> processAgentA01() {
-        return in ->
-            tryCatchForConsumer(
-                in,
-                (messageBytesIn) -> deserialize(messageBytesIn, JobScheduledEvent.class),
-                (jobInput) -> performAgent(PROCESS_agent_A01).accept(jobInput),
-                PROCESS_agent_A01
-            );
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
+    public Consumer<Message<byte[]>> processAgentA01() {
+        return in -> processAgentRecord(in, PROCESS_agent_A01);
     }
 
     @Bean
-    public Consumer<byte[]> processAgentA02() {
-        return in ->
-            tryCatchForConsumer(
-                in,
-                (messageBytesIn) -> deserialize(messageBytesIn, JobScheduledEvent.class),
-                (jobInput) -> performAgent(PROCESS_agent_A02).accept(jobInput),
-                PROCESS_agent_A02
-            );
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
+    public Consumer<Message<byte[]>> processAgentA02() {
+        return in -> processAgentRecord(in, PROCESS_agent_A02);
     }
 
     @Bean
-    public Consumer<byte[]> processAgentA03() {
-        return in ->
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
+    public Consumer<Message<byte[]>> processAgentA03() {
+        return in -> processAgentRecord(in, PROCESS_agent_A03);
+    }
+
+    @Bean(PROCESS_agent_A01)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processAgentA01Batch() {
+        return in -> processAgentBatch(in, PROCESS_agent_A01);
+    }
+
+    @Bean(PROCESS_agent_A02)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processAgentA02Batch() {
+        return in -> processAgentBatch(in, PROCESS_agent_A02);
+    }
+
+    @Bean(PROCESS_agent_A03)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processAgentA03Batch() {
+        return in -> processAgentBatch(in, PROCESS_agent_A03);
+    }
+
+    private boolean processAgentRecord(Message<byte[]> message, String processName) {
+        return tryCatchForConsumer(
+            message.getPayload(),
+            (messageBytesIn) -> deserializeJobScheduled(message),
+            (jobInput) -> performAgent(processName).accept(jobInput),
+            processName
+        );
+    }
+
+    /**
+     * The agent needs the full job, so the value is parsed here. With header routing, the value is still the
+     * accepted job, and the routing fields are taken from the headers.
+     */
+    private JobScheduledEvent deserializeJobScheduled(Message<byte[]> message) {
+        return RoutingHeaders.applyTo(deserialize(message.getPayload(), JobScheduledEvent.class), message.getHeaders());
+    }
+
+    /**
+     * Process a batch of an agent. If an {@link AgentExecutor} is configured, the agent work of all records is started
+     * first and the results are sent in the order of the records afterwards. Otherwise, the batch is processed by
+     * {@link #forEachInBatch}.
+     */
+    private void processAgentBatch(Message<List<byte[]>> messages, String processName) {
+
+        if (agentExecutor == null) {
+            forEachInBatch(messages, message -> processAgentRecord(message, processName), processName);
+            return;
+        }
+        final String agentKey = processName.substring(PROCESS_agent.length());
+        final List<Message<byte[]>> records = toRecords(messages);
+        final List<PendingAgentWork> pendingAgentWorkList = new ArrayList<>(records.size());
+        for (Message<byte[]> message : records) {
+            final JobScheduledEvent jobScheduledEvent;
+            try {
+                jobScheduledEvent = deserializeJobScheduled(message);
+            } catch (Exception e) {
+                handleProcessingException(processName, "error", message.getPayload(), e);
+                continue;
+            }
+            pendingAgentWorkList.add(new PendingAgentWork(message.getPayload(), jobScheduledEvent,
+                agentExecutor.submit(agentKey, () -> performAgentWork(jobScheduledEvent))));
+        }
+        for (PendingAgentWork pendingAgentWork : pendingAgentWorkList) {
             tryCatchForConsumer(
-                in,
-                (messageBytesIn) -> deserialize(messageBytesIn, JobScheduledEvent.class),
-                (jobInput) -> performAgent(PROCESS_agent_A03).accept(jobInput),
-                PROCESS_agent_A03
+                pendingAgentWork.messageValue(),
+                (messageBytesIn) -> pendingAgentWork.jobScheduledEvent(),
+                (jobInput) -> sendAgentResult(jobInput, AgentExecutor.await(pendingAgentWork.result())),
+                processName
             );
+        }
     }
 
     private Consumer<JobScheduledEvent> performAgent(String processName) {
-        return jobScheduledEvent -> {
-            AbstractAssignedJobEvent event = processorAgent.streamProcess(jobScheduledEvent);
-            sendToDynamicTarget(event, jobEvent -> {
-                if (event instanceof JobCompletedEvent) {
-                    LOGGER.info(">>> COMPLETED     {} of {} in agent '{}'", event.getMessageKey(), event.getProcessKey(), event.getAgentKey());
-                    // return PROCESS_agent + event.getAgentKey() + "-out-0";
-                    return applicationProperties.getTopics().getTopicJobCompleted();
-                } else if (event instanceof JobFailedEvent) {
-                    LOGGER.warn(">>> FAILED        {} of {} in agent '{}'", event.getMessageKey(), event.getProcessKey(), event.getAgentKey());
-                    // return PROCESS_agent + event.getAgentKey() + "-out-failed";
-                    return applicationProperties.getTopics().getTopicJobFailed(event.getAgentKey());
-                } else {
-                    throw new IllegalArgumentException("Event returned by processorAgent has invalid type " + event.getClass());
-                }
-            });
-        };
+        return jobScheduledEvent -> sendAgentResult(jobScheduledEvent, performAgentWork(jobScheduledEvent));
+    }
+
+    // The duration of the agent work is a load signal of the agent.
+    private AbstractAssignedJobEvent performAgentWork(JobScheduledEvent jobScheduledEvent) {
+
+        final long start = System.currentTimeMillis();
+        try {
+            return processorAgent.streamProcess(jobScheduledEvent);
+        } finally {
+            agentLoadService.completed(jobScheduledEvent.getAgentKey(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private void sendAgentResult(JobScheduledEvent jobScheduledEvent, AbstractAssignedJobEvent event) {
+
+        if (event instanceof JobFailedEvent && retryLadder.isEnabled()) {
+            final int level = retryLadder.levelOf(jobScheduledEvent.getAttempt());
+            if (level >= 0) {
+                LOGGER.warn(">>> RETRYING      {} of {} in agent '{}' after {}", event.getMessageKey(), event.getProcessKey(),
+                    event.getAgentKey(), retryLadder.getDelay(level));
+                jobScheduledEvent.setAttempt(jobScheduledEvent.getAttempt() + 1);
+                jobScheduledEvent.setEventTimestamp(Instant.now());
+                sendToDynamicTarget(jobScheduledEvent, jobEvent -> retryLadder.getTopic(level));
+                return;
+            }
+            LOGGER.warn(">>> DEAD-LETTER   {} of {} in agent '{}' after {} attempts", event.getMessageKey(), event.getProcessKey(),
+                event.getAgentKey(), jobScheduledEvent.getAttempt() + 1);
+            sendToDynamicTarget(event, jobEvent -> retryLadder.getTopicDeadLetter());
+        }
+        sendToDynamicTarget(event, jobEvent -> {
+            if (event instanceof JobCompletedEvent) {
+                LOGGER.info(">>> COMPLETED     {} of {} in agent '{}'", event.getMessageKey(), event.getProcessKey(), event.getAgentKey());
+                // return PROCESS_agent + event.getAgentKey() + "-out-0";
+                return applicationProperties.getTopics().getTopicJobCompleted();
+            } else if (event instanceof JobFailedEvent) {
+                LOGGER.warn(">>> FAILED        {} of {} in agent '{}'", event.getMessageKey(), event.getProcessKey(), event.getAgentKey());
+                // return PROCESS_agent + event.getAgentKey() + "-out-failed";
+                return applicationProperties.getTopics().getTopicJobFailed(event.getAgentKey());
+            } else {
+                throw new IllegalArgumentException("Event returned by processorAgent has invalid type " + event.getClass());
+            }
+        });
+    }
+
+    private record PendingAgentWork(byte[] messageValue, JobScheduledEvent jobScheduledEvent,
+                                    CompletableFuture<AbstractAssignedJobEvent> result) {
+    }
+
+    //- DYNAMIC ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Process a message of a consumer binding, that was created at runtime for an agent (processAgentXxx) or a
+     * bucket (processResumeXxx). The payload is a list of records in batch mode.
+     */
+    @SuppressWarnings("unchecked")
+    public void processDynamicBinding(String processName, Message<?> message) {
+
+        final boolean batch = message.getPayload() instanceof List;
+        if (processName.startsWith(PROCESS_agent)) {
+            if (batch) {
+                processAgentBatch((Message<List<byte[]>>) message, processName);
+            } else {
+                processAgentRecord((Message<byte[]>) message, processName);
+            }
+        } else if (processName.startsWith(PROCESS_retry)) {
+            if (batch) {
+                processRetryBatch((Message<List<byte[]>>) message, processName);
+            } else {
+                processRetryRecord((Message<byte[]>) message, processName);
+            }
+        } else if (processName.startsWith(PROCESS_resume)) {
+            if (batch) {
+                forEachInBatch((Message<List<byte[]>>) message, record -> processResumeRecord(record, processName), processName);
+            } else {
+                processResumeRecord((Message<byte[]>) message, processName);
+            }
+        } else {
+            throw new IllegalArgumentException("Processor " + processName + " cannot be bound at runtime!");
+        }
+    }
+
+    //- RETRY ----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Pass a failed job of a retry topic back to its agent, when it is due. A job, that is not yet due, is not awaited
+     * on the listener thread. It is negatively acknowledged (the binding has ack-mode MANUAL), so the container pauses
+     * only the consumer of this retry topic until the job is due and redelivers it then. The agent consumers are never
+     * blocked.
+     */
+    private void processRetryRecord(Message<byte[]> message, String processName) {
+
+        final Acknowledgment acknowledgment = requireAcknowledgment(message, processName);
+        final long waitMs = retryWaitMs(message, processName);
+        if (waitMs > 0L) {
+            acknowledgment.nack(Duration.ofMillis(waitMs));
+            return;
+        }
+        performRetry(message, processName);
+        acknowledgment.acknowledge();
+    }
+
+    private void processRetryBatch(Message<List<byte[]>> messages, String processName) {
+
+        final Acknowledgment acknowledgment = requireAcknowledgment(messages, processName);
+        final List<Message<byte[]>> records = toRecords(messages);
+        for (int i = 0; i < records.size(); i++) {
+            final long waitMs = retryWaitMs(records.get(i), processName);
+            if (waitMs > 0L) {
+                // the records before are committed, this one and the rest are redelivered
+                acknowledgment.nack(i, Duration.ofMillis(waitMs));
+                return;
+            }
+            performRetry(records.get(i), processName);
+        }
+        acknowledgment.acknowledge();
+    }
+
+    // Without an acknowledgment, a job, that is not yet due, cannot be redelivered later - it must not be retried now.
+    private static Acknowledgment requireAcknowledgment(Message<?> message, String processName) {
+
+        final Acknowledgment acknowledgment = message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+        if (acknowledgment == null) {
+            throw new IllegalStateException("No acknowledgment in " + processName + " - the binding needs ack-mode MANUAL!");
+        }
+        return acknowledgment;
+    }
+
+    private void performRetry(Message<byte[]> message, String processName) {
+        tryCatchForConsumer(
+            message.getPayload(),
+            (messageBytesIn) -> deserializeJobScheduled(message),
+            (jobInput) -> {
+                LOGGER.info(">>> RE-TRYING     {} of {} in agent '{}' attempt {}", jobInput.getMessageKey(),
+                    jobInput.getProcessKey(), jobInput.getAgentKey(), jobInput.getAttempt());
+                sendToDynamicTarget(jobInput, jobEvent -> applicationProperties.getTopics().getTopicJobScheduled(jobInput.getAgentKey()));
+            },
+            processName
+        );
+    }
+
+    // The delay of a retry topic starts with the timestamp of the record.
+    private long retryWaitMs(Message<byte[]> message, String processName) {
+
+        final Object timestamp = message.getHeaders().get(KafkaHeaders.RECEIVED_TIMESTAMP);
+        if (!(timestamp instanceof Long)) {
+            return 0L;
+        }
+        final long dueAtMillis = (Long) timestamp + retryLadder.getDelay(retryLadder.levelOfProcessor(processName)).toMillis();
+        return dueAtMillis - System.currentTimeMillis();
     }
 
     //- NOTIFY ---------------------------------------------------------------------------------------------------------
 
     @Bean
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "false", matchIfMissing = true)
     public Function<byte[], Message<byte[]>> processNotify() {
         return in ->
             tryCatchForProcessor(
@@ -272,6 +698,27 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
             );
     }
 
+    /**
+     * In batch mode, the notified events are not returned as the output of a function, but sent with the
+     * {@link StreamBridge} to the topic of the "processNotify-out-0" binding.
+     */
+    @Bean(PROCESS_notify)
+    @ConditionalOnProperty(prefix = "application", name = "batch-mode", havingValue = "true")
+    public Consumer<Message<List<byte[]>>> processNotifyBatch() {
+        return in ->
+            forEachInBatch(
+                in,
+                (message) -> tryCatchForConsumer(
+                    message.getPayload(),
+                    (messageBytesIn) -> deserialize(messageBytesIn, JobCompletedEvent.class),
+                    (jobInput) -> sendToDynamicTarget(performNotify().apply(jobInput),
+                        jobEvent -> applicationProperties.getTopics().getTopicJobNotified()),
+                    PROCESS_notify
+                ),
+                PROCESS_notify
+            );
+    }
+
     private Function<JobCompletedEvent, JobNotifiedEvent> performNotify() {
         return processorNotify::streamProcess;
     }
@@ -327,12 +774,110 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
             return handleProcessingException(processName, "error", messageValue, e);
         }
         final String messageKey = jobInput.getMessageKey();
+        final long start = System.currentTimeMillis();
         try {
             consumer.accept(jobInput);
         } catch (Exception e) {
             return handleProcessingException(processName, messageKey, messageValue, e);
         }
-        return handleProcessingSuccess(processName, messageKey);
+        return handleProcessingSuccess(processName, messageKey, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Header routing: only the process key is read (from the header or by a partial scan of the value) and the router
+     * forwards the original value bytes. Used, if header routing is enabled and the record has a message key.
+     *
+     * @param message the message input with the value as a byte array and the message key in the header
+     * @param router the routing with the message key and the process key as the input
+     * @param processName the processor name for finding the corresponding error topic
+     * @return true, if the record was routed successfully
+     */
+    protected boolean tryCatchForRouting(
+        Message<byte[]> message,
+        BiConsumer<String, String> router,
+        String processName) {
+
+        final byte[] messageValue = message.getPayload();
+        final String messageKey = message.getHeaders().get(KafkaHeaders.RECEIVED_KEY).toString();
+        final long start = System.currentTimeMillis();
+        try {
+            final String processKey = RoutingHeaders.readProcessKey(message.getHeaders(), messageValue);
+            router.accept(messageKey, processKey);
+        } catch (Exception e) {
+            return handleProcessingException(processName, messageKey, messageValue, e);
+        }
+        return handleProcessingSuccess(processName, messageKey, System.currentTimeMillis() - start);
+    }
+
+    private boolean isHeaderRouting(Message<byte[]> message) {
+        return applicationProperties.isHeaderRouting() && message.getHeaders().get(KafkaHeaders.RECEIVED_KEY) != null;
+    }
+
+    /**
+     * Perform the record processor for each record of a batch (batch mode). A failing record is routed to the
+     * error binding of the process, so it does not fail the other records of the batch. The sends of the records are
+     * not awaited one by one, so the producer can batch them. The offsets of the whole batch are committed by the
+     * listener container after this method returns.
+     * <p>
+     * If a parallelism greater than one is configured, the records are processed by a {@link KeyOrderedExecutor}, so
+     * only records with the same message key (job id) are processed in order.
+     * When the stopper stops the binding, this takes effect after the current batch.
+     * </p>
+     *
+     * @param messages the message inputs of one poll as byte arrays with the message keys in the header
+     * @param recordProcessor the processing of one record, e.g. by {@link #tryCatchForConsumer} - false on failure
+     * @param processName the processor name for logging
+     */
+    protected void forEachInBatch(
+        Message<List<byte[]>> messages,
+        Predicate<Message<byte[]>> recordProcessor,
+        String processName) {
+
+        final List<Message<byte[]>> records = toRecords(messages);
+        LOGGER.debug("<<< BATCH of {} records in process {}", records.size(), processName);
+        final AtomicInteger failures = new AtomicInteger();
+        final Consumer<Message<byte[]>> recordConsumer = message -> {
+            if (!recordProcessor.test(message)) {
+                failures.incrementAndGet();
+            }
+        };
+        final KeyOrderedExecutor keyOrderedExecutor = keyOrderedExecutors.get(processName);
+        if (keyOrderedExecutor != null) {
+            final List<Object> keys = records.stream().map(message -> message.getHeaders().get(KafkaHeaders.RECEIVED_KEY)).toList();
+            keyOrderedExecutor.processAll(keys, records, recordConsumer);
+        } else {
+            records.forEach(recordConsumer);
+        }
+        if (failures.get() > 0) {
+            LOGGER.warn("+++ {} of {} records of batch failed in process {}.", failures.get(), records.size(), processName);
+        }
+    }
+
+    /**
+     * Split a batch into one message per record with the message key and the (converted) Kafka headers of the record.
+     */
+    protected List<Message<byte[]>> toRecords(Message<List<byte[]>> messages) {
+
+        final List<byte[]> messageValues = messages.getPayload();
+        final Object keys = messages.getHeaders().get(KafkaHeaders.RECEIVED_KEY);
+        final Object timestamps = messages.getHeaders().get(KafkaHeaders.RECEIVED_TIMESTAMP);
+        final Object convertedHeaders = messages.getHeaders().get(KafkaHeaders.BATCH_CONVERTED_HEADERS);
+        final List<Message<byte[]>> records = new ArrayList<>(messageValues.size());
+        for (int i = 0; i < messageValues.size(); i++) {
+            final MessageBuilder<byte[]> messageBuilder = MessageBuilder.withPayload(messageValues.get(i));
+            if (convertedHeaders instanceof List<?> headersList && i < headersList.size()
+                && headersList.get(i) instanceof Map<?, ?> recordHeaders) {
+                recordHeaders.forEach((name, value) -> messageBuilder.setHeader(name.toString(), value));
+            }
+            if (keys instanceof List<?> keyList && i < keyList.size() && keyList.get(i) != null) {
+                messageBuilder.setHeader(KafkaHeaders.RECEIVED_KEY, keyList.get(i));
+            }
+            if (timestamps instanceof List<?> timestampList && i < timestampList.size()) {
+                messageBuilder.setHeader(KafkaHeaders.RECEIVED_TIMESTAMP, timestampList.get(i));
+            }
+            records.add(messageBuilder.build());
+        }
+        return records;
     }
 
     protected <T> T deserialize(byte[] messageInBody, Class<T> cls) {
@@ -372,7 +917,21 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
         final Message<AbstractJobEvent> message = MessageBuilder.withPayload(jobEvent)
             .setHeader(KafkaHeaders.KEY, jobEvent.getMessageKey())
             .build();
+        return send(bindingName, message);
+    }
 
+    /**
+     * Forward the original value bytes of a job with new routing headers (header routing).
+     */
+    protected boolean sendRawToTarget(String bindingName, String messageKey, byte[] messageValue, Map<String, Object> headers) {
+        final Message<byte[]> message = MessageBuilder.withPayload(messageValue)
+            .copyHeaders(headers)
+            .setHeader(KafkaHeaders.KEY, messageKey)
+            .build();
+        return send(bindingName, message);
+    }
+
+    private boolean send(String bindingName, Message<?> message) {
         boolean ok = streamBridge.send(bindingName, message);
         if (!ok) {
             LOGGER.error("Cannot send event to out binding \"{}\"!", bindingName);
@@ -387,13 +946,17 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
     //------------------------------------------------------------------------------------------------------------------
     //------------------------------------------------------------------------------------------------------------------
 
-    protected boolean handleProcessingSuccess(String processName, String messageKey) {
+    protected boolean handleProcessingSuccess(String processName, String messageKey, long durationMillis) {
 
         LOGGER.debug("+++ SUCCESS in process {} for message={}.", processName, messageKey);
-        if (!applicationProperties.isDisableStopper()) {
+        if (!applicationProperties.isDisableStopper() && !processorsWithoutBinding.contains(processName)) {
             final ProcessingStopper processingStopper = EventProcessor.STOPPER.get(processName);
             if (processingStopper != null) {
-                processingStopper.addSuccessAndCheckResume();
+                boolean stop = processingStopper.addSuccessAndCheckStop(durationMillis);
+                if (stop) {
+                    LOGGER.error("+++ STOPPING {}-in-0 after slow calls - - - STOPPING - - -", processName);
+                    switchOnOff.stop(processName);
+                }
             } else {
                 LOGGER.error("No process with name \"{}\"!", processName);
             }
@@ -404,30 +967,38 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
 
     protected boolean handleProcessingException(String processName, String messageKey, Object messageValue, Exception exception) {
 
-        final DocumentedErrorOutput documentedErrorOutput = new DocumentedErrorOutput(messageKey, messageValue, exception);
-        final Message<DocumentedErrorOutput> documentedErrorOutputMessage = MessageBuilder
-            .withPayload(documentedErrorOutput)
-            .setHeader(KafkaHeaders.KEY, messageKey).build();
         final String bindingNameError = processName + "-out-error";
-        LOGGER.error("+++ EXCEPTION in process {} for message={}! Sending problem to out binding \"{}\".",
-            processName, messageValue, bindingNameError, exception);
-        boolean ok = streamBridge.send(bindingNameError, documentedErrorOutputMessage);
-        if (!ok) {
-            increaseProcessErrorCounter(processName);
-            LOGGER.error("Cannot send problem to out binding \"{}\"!", bindingNameError);
+        if (errorStormCompressor == null) {
+            LOGGER.error("+++ EXCEPTION in process {} for message={}! Sending problem to out binding \"{}\".",
+                processName, messageValue, bindingNameError, exception);
+            sendErrorOutput(processName, messageKey, new DocumentedErrorOutput(messageKey, messageValue, exception));
+        } else {
+            final String fingerprint = ErrorStormCompressor.fingerprint(exception, applicationProperties.getErrorCompression().getTopFrames());
+            switch (errorStormCompressor.record(processName, fingerprint, exception.getMessage(), messageKey, System.currentTimeMillis())) {
+                case FULL -> {
+                    LOGGER.error("+++ EXCEPTION in process {} for message={}! Sending problem to out binding \"{}\".",
+                        processName, messageValue, bindingNameError, exception);
+                    sendErrorOutput(processName, messageKey, new DocumentedErrorOutput(messageKey, messageValue, exception, fingerprint, true));
+                }
+                case COMPACT -> {
+                    LOGGER.warn("+++ EXCEPTION in process {} for key {}: {}", processName, messageKey, fingerprint);
+                    sendErrorOutput(processName, messageKey, new DocumentedErrorOutput(messageKey, messageValue, exception, fingerprint, false));
+                }
+                case SUPPRESS -> {
+                    // the error output is the only copy of the failed job, so the job is sent also above the budget
+                    LOGGER.debug("+++ EXCEPTION in process {} for key {} suppressed: {}", processName, messageKey, fingerprint);
+                    sendErrorOutput(processName, messageKey, new DocumentedErrorOutput(messageKey, messageValue, fingerprint));
+                }
+            }
         }
 
-        if (!applicationProperties.isDisableStopper()) {
+        if (!applicationProperties.isDisableStopper() && !processorsWithoutBinding.contains(processName)) {
             final ProcessingStopper processingStopper = EventProcessor.STOPPER.get(processName);
             if (processingStopper != null) {
                 boolean stop = processingStopper.addErrorAndCheckStop();
                 if (stop) {
-                    final String bindingNameConsumer = processName + "-in-0";
-                    LOGGER.error("+++ STOPPING {} - - - STOPPING - - - STOPPING - - -", bindingNameConsumer);
-                    Binding<?> state = bindingsEndpoint.queryState(bindingNameConsumer);
-                    if (state.isRunning()) {
-                        bindingsEndpoint.changeState(bindingNameConsumer, BindingsLifecycleController.State.STOPPED);
-                    }
+                    LOGGER.error("+++ STOPPING {}-in-0 - - - STOPPING - - - STOPPING - - -", processName);
+                    switchOnOff.stop(processName);
                 }
             } else {
                 LOGGER.error("+++ No process with name \"{}\"!", processName);
@@ -437,6 +1008,64 @@ public class EventProcessor implements ApplicationListener<ApplicationStartedEve
         return false;
     }
 
+    /**
+     * Start the processors again, whose stopper wants to probe, whether the downstream works again. The processor of
+     * a bucket, that is still paused, is started paused, so it does not consume the jobs of the paused processes.
+     */
+    @Scheduled(fixedRateString = "${application.circuit-breaker.check-interval-ms:1000}")
+    public void restartStoppedProcessors() {
+
+        if (applicationProperties.isDisableStopper()) {
+            return;
+        }
+        STOPPER.forEach((processName, processingStopper) -> {
+            if (!processingStopper.checkRestart()) {
+                return;
+            }
+            try {
+                if (processName.startsWith(PROCESS_resume) && processorResume.isBucketPaused(processName.substring(PROCESS_resume.length()))) {
+                    LOGGER.info("+++ STARTING {}-in-0 paused, because its bucket is still paused", processName);
+                    switchOnOff.changeStateToPausedAsync(processName, true);
+                } else {
+                    LOGGER.info("+++ STARTING {}-in-0 to probe the downstream", processName);
+                    switchOnOff.start(processName);
+                }
+            } catch (Exception e) {
+                LOGGER.error("+++ Cannot start {}-in-0!", processName, e);
+            }
+        });
+    }
+
+    /**
+     * Send the summaries of the errors, that were counted in the windows of the {@link ErrorStormCompressor}, which are
+     * over, to the error topics of the processes.
+     */
+    @Scheduled(fixedRateString = "${application.error-compression.window-ms:10000}")
+    public void publishErrorSummaries() {
+
+        if (errorStormCompressor == null) {
+            return;
+        }
+        for (ErrorStormCompressor.Summary summary : errorStormCompressor.drainSummaries(System.currentTimeMillis())) {
+            LOGGER.warn("+++ {} EXCEPTIONS in process {} ({} suppressed) with fingerprint {}, e.g. for keys {}",
+                summary.occurrences(), summary.processName(), summary.suppressed(), summary.fingerprint(), summary.sampledKeys());
+            sendErrorOutput(summary.processName(), summary.fingerprint(), new DocumentedErrorOutput(summary));
+        }
+    }
+
+    private void sendErrorOutput(String processName, String messageKey, DocumentedErrorOutput documentedErrorOutput) {
+
+        final Message<DocumentedErrorOutput> documentedErrorOutputMessage = MessageBuilder
+            .withPayload(documentedErrorOutput)
+            .setHeader(KafkaHeaders.KEY, messageKey).build();
+        final String bindingNameError = processName + "-out-error";
+        boolean ok = streamBridge.send(bindingNameError, documentedErrorOutputMessage);
+        if (!ok) {
+            increaseProcessErrorCounter(processName);
+            LOGGER.error("Cannot send problem to out binding \"{}\"!", bindingNameError);
+        }
+    }
+
     private void increaseProcessSuccessCounter(String processName) {
         final Counter counter = processSuccessCounter.get(processName);
         if (counter != null) {
@@ -0,0 +1,78 @@
+package com.giraone.jobs.schedule.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Processes the records of one batch in parallel, but keeps the order of the records with the same message key.
+ * The records are distributed on a fixed number of lanes by the hash of their key and each lane is processed
+ * sequentially by one worker thread. {@link #processAll} returns, when all records of the batch are done, so the
+ * listener container commits the offsets of the batch only after the last record is completed.
+ */
+public class KeyOrderedExecutor {
+
+    private final int lanes;
+    private final ExecutorService executorService;
+
+    public KeyOrderedExecutor(int lanes, String threadNamePrefix) {
+
+        if (lanes < 1) {
+            throw new IllegalArgumentException("At least one lane is needed!");
+        }
+        this.lanes = lanes;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(lanes, runnable -> {
+            final Thread thread = new Thread(runnable, threadNamePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Process all records and wait, until all are done.
+     *
+     * @param keys the message keys of the records (same order as the records) - null keys are processed in one lane
+     * @param records the records of the batch
+     * @param consumer the processing of one record - should handle its own exceptions
+     * @param <T> the type of the records
+     */
+    public <T> void processAll(List<?> keys, List<T> records, Consumer<T> consumer) {
+
+        if (lanes == 1 || records.size() <= 1) {
+            records.forEach(consumer);
+            return;
+        }
+        final List<List<T>> recordsPerLane = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            recordsPerLane.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            final Object key = keys != null && i < keys.size() ? keys.get(i) : null;
+            recordsPerLane.get(laneOf(key)).add(records.get(i));
+        }
+        final CompletableFuture<?>[] futures = recordsPerLane.stream()
+            .filter(laneRecords -> !laneRecords.isEmpty())
+            .map(laneRecords -> CompletableFuture.runAsync(() -> laneRecords.forEach(consumer), executorService))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    int laneOf(Object key) {
+
+        if (key == null) {
+            return 0;
+        }
+        final int hash = key instanceof byte[] bytes ? Arrays.hashCode(bytes) : key.hashCode();
+        return Math.floorMod(hash, lanes);
+    }
+}
@@ -1,5 +1,8 @@
 package com.giraone.jobs.schedule.processor;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.giraone.jobs.common.BlobStore;
+import com.giraone.jobs.common.ObjectMapperBuilder;
 import com.giraone.jobs.events.AbstractAssignedJobEvent;
 import com.giraone.jobs.events.JobCompletedEvent;
 import com.giraone.jobs.events.JobFailedEvent;
@@ -7,8 +10,10 @@ import com.giraone.jobs.events.JobScheduledEvent;
 import com.giraone.jobs.schedule.constants.UtilsAndConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.Random;
 
 @Component
@@ -17,6 +22,14 @@ public class ProcessorAgent {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProcessorAgent.class);
 
     private static final Random RANDOM = new Random();
+    private static final ObjectMapper objectMapper = ObjectMapperBuilder.build(false, false);
+
+    // null, if there is no blob store for offloaded payloads
+    private final BlobStore blobStore;
+
+    public ProcessorAgent(ObjectProvider<BlobStore> blobStore) {
+        this.blobStore = blobStore.getIfAvailable();
+    }
 
     public AbstractAssignedJobEvent streamProcess(JobScheduledEvent jobScheduledEvent) {
 
@@ -28,6 +41,11 @@ public class ProcessorAgent {
             throw new IllegalArgumentException("Forced runtime exception because id is null");
         }
 
+        // The (simulated) work reads the payload, so an offloaded payload, that cannot be read, fails the job.
+        // The outgoing events carry only the reference.
+        final String payload = resolvePayload(jobScheduledEvent);
+        LOGGER.debug("Job {} has a payload of {} characters.", jobScheduledEvent.getId(), payload.length());
+
         if (RANDOM.nextInt(100) == 0) {
             LOGGER.warn("Job {} of {} in agent '{}' FAILED!",
                 jobScheduledEvent.getId(), jobScheduledEvent.getProcessKey(), jobScheduledEvent.getAgentKey());
@@ -40,6 +58,25 @@ public class ProcessorAgent {
         }
     }
 
+    /**
+     * Return the payload of the job. An offloaded payload (claim-check) is read from the blob store.
+     */
+    String resolvePayload(JobScheduledEvent jobScheduledEvent) {
+
+        if (jobScheduledEvent.getPayloadRef() == null) {
+            return jobScheduledEvent.getPayload() != null ? jobScheduledEvent.getPayload() : "";
+        }
+        if (blobStore == null) {
+            throw new IllegalStateException("Job " + jobScheduledEvent.getId() + " has an offloaded payload, but there is no blob store!");
+        }
+        // the blob contains the payload as JSON string
+        try {
+            return objectMapper.readValue(blobStore.get(jobScheduledEvent.getPayloadRef()), String.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private String generateLinkToResult(JobScheduledEvent jobScheduledEvent) {
         return "https://link/" + jobScheduledEvent.getMessageKey() + "-" + System.currentTimeMillis();
     }
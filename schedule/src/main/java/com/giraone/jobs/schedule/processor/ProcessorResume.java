@@ -4,6 +4,7 @@ import com.giraone.jobs.events.JobPausedEvent;
 import com.giraone.jobs.events.JobScheduledEvent;
 import com.giraone.jobs.schedule.constants.UtilsAndConstants;
 import com.giraone.jobs.schedule.service.PausedDecider;
+import com.giraone.jobs.schedule.service.RoutingSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -25,23 +26,45 @@ public class ProcessorResume {
 
         LOGGER.debug("<<<< ProcessorResume {}", jobPausedEvent);
 
-        UtilsAndConstants.simulationModeSleep();
-
         if (jobPausedEvent.getId() == null) {
             throw new IllegalArgumentException("Forced runtime exception because id is null");
         }
 
-        final String processKey = jobPausedEvent.getProcessKey();
-        final String pausedBucketKey = pausedDecider.getBucketIfProcessPaused(processKey);
+        return decide(jobPausedEvent.getId(), jobPausedEvent.getProcessKey())
+            .map(routingDecision -> new JobScheduledEvent(jobPausedEvent, routingDecision.agentKey()));
+    }
+
+    /**
+     * @return true, if a process of the current routing snapshot is paused with the bucket
+     */
+    public boolean isBucketPaused(String bucketKey) {
+        return pausedDecider.getSnapshot().getPausedBucketKeys().containsValue(bucketKey);
+    }
+
+    /**
+     * Decide by the process key only, whether the job is scheduled again. Used directly for header routing.
+     *
+     * @return the decision to schedule the job or empty, if the process is still paused
+     */
+    public Optional<RoutingDecision> decide(String id, String processKey) {
+
+        UtilsAndConstants.simulationModeSleep();
+
+        // one snapshot and one lookup for all routing decisions of the job
+        final RoutingSnapshot routing = pausedDecider.getSnapshot();
+        final int processIndex = routing.indexOf(processKey);
+        final String pausedBucketKey = routing.getPausedBucketKey(processIndex);
 
         if (pausedBucketKey != null) {
-            LOGGER.info(">>> KEEPING       {} of {} in bucket '{}'", jobPausedEvent.getId(), processKey, pausedBucketKey);
+            LOGGER.info(">>> KEEPING       {} of {} in bucket '{}'", id, processKey, pausedBucketKey);
             return Optional.empty();
         } else {
-            final String agentKey = pausedDecider.getAgentKeyForProcess(processKey);
-            LOGGER.info(">>> RE-SCHEDULING {} of {} to agent '{}'",
-                jobPausedEvent.getId(), processKey, agentKey);
-            return Optional.of(new JobScheduledEvent(jobPausedEvent, agentKey));
+            final String agentKey = pausedDecider.selectAgent(routing.getAgentKey(processIndex));
+            if (agentKey == null) {
+                LOGGER.error("No agent found for processKey='{}'", processKey);
+            }
+            LOGGER.info(">>> RE-SCHEDULING {} of {} to agent '{}'", id, processKey, agentKey);
+            return Optional.of(RoutingDecision.scheduled(agentKey));
         }
     }
 }
@@ -6,6 +6,7 @@ import com.giraone.jobs.events.JobPausedEvent;
 import com.giraone.jobs.events.JobScheduledEvent;
 import com.giraone.jobs.schedule.constants.UtilsAndConstants;
 import com.giraone.jobs.schedule.service.PausedDecider;
+import com.giraone.jobs.schedule.service.RoutingSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -25,25 +26,40 @@ public class ProcessorSchedule {
 
         LOGGER.debug("<<<< ProcessorSchedule {}", jobAcceptedEvent);
 
-        UtilsAndConstants.simulationModeSleep();
-
         if (jobAcceptedEvent.getId() == null) {
             throw new IllegalArgumentException("Forced runtime exception because ID-NULL");
         }
 
-        final String processKey = jobAcceptedEvent.getProcessKey();
-        final String pausedBucketKey = pausedDecider.getBucketIfProcessPaused(processKey);
+        final RoutingDecision routingDecision = decide(jobAcceptedEvent.getId(), jobAcceptedEvent.getProcessKey());
+        if (routingDecision.isPaused()) {
+            return new JobPausedEvent(routingDecision.pausedBucketKey(), jobAcceptedEvent);
+        } else {
+            return new JobScheduledEvent(jobAcceptedEvent, routingDecision.agentKey());
+        }
+    }
+
+    /**
+     * Decide by the process key only, whether the job is paused or scheduled. Used directly for header routing.
+     */
+    public RoutingDecision decide(String id, String processKey) {
+
+        UtilsAndConstants.simulationModeSleep();
+
+        // one snapshot and one lookup for all routing decisions of the job
+        final RoutingSnapshot routing = pausedDecider.getSnapshot();
+        final int processIndex = routing.indexOf(processKey);
+        final String pausedBucketKey = routing.getPausedBucketKey(processIndex);
 
         if (pausedBucketKey != null) {
-            final JobPausedEvent jobPausedEvent = new JobPausedEvent(pausedBucketKey, jobAcceptedEvent);
-            LOGGER.info(">>> PAUSED        {} of {} to bucket '{}'!",
-                jobPausedEvent.getId(), processKey, jobPausedEvent.getPausedBucketKey());
-            return jobPausedEvent;
+            LOGGER.info(">>> PAUSED        {} of {} to bucket '{}'!", id, processKey, pausedBucketKey);
+            return RoutingDecision.paused(pausedBucketKey);
         } else {
-            final String agentKey = pausedDecider.getAgentKeyForProcess(processKey);
-            LOGGER.info(">>> SCHEDULING    {} of {} to agent '{}'",
-                jobAcceptedEvent.getId(), processKey, agentKey);
-            return new JobScheduledEvent(jobAcceptedEvent, agentKey);
+            final String agentKey = pausedDecider.selectAgent(routing.getAgentKey(processIndex));
+            if (agentKey == null) {
+                LOGGER.error("No agent found for processKey='{}'", processKey);
+            }
+            LOGGER.info(">>> SCHEDULING    {} of {} to agent '{}'", id, processKey, agentKey);
+            return RoutingDecision.scheduled(agentKey);
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.giraone.jobs.schedule.processor;
+
+/**
+ * The routing of a job, that is decided by its process key only (header routing).
+ *
+ * @param status the new status of the job, SCHEDULED or PAUSED
+ * @param agentKey the agent, if the job is scheduled
+ * @param pausedBucketKey the bucket, if the job is paused
+ */
+public record RoutingDecision(String status, String agentKey, String pausedBucketKey) {
+
+    public static RoutingDecision scheduled(String agentKey) {
+        return new RoutingDecision("SCHEDULED", agentKey, null);
+    }
+
+    public static RoutingDecision paused(String pausedBucketKey) {
+        return new RoutingDecision("PAUSED", null, pausedBucketKey);
+    }
+
+    public boolean isPaused() {
+        return pausedBucketKey != null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.giraone.jobs.schedule.processor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.giraone.jobs.events.AbstractAssignedJobEvent;
+import com.giraone.jobs.events.AbstractJobEvent;
+import com.giraone.jobs.events.JobPausedEvent;
+import org.springframework.messaging.MessageHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka headers for the routing fields of the job events (header routing). With header routing, the routing
+ * processors (processSchedule, processResume) read only the process key and forward the original value bytes
+ * with new headers. So the value of a scheduled or paused job is still the accepted job and the headers take
+ * precedence over the fields of the value.
+ */
+public final class RoutingHeaders {
+
+    public static final String HEADER_processKey = "job-process-key";
+    public static final String HEADER_status = "job-status";
+    public static final String HEADER_agentKey = "job-agent-key";
+    public static final String HEADER_pausedBucketKey = "job-paused-bucket-key";
+    public static final String HEADER_eventTimestamp = "job-event-timestamp";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Hide
+    private RoutingHeaders() {
+    }
+
+    /**
+     * Create the headers of a routed job. The values are passed as bytes, so they are not JSON encoded by the binder.
+     */
+    public static Map<String, Object> of(String processKey, RoutingDecision routingDecision, Instant eventTimestamp) {
+
+        final Map<String, Object> headers = new HashMap<>();
+        put(headers, HEADER_processKey, processKey);
+        put(headers, HEADER_status, routingDecision.status());
+        put(headers, HEADER_agentKey, routingDecision.agentKey());
+        put(headers, HEADER_pausedBucketKey, routingDecision.pausedBucketKey());
+        put(headers, HEADER_eventTimestamp, eventTimestamp.toString());
+        return headers;
+    }
+
+    /**
+     * @return the value of the header as a string or null, if the header is not present
+     */
+    public static String get(Map<String, Object> headers, String name) {
+
+        final Object value = headers.get(name);
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Overwrite the routing fields of a parsed job event with the values of the headers, if present.
+     */
+    public static <T extends AbstractJobEvent> T applyTo(T event, MessageHeaders headers) {
+
+        final String processKey = get(headers, HEADER_processKey);
+        if (processKey != null) {
+            event.setProcessKey(processKey);
+        }
+        final String eventTimestamp = get(headers, HEADER_eventTimestamp);
+        if (eventTimestamp != null) {
+            event.setEventTimestamp(Instant.parse(eventTimestamp));
+        }
+        final String agentKey = get(headers, HEADER_agentKey);
+        if (agentKey != null && event instanceof AbstractAssignedJobEvent assignedJobEvent) {
+            assignedJobEvent.setAgentKey(agentKey);
+        }
+        final String pausedBucketKey = get(headers, HEADER_pausedBucketKey);
+        if (pausedBucketKey != null && event instanceof JobPausedEvent jobPausedEvent) {
+            jobPausedEvent.setPausedBucketKey(pausedBucketKey);
+        }
+        return event;
+    }
+
+    /**
+     * Return the process key from the header or - for jobs without routing headers - read only the "processKey"
+     * field of the value. The fields after the process key are not read.
+     */
+    public static String readProcessKey(MessageHeaders headers, byte[] value) throws IOException {
+
+        final String processKey = get(headers, HEADER_processKey);
+        if (processKey != null) {
+            return processKey;
+        }
+        return readProcessKey(value);
+    }
+
+    /**
+     * Read only the "processKey" field of the value. The fields after the process key are not read.
+     *
+     * @return the process key or null, if the value has no process key
+     */
+    public static String readProcessKey(byte[] value) throws IOException {
+
+        try (JsonParser parser = JSON_FACTORY.createParser(value)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Job is not a JSON object!");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("processKey".equals(name)) {
+                    return parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    private static void put(Map<String, Object> headers, String name, String value) {
+        if (value != null) {
+            headers.put(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
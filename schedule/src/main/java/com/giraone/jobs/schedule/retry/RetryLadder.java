@@ -0,0 +1,80 @@
+package com.giraone.jobs.schedule.retry;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.processor.EventProcessor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The ladder of retry topics for failed jobs. Level n is a topic with the n-th delay of
+ * {@code application.retry-topics.delays} and a processor (processRetry{n}), that passes each job of the topic back to
+ * the scheduled topic of its agent, when the delay after the failure is over. All jobs of one topic have the same
+ * delay, so they are due in the order of the topic.
+ */
+@Component
+public class RetryLadder {
+
+    private final boolean enabled;
+    private final List<Duration> delays;
+    private final int maxAttempts;
+    private final String topicPrefix;
+    private final String topicDeadLetter;
+
+    public RetryLadder(ApplicationProperties applicationProperties) {
+
+        final ApplicationProperties.RetryTopics retryTopics = applicationProperties.getRetryTopics();
+        if (retryTopics.isEnabled() && retryTopics.getDelays().isEmpty()) {
+            throw new IllegalArgumentException("application.retry-topics.delays must not be empty!");
+        }
+        this.enabled = retryTopics.isEnabled();
+        this.delays = List.copyOf(retryTopics.getDelays());
+        this.maxAttempts = retryTopics.getMaxAttempts() != null ? retryTopics.getMaxAttempts() : delays.size();
+        this.topicPrefix = retryTopics.getTopicPrefix();
+        this.topicDeadLetter = retryTopics.getTopicDeadLetter();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of levels (retry topics)
+     */
+    public int size() {
+        return delays.size();
+    }
+
+    /**
+     * @param attempt the attempt of the job, that failed - 0 for the first execution
+     * @return the level of the retry or -1, if there are no retries left
+     */
+    public int levelOf(int attempt) {
+        return attempt < maxAttempts ? Math.min(attempt, delays.size() - 1) : -1;
+    }
+
+    public Duration getDelay(int level) {
+        return delays.get(level);
+    }
+
+    /**
+     * @return the retry topic of the level, e.g. job-retry-10s
+     */
+    public String getTopic(int level) {
+        final Duration delay = delays.get(level);
+        return topicPrefix + "-" + (delay.toMillis() % 1000L == 0L ? delay.toSeconds() + "s" : delay.toMillis() + "ms");
+    }
+
+    public String getProcessorName(int level) {
+        return EventProcessor.PROCESS_retry + level;
+    }
+
+    public int levelOfProcessor(String processorName) {
+        return Integer.parseInt(processorName.substring(EventProcessor.PROCESS_retry.length()));
+    }
+
+    public String getTopicDeadLetter() {
+        return topicDeadLetter;
+    }
+}
@@ -0,0 +1,228 @@
+package com.giraone.jobs.schedule.service;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects the agent of a job among the eligible agents of the agent of its process by their load. The load of an
+ * agent is the estimated time to work off its queue: (consumer lag of its topic + jobs in flight) * recent latency.
+ * <ul>
+ *     <li>The consumer lag of the agent topics is read periodically with the admin client.</li>
+ *     <li>The jobs in flight are the jobs, that were scheduled by this node and not yet completed by the agent.</li>
+ *     <li>The latency is an exponentially weighted moving average of the agent work.</li>
+ * </ul>
+ * The agent of the process is sticky: it is kept, unless its load exceeds the load of the selected agent by the
+ * configured stickiness, or if there is no current consumer lag of it.
+ */
+@Service
+public class AgentLoadService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AgentLoadService.class);
+
+    // weight of the newest latency sample
+    private static final double LATENCY_ALPHA = 0.2;
+    private static final long ADMIN_TIMEOUT_SECONDS = 10L;
+
+    private final ApplicationProperties.AgentSelection agentSelection;
+    private final ApplicationProperties applicationProperties;
+    private final ObjectProvider<KafkaAdmin> kafkaAdmin;
+    private final Map<String, AgentLoad> loads = new ConcurrentHashMap<>();
+    private AdminClient adminClient;
+
+    public AgentLoadService(ApplicationProperties applicationProperties, ObjectProvider<KafkaAdmin> kafkaAdmin) {
+        this.agentSelection = applicationProperties.getAgentSelection();
+        this.applicationProperties = applicationProperties;
+        this.kafkaAdmin = kafkaAdmin;
+    }
+
+    /**
+     * Select the agent for a job of a process.
+     *
+     * @param agentKey the agent key of the process
+     * @return the selected agent key - the agent key of the process, if there are no other eligible agents or no
+     * current load signals
+     */
+    public String select(String agentKey) {
+
+        if (!agentSelection.isEnabled() || agentKey == null) {
+            return agentKey;
+        }
+        final List<String> eligibleAgents = agentSelection.getEligibleAgents().get(agentKey);
+        if (eligibleAgents == null || eligibleAgents.size() < 2 || !isCurrent(agentKey)) {
+            return agentKey;
+        }
+        final boolean withLatency = eligibleAgents.stream().allMatch(key -> load(key).latencyMs > 0.0);
+        final String candidate = agentSelection.getStrategy() == ApplicationProperties.AgentSelection.Strategy.LEAST_LOADED
+            ? leastLoaded(eligibleAgents, withLatency)
+            : powerOfTwo(eligibleAgents, withLatency);
+        if (candidate == null || candidate.equals(agentKey)
+            || score(agentKey, withLatency) <= score(candidate, withLatency) * (1.0 + agentSelection.getStickiness())) {
+            return agentKey;
+        }
+        LOGGER.debug(">>> BALANCING     from agent '{}' to agent '{}'", agentKey, candidate);
+        return candidate;
+    }
+
+    /**
+     * A job was scheduled to the agent.
+     */
+    public void scheduled(String agentKey) {
+        if (agentSelection.isEnabled() && agentKey != null) {
+            load(agentKey).inFlight.incrementAndGet();
+        }
+    }
+
+    /**
+     * A job was completed or failed by the agent.
+     *
+     * @param latencyMs the duration of the agent work
+     */
+    public void completed(String agentKey, long latencyMs) {
+
+        if (!agentSelection.isEnabled() || agentKey == null) {
+            return;
+        }
+        final AgentLoad load = load(agentKey);
+        // jobs of other nodes or of before the start are completed, too
+        load.inFlight.getAndUpdate(inFlight -> Math.max(inFlight - 1, 0));
+        synchronized (load) {
+            load.latencyMs = load.latencyMs > 0.0 ? LATENCY_ALPHA * latencyMs + (1.0 - LATENCY_ALPHA) * load.latencyMs : Math.max(latencyMs, 1L);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${application.agent-selection.lag-poll-interval-ms:5000}")
+    public void pollLag() {
+
+        if (!agentSelection.isEnabled()) {
+            return;
+        }
+        final Set<String> agentKeys = new LinkedHashSet<>();
+        agentSelection.getEligibleAgents().values().forEach(agentKeys::addAll);
+        for (String agentKey : agentKeys) {
+            try {
+                updateLag(agentKey, readLag(agentKey));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.warn("Cannot read the consumer lag of agent '{}': {}", agentKey, e.getMessage());
+            }
+        }
+    }
+
+    void updateLag(String agentKey, long lag) {
+        final AgentLoad load = load(agentKey);
+        load.lag = lag;
+        load.lagUpdatedAtMillis = System.currentTimeMillis();
+    }
+
+    @PreDestroy
+    private synchronized void destroy() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    private long readLag(String agentKey) throws InterruptedException, ExecutionException, TimeoutException {
+
+        final String group = applicationProperties.getId().getProcessAgent() + "-" + agentKey;
+        final String topic = applicationProperties.getTopics().getTopicJobScheduled(agentKey);
+        final Map<TopicPartition, OffsetAndMetadata> committed = adminClient().listConsumerGroupOffsets(group)
+            .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        final Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        committed.keySet().stream()
+            .filter(partition -> partition.topic().equals(topic))
+            .forEach(partition -> latest.put(partition, OffsetSpec.latest()));
+        final Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = adminClient().listOffsets(latest)
+            .all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        long lag = 0L;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+            final OffsetAndMetadata offset = committed.get(entry.getKey());
+            if (offset != null) {
+                lag += Math.max(entry.getValue().offset() - offset.offset(), 0L);
+            }
+        }
+        return lag;
+    }
+
+    private synchronized AdminClient adminClient() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getObject().getConfigurationProperties());
+        }
+        return adminClient;
+    }
+
+    private String powerOfTwo(List<String> eligibleAgents, boolean withLatency) {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(eligibleAgents.size());
+        final int second = (first + 1 + random.nextInt(eligibleAgents.size() - 1)) % eligibleAgents.size();
+        return lessLoaded(eligibleAgents.get(first), eligibleAgents.get(second), withLatency);
+    }
+
+    private String leastLoaded(List<String> eligibleAgents, boolean withLatency) {
+
+        String ret = null;
+        for (String agentKey : eligibleAgents) {
+            ret = ret == null ? (isCurrent(agentKey) ? agentKey : null) : lessLoaded(ret, agentKey, withLatency);
+        }
+        return ret;
+    }
+
+    // agents without a current lag are not selected
+    private String lessLoaded(String agentKey1, String agentKey2, boolean withLatency) {
+
+        if (!isCurrent(agentKey2)) {
+            return isCurrent(agentKey1) ? agentKey1 : null;
+        }
+        if (!isCurrent(agentKey1)) {
+            return agentKey2;
+        }
+        return score(agentKey2, withLatency) < score(agentKey1, withLatency) ? agentKey2 : agentKey1;
+    }
+
+    private boolean isCurrent(String agentKey) {
+        final AgentLoad load = loads.get(agentKey);
+        return load != null && System.currentTimeMillis() - load.lagUpdatedAtMillis <= agentSelection.getLagMaxAge().toMillis();
+    }
+
+    private double score(String agentKey, boolean withLatency) {
+        final AgentLoad load = load(agentKey);
+        final double queued = load.lag + load.inFlight.get() + 1.0;
+        return withLatency ? queued * load.latencyMs : queued;
+    }
+
+    private AgentLoad load(String agentKey) {
+        return loads.computeIfAbsent(agentKey, key -> new AgentLoad());
+    }
+
+    private static final class AgentLoad {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long lag;
+        private volatile long lagUpdatedAtMillis;
+        private volatile double latencyMs;
+    }
+}
@@ -0,0 +1,216 @@
+package com.giraone.jobs.schedule.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.giraone.jobs.common.ObjectMapperBuilder;
+import com.giraone.jobs.events.JobAcceptedEvent;
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.delay.HierarchicalTimingWheel;
+import com.giraone.jobs.schedule.processor.EventProcessor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds accepted jobs with a notBefore or delay attribute in a {@link HierarchicalTimingWheel} and passes them to
+ * the schedule processor, when they are due. A delayed job is also written to the compacted delay topic of this node
+ * (key = job id), which is read back on startup, and a tombstone is written, when the job is released. So there is
+ * no thread per job and no polling of a database - one thread advances the clock of the wheel every tick.
+ */
+@Service
+public class DelayedJobService implements ApplicationListener<ApplicationStartedEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DelayedJobService.class);
+    private static final ObjectMapper mapper = ObjectMapperBuilder.build(false, false);
+
+    private final ApplicationProperties.Delay delay;
+    private final boolean transactional;
+    private final KafkaProperties kafkaProperties;
+    private final ObjectProvider<EventProcessor> eventProcessor;
+    // null, if delays are disabled
+    private final HierarchicalTimingWheel<DelayedJob> timingWheel;
+    // the timers by job id, so a job, that is consumed again, replaces its timer
+    private final Map<String, HierarchicalTimingWheel.Timer<DelayedJob>> timers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    public DelayedJobService(ApplicationProperties applicationProperties, KafkaProperties kafkaProperties,
+                             ObjectProvider<EventProcessor> eventProcessor, MeterRegistry meterRegistry) {
+
+        this.delay = applicationProperties.getDelay();
+        this.transactional = applicationProperties.isTransactional();
+        this.kafkaProperties = kafkaProperties;
+        this.eventProcessor = eventProcessor;
+        if (delay.isEnabled()) {
+            this.timingWheel = new HierarchicalTimingWheel<>(delay.getTickMs(), delay.getWheelSize(), System.currentTimeMillis());
+            Gauge.builder("schedule.delayed.jobs", timingWheel, HierarchicalTimingWheel::size)
+                .description("Number of accepted jobs, that are held in the timing wheel until they are due.")
+                .register(meterRegistry);
+        } else {
+            this.timingWheel = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return timingWheel != null;
+    }
+
+    public String getTopic() {
+        return delay.getTopic();
+    }
+
+    /**
+     * @return true, if delays are enabled and the job is due later than the next tick
+     */
+    public boolean isDelayed(JobAcceptedEvent jobAcceptedEvent) {
+
+        if (timingWheel == null) {
+            return false;
+        }
+        final Instant dueTimestamp = jobAcceptedEvent.getDueTimestamp();
+        return dueTimestamp != null && dueTimestamp.toEpochMilli() >= System.currentTimeMillis() + delay.getTickMs();
+    }
+
+    /**
+     * Hold a job in the timing wheel. The caller has written the job to the delay topic before.
+     */
+    public void delay(String messageKey, Instant dueTimestamp, byte[] messageValue) {
+
+        final DelayedJob delayedJob = new DelayedJob(messageKey, messageValue);
+        HierarchicalTimingWheel.Timer<DelayedJob> timer = timingWheel.add(dueTimestamp.toEpochMilli(), delayedJob);
+        if (timer == null) {
+            // due in the meantime - released with the next tick
+            timer = timingWheel.add(timingWheel.getCurrentTime() + delay.getTickMs(), delayedJob);
+        }
+        final HierarchicalTimingWheel.Timer<DelayedJob> replaced = timers.put(messageKey, timer);
+        if (replaced != null) {
+            timingWheel.cancel(replaced);
+        }
+        LOGGER.debug(">>> DELAYED       {} until {}", messageKey, dueTimestamp);
+    }
+
+    @PostConstruct
+    private void load() {
+
+        if (timingWheel == null) {
+            return;
+        }
+        if (transactional) {
+            LOGGER.warn("Delayed jobs are released outside of the transactions of the listener threads!");
+        }
+        final Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties();
+        consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProperties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        final String topic = delay.getTopic();
+        final Duration loadTimeout = delay.getLoadTimeout();
+        final long start = System.currentTimeMillis();
+        // the last value per job id - a tombstone removes the job
+        final Map<String, byte[]> delayedJobs = new LinkedHashMap<>();
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(consumerProperties)) {
+            final List<TopicPartition> partitions = consumer.partitionsFor(topic, loadTimeout).stream()
+                .map(partitionInfo -> new TopicPartition(topic, partitionInfo.partition()))
+                .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            final Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, loadTimeout);
+            while (partitions.stream().anyMatch(partition -> consumer.position(partition) < endOffsets.get(partition))) {
+                if (System.currentTimeMillis() - start > loadTimeout.toMillis()) {
+                    LOGGER.warn("Loading of delayed jobs from topic \"{}\" stopped after {}.", topic, loadTimeout);
+                    break;
+                }
+                for (ConsumerRecord<String, byte[]> consumerRecord : consumer.poll(Duration.ofMillis(500))) {
+                    if (consumerRecord.value() != null) {
+                        delayedJobs.put(consumerRecord.key(), consumerRecord.value());
+                    } else {
+                        delayedJobs.remove(consumerRecord.key());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // the jobs stay in the topic - they are loaded again with the next start
+            LOGGER.error("Cannot load delayed jobs from topic \"{}\".", topic, e);
+        }
+        delayedJobs.forEach((messageKey, messageValue) -> {
+            try {
+                final JobAcceptedEvent jobAcceptedEvent = mapper.readValue(messageValue, JobAcceptedEvent.class);
+                delay(messageKey, jobAcceptedEvent.getDueTimestamp(), messageValue);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Cannot load delayed job {} from topic \"{}\".", messageKey, topic, e);
+            }
+        });
+        LOGGER.info("Loaded {} delayed jobs from topic \"{}\" in {} ms.", timers.size(), topic, System.currentTimeMillis() - start);
+    }
+
+    // The jobs are released, when the bindings are started.
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+
+        if (timingWheel == null || ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, delay.getTickMs(), delay.getTickMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+
+        final List<DelayedJob> dueJobs;
+        try {
+            dueJobs = timingWheel.advanceClock(System.currentTimeMillis());
+        } catch (Exception e) {
+            LOGGER.error("Cannot advance the timing wheel!", e);
+            return;
+        }
+        if (dueJobs.isEmpty()) {
+            return;
+        }
+        final EventProcessor processor = eventProcessor.getObject();
+        for (DelayedJob dueJob : dueJobs) {
+            timers.computeIfPresent(dueJob.messageKey(), (messageKey, timer) -> timer.getValue() == dueJob ? null : timer);
+            try {
+                processor.processDelayed(dueJob.messageKey(), dueJob.messageValue());
+            } catch (Exception e) {
+                LOGGER.error("Cannot release delayed job {}!", dueJob.messageKey(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private record DelayedJob(String messageKey, byte[] messageValue) {
+    }
+}
@@ -0,0 +1,207 @@
+package com.giraone.jobs.schedule.service;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.processor.EventProcessor;
+import com.giraone.jobs.schedule.retry.RetryLadder;
+import com.giraone.jobs.schedule.stopper.SwitchOnOff;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.cloud.stream.binder.Binder;
+import org.springframework.cloud.stream.binder.BinderFactory;
+import org.springframework.cloud.stream.binder.Binding;
+import org.springframework.cloud.stream.binder.ExtendedPropertiesBinder;
+import org.springframework.cloud.stream.binder.kafka.properties.KafkaConsumerProperties;
+import org.springframework.cloud.stream.binding.BindingService;
+import org.springframework.cloud.stream.binding.SubscribableChannelBindingTargetFactory;
+import org.springframework.cloud.stream.config.BindingProperties;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Creates the consumer bindings of agents (processAgentXxx) and paused buckets (processResumeXxx) at runtime, when
+ * the process catalog of jobadmin contains an agent key or a bucket key without a binding in {@code application.yml}.
+ * For each new key, the stopper, the metrics and optionally the topics are created, too.
+ * So a new agent is a configuration change in jobadmin and not a redeployment of the schedule service.
+ * The consumer bindings of the retry topics (processRetryN) of the {@link RetryLadder} are created on startup.
+ */
+@Service
+public class DynamicBindingRegistrar implements ApplicationListener<ApplicationStartedEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynamicBindingRegistrar.class);
+
+    private final ApplicationProperties applicationProperties;
+    private final BindingService bindingService;
+    private final BindingServiceProperties bindingServiceProperties;
+    private final SubscribableChannelBindingTargetFactory bindingTargetFactory;
+    private final BinderFactory binderFactory;
+    private final SwitchOnOff switchOnOff;
+    // lazy, because the EventProcessor depends on the PausedDecider, which uses this class
+    private final ObjectProvider<EventProcessor> eventProcessor;
+    private final ObjectProvider<KafkaAdmin> kafkaAdmin;
+    private final RetryLadder retryLadder;
+
+    // processor names, that are bound (statically or dynamically)
+    private final Set<String> boundProcessorNames = ConcurrentHashMap.newKeySet();
+
+    public DynamicBindingRegistrar(ApplicationProperties applicationProperties,
+                                   BindingService bindingService,
+                                   BindingServiceProperties bindingServiceProperties,
+                                   SubscribableChannelBindingTargetFactory bindingTargetFactory,
+                                   BinderFactory binderFactory,
+                                   SwitchOnOff switchOnOff,
+                                   ObjectProvider<EventProcessor> eventProcessor,
+                                   ObjectProvider<KafkaAdmin> kafkaAdmin,
+                                   RetryLadder retryLadder) {
+        this.applicationProperties = applicationProperties;
+        this.bindingService = bindingService;
+        this.bindingServiceProperties = bindingServiceProperties;
+        this.bindingTargetFactory = bindingTargetFactory;
+        this.binderFactory = binderFactory;
+        this.switchOnOff = switchOnOff;
+        this.eventProcessor = eventProcessor;
+        this.kafkaAdmin = kafkaAdmin;
+        this.retryLadder = retryLadder;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+
+        if (!retryLadder.isEnabled() || applicationProperties.getStreams().isEnabled()) {
+            return;
+        }
+        for (int level = 0; level < retryLadder.size(); level++) {
+            ensureRetryLevel(level);
+        }
+    }
+
+    /**
+     * Make sure, that there is a running processor for the agent.
+     */
+    public void ensureAgent(String agentKey) {
+
+        if (!applicationProperties.getDynamicBindings().isEnabled()) {
+            return;
+        }
+        final ApplicationProperties.Topics topics = applicationProperties.getTopics();
+        ensureBinding(
+            EventProcessor.PROCESS_agent + agentKey,
+            topics.getTopicJobScheduled(agentKey),
+            applicationProperties.getId().getProcessAgent() + "-" + agentKey,
+            topics.getTopicJobScheduledErr(),
+            false,
+            topics.getTopicJobCompleted(), topics.getTopicJobFailed(agentKey)
+        );
+    }
+
+    /**
+     * Make sure, that there is a processor for the paused bucket. A new processor starts paused.
+     */
+    public void ensureBucket(String bucketKey) {
+
+        if (!applicationProperties.getDynamicBindings().isEnabled()) {
+            return;
+        }
+        final ApplicationProperties.Topics topics = applicationProperties.getTopics();
+        ensureBinding(
+            EventProcessor.PROCESS_resume + bucketKey,
+            topics.getTopicJobPaused(bucketKey),
+            applicationProperties.getId().getProcessResume() + "-" + bucketKey,
+            topics.getTopicJobPausedErr(),
+            true
+        );
+    }
+
+    /**
+     * Make sure, that there is a processor for the retry topic of the level. The binding gets ack-mode MANUAL, because
+     * a job, that is not yet due, is negatively acknowledged.
+     */
+    public void ensureRetryLevel(int level) {
+
+        final String topic = retryLadder.getTopic(level);
+        setManualAckMode(retryLadder.getProcessorName(level) + "-in-0");
+        ensureBinding(
+            retryLadder.getProcessorName(level),
+            topic,
+            applicationProperties.getId().getProcessAgent() + "-" + topic,
+            applicationProperties.getTopics().getTopicJobScheduledErr(),
+            false
+        );
+    }
+
+    private synchronized void ensureBinding(String processorName, String inboundTopic, String group, String errorTopic,
+                                            boolean startPaused, String... outboundTopics) {
+
+        if (boundProcessorNames.contains(processorName)) {
+            return;
+        }
+        if (switchOnOff.hasBinding(processorName)) {
+            // configured in application.yml
+            boundProcessorNames.add(processorName);
+            return;
+        }
+        LOGGER.info("<-> BINDING {} to topic '{}' with group '{}'", processorName, inboundTopic, group);
+        try {
+            createTopics(inboundTopic, outboundTopics);
+            eventProcessor.getObject().registerProcessor(processorName, outboundTopics);
+
+            final BindingProperties errorBindingProperties = bindingServiceProperties.getBindingProperties(processorName + "-out-error");
+            errorBindingProperties.setDestination(errorTopic);
+
+            final String bindingName = processorName + "-in-0";
+            final BindingProperties bindingProperties = bindingServiceProperties.getBindingProperties(bindingName);
+            bindingProperties.setDestination(inboundTopic);
+            bindingProperties.setGroup(group);
+            final SubscribableChannel channel = bindingTargetFactory.createInput(bindingName);
+            channel.subscribe(message -> eventProcessor.getObject().processDynamicBinding(processorName, message));
+            final Collection<Binding<SubscribableChannel>> bindings = bindingService.bindConsumer(channel, bindingName);
+            bindings.forEach(binding -> switchOnOff.registerBinding(processorName, binding));
+            boundProcessorNames.add(processorName);
+            if (startPaused) {
+                switchOnOff.changeStateToPaused(processorName, true);
+            }
+        } catch (RuntimeException e) {
+            // tried again with the next reload of the processes
+            LOGGER.error("<-> BINDING {} FAILED!", processorName, e);
+        }
+    }
+
+    // The extended consumer properties of a binding are created on the first access and used by bindConsumer.
+    private void setManualAckMode(String bindingName) {
+
+        final Binder<?, ?, ?> binder = binderFactory.getBinder(null, MessageChannel.class);
+        if (!(binder instanceof ExtendedPropertiesBinder<?, ?, ?> extendedPropertiesBinder)
+            || !(extendedPropertiesBinder.getExtendedConsumerProperties(bindingName) instanceof KafkaConsumerProperties kafkaConsumerProperties)) {
+            throw new IllegalStateException("Cannot set ack-mode MANUAL for binding \"" + bindingName + "\"!");
+        }
+        kafkaConsumerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+    }
+
+    private void createTopics(String inboundTopic, String... outboundTopics) {
+
+        final ApplicationProperties.DynamicBindings dynamicBindings = applicationProperties.getDynamicBindings();
+        if (!dynamicBindings.isCreateTopics()) {
+            return;
+        }
+        final NewTopic[] newTopics = Stream.concat(Stream.of(inboundTopic), Stream.of(outboundTopics))
+            .map(topic -> TopicBuilder.name(topic)
+                .partitions(dynamicBindings.getPartitions())
+                .replicas(dynamicBindings.getReplicationFactor())
+                .build())
+            .toArray(NewTopic[]::new);
+        kafkaAdmin.ifAvailable(admin -> admin.createOrModifyTopics(newTopics));
+    }
+}
@@ -0,0 +1,119 @@
+package com.giraone.jobs.schedule.service;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.parking.ParkingStore;
+import com.giraone.jobs.schedule.processor.EventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Parks the jobs of processes, that are still paused, when their bucket is resumed for another process, in a
+ * {@link ParkingStore} and re-emits them, when their process is active again. So the bucket topic is read only once
+ * and resuming a process reads only the jobs of this process.
+ */
+@Service
+public class ParkingService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParkingService.class);
+
+    private final ObjectProvider<EventProcessor> eventProcessor;
+    // null, if parking is disabled
+    private final ParkingStore parkingStore;
+    private final ExecutorService drainExecutor;
+    private final Set<String> draining = ConcurrentHashMap.newKeySet();
+
+    public ParkingService(ApplicationProperties applicationProperties, ObjectProvider<EventProcessor> eventProcessor) {
+
+        this.eventProcessor = eventProcessor;
+        final ApplicationProperties.Parking parking = applicationProperties.getParking();
+        if (parking.isEnabled()) {
+            // a relative path depends on the working directory, which is "/" in the container image
+            if (parking.getDirectory() == null || !Path.of(parking.getDirectory()).isAbsolute()) {
+                throw new IllegalStateException("application.parking.directory must be the absolute path of a mounted volume, but is \""
+                    + parking.getDirectory() + "\"!");
+            }
+            try {
+                this.parkingStore = new ParkingStore(Path.of(parking.getDirectory()), parking.getSegmentBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            this.drainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "parking-drain");
+                thread.setDaemon(true);
+                return thread;
+            });
+            LOGGER.info("Parking jobs of paused processes in {}", parking.getDirectory());
+        } else {
+            this.parkingStore = null;
+            this.drainExecutor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return parkingStore != null;
+    }
+
+    public void park(String processKey, String messageKey, byte[] messageValue) {
+
+        parkingStore.park(processKey, messageKey, messageValue);
+        LOGGER.debug(">>> PARKED        {} of {}", messageKey, processKey);
+    }
+
+    /**
+     * Re-emit the parked jobs of all processes, that are active in the routing snapshot. Called after each reload of
+     * the process catalog, so also jobs of processes, that were resumed while the service was down, are re-emitted.
+     * A drain stops at the first job, that cannot be processed, and is continued with this job by the next call.
+     */
+    public void resumeActive(RoutingSnapshot snapshot) {
+
+        if (parkingStore == null) {
+            return;
+        }
+        for (String processKey : parkingStore.getProcessKeys()) {
+            final int processIndex = snapshot.indexOf(processKey);
+            if (processIndex >= 0 && snapshot.getPausedBucketKey(processIndex) == null
+                && parkingStore.hasParked(processKey) && draining.add(processKey)) {
+                drainExecutor.submit(() -> drain(processKey));
+            }
+        }
+    }
+
+    private void drain(String processKey) {
+
+        final long start = System.currentTimeMillis();
+        try {
+            LOGGER.info("<-> RESUMING {} bytes of parked jobs of {}", parkingStore.getParkedBytes(processKey), processKey);
+            final EventProcessor processor = eventProcessor.getObject();
+            final int count = parkingStore.drain(processKey,
+                (messageKey, messageValue) -> processor.processParked(processKey, messageKey, messageValue));
+            LOGGER.info("<-> RESUMED {} parked jobs of {} in {} ms", count, processKey, System.currentTimeMillis() - start);
+            if (parkingStore.hasParked(processKey)) {
+                LOGGER.warn("<-> {} bytes of parked jobs of {} left - retrying with the next reload",
+                    parkingStore.getParkedBytes(processKey), processKey);
+            }
+        } catch (Exception e) {
+            LOGGER.error("<-> Cannot resume parked jobs of {}", processKey, e);
+        } finally {
+            draining.remove(processKey);
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+
+        if (parkingStore != null) {
+            drainExecutor.shutdownNow();
+            parkingStore.close();
+        }
+    }
+}
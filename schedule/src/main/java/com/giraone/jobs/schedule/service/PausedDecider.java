@@ -5,15 +5,21 @@ import com.giraone.jobs.schedule.config.ApplicationProperties;
 import com.giraone.jobs.schedule.model.ActivationEnum;
 import com.giraone.jobs.schedule.model.ProcessDTO;
 import com.giraone.jobs.schedule.stopper.SwitchOnOff;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This class has two responsibilities:
@@ -21,89 +27,175 @@ import java.util.Map;
  *     <li>Decide, whether a process is paused and return the bucket key of the paused topic to be used.</li>
  *     <li>Map processes to agents and therefore to scheduled topics.</li>
  * </ul>
- * Both is done by asking the jobadmin service periodically and hold a cache for this.
+ * Both is done by asking the jobadmin service periodically and hold a cache for this. The cache is an immutable
+ * {@link RoutingSnapshot}, that is replaced as a whole with each reload, so the consumer threads read it without locks.
+ * Agents and buckets, that are new in the process catalog, get their processors from the {@link DynamicBindingRegistrar}.
+ * The parked jobs of active processes are re-emitted by the {@link ParkingService}. The agent key of a process may be
+ * replaced by a less loaded eligible agent of the {@link AgentLoadService}.
  */
 @Service
 public class PausedDecider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PausedDecider.class);
+    private static final Duration SWITCH_TIMEOUT = Duration.ofSeconds(30L);
 
     private final SwitchOnOff switchOnOff;
     private final JobAdminClient jobAdminClient;
     private final ApplicationProperties applicationProperties;
+    private final DynamicBindingRegistrar dynamicBindingRegistrar;
+    private final ParkingService parkingService;
+    private final AgentLoadService agentLoadService;
 
-    private Map<String, String> pausedMap = new HashMap<>();
-    private Map<String, String> agentMap = new HashMap<>();
+    private volatile RoutingSnapshot snapshot = RoutingSnapshot.EMPTY;
 
-    public PausedDecider(SwitchOnOff switchOnOff, JobAdminClient jobAdminClient, ApplicationProperties applicationProperties) {
+    public PausedDecider(SwitchOnOff switchOnOff, JobAdminClient jobAdminClient, ApplicationProperties applicationProperties,
+                         DynamicBindingRegistrar dynamicBindingRegistrar, ParkingService parkingService,
+                         AgentLoadService agentLoadService, MeterRegistry meterRegistry) {
         this.switchOnOff = switchOnOff;
         this.jobAdminClient = jobAdminClient;
         this.applicationProperties = applicationProperties;
+        this.dynamicBindingRegistrar = dynamicBindingRegistrar;
+        this.parkingService = parkingService;
+        this.agentLoadService = agentLoadService;
+        Gauge.builder("schedule.routing.snapshot.age", this, PausedDecider::getSnapshotAgeSeconds)
+            .description("Age of the routing snapshot, that was loaded from jobadmin.")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("schedule.routing.snapshot.version", this, pausedDecider -> pausedDecider.snapshot.getVersion())
+            .description("Version of the routing snapshot, that was loaded from jobadmin.")
+            .register(meterRegistry);
     }
 
     @Scheduled(fixedRateString = "${application.loadProcessStatus.fixedRateMs}", initialDelayString = "${application.loadProcessStatus.initialDelayMs}")
     public void scheduleReload() {
 
-        final Map<String, String> newPausedMap = new HashMap<>();
-        final Map<String, String> newAgentMap = new HashMap<>();
-
+        if (applicationProperties.getStreams().isEnabled()) {
+            // the Kafka Streams topology routes by its own process catalog and has no bindings to switch
+            return;
+        }
         final List<ProcessDTO> newProcesses = loadProcesses();
         if (newProcesses == null) {
             return;
         }
+        final RoutingSnapshot oldSnapshot = snapshot;
+        final RoutingSnapshot newSnapshot = RoutingSnapshot.of(oldSnapshot.getVersion() + 1, System.currentTimeMillis(), newProcesses);
+        final List<CompletableFuture<Boolean>> switches = new ArrayList<>();
         for (ProcessDTO process: newProcesses) {
             final String processKey = process.getKey();
-            // (1) Build the map of process keys to paused bucket keys
+            // (0) Are there any new agents or buckets?
+            if (process.getAgentKey() != null) {
+                dynamicBindingRegistrar.ensureAgent(process.getAgentKey());
+                final List<String> eligibleAgents = applicationProperties.getAgentSelection().getEligibleAgents().get(process.getAgentKey());
+                if (eligibleAgents != null) {
+                    eligibleAgents.forEach(dynamicBindingRegistrar::ensureAgent);
+                }
+            }
+            if (process.getBucketKeyIfPaused() != null) {
+                dynamicBindingRegistrar.ensureBucket(process.getBucketKeyIfPaused());
+            }
+            // (1) Log the paused processes
             if (process.getActivation() == ActivationEnum.PAUSED) {
                 LOGGER.info("<-> {} IS-PAUSED with bucket='{}' and agent='{}'",
                     processKey, process.getBucketKeyIfPaused(), process.getAgentKey());
-                newPausedMap.put(processKey, process.getBucketKeyIfPaused());
                 // (2) Are there any processes to be switched from ACTIVE to PAUSED?
-                if (!pausedMap.containsKey(processKey)) {
+                if (oldSnapshot.getPausedBucketKey(oldSnapshot.indexOf(processKey)) == null) {
                     final String bucketKey = process.getBucketKeyIfPaused();
                     LOGGER.info("<-> SWITCHING {} from ACTIVE to PAUSED with bucket='{}'", processKey, bucketKey);
-                    boolean paused = switchOnOff.changeStateToPausedForProcessResume(bucketKey, true);
-                    if (!paused) {
-                        LOGGER.error("<-> SWITCHING {} from ACTIVE to PAUSED with bucket='{}' FAILED!", processKey, bucketKey);
-                    }
+                    switches.add(switchOnOff.changeStateToPausedForProcessResumeAsync(bucketKey, true)
+                        .handle((paused, throwable) -> {
+                            if (throwable != null || !paused) {
+                                LOGGER.error("<-> SWITCHING {} from ACTIVE to PAUSED with bucket='{}' FAILED!", processKey, bucketKey);
+                            }
+                            return paused;
+                        }));
                 }
             }
-            // (3) Build the map of process keys to agent keys
-            newAgentMap.put(processKey, process.getAgentKey());
         }
 
-        for (Map.Entry<String, String> kv: pausedMap.entrySet()) {
+        for (Map.Entry<String, String> kv: oldSnapshot.getPausedBucketKeys().entrySet()) {
             final String processKey = kv.getKey();
-            // (4) Are there any processes to be switched from PAUSED to ACTIVE?
-            if (!newPausedMap.containsKey(processKey)) {
+            // (3) Are there any processes to be switched from PAUSED to ACTIVE?
+            if (newSnapshot.getPausedBucketKey(newSnapshot.indexOf(processKey)) == null) {
                 final String bucketKey = kv.getValue();
                 LOGGER.info("<-> SWITCHING {} from PAUSED with bucket '{}' to ACTIVE", processKey,bucketKey);
-                boolean paused = switchOnOff.changeStateToPausedForProcessResume(bucketKey, false);
-                if (paused) {
-                    LOGGER.error("<-> SWITCHING {} from PAUSED with bucket '{}' to ACTIVE FAILED!", processKey, bucketKey);
-                }
+                switches.add(switchOnOff.changeStateToPausedForProcessResumeAsync(bucketKey, false)
+                    .handle((paused, throwable) -> {
+                        if (throwable != null || paused) {
+                            LOGGER.error("<-> SWITCHING {} from PAUSED with bucket '{}' to ACTIVE FAILED!", processKey, bucketKey);
+                        }
+                        return paused;
+                    }));
             }
         }
 
-        pausedMap = newPausedMap;
-        agentMap = newAgentMap;
+        // The buckets are switched in parallel. The new snapshot is published, when they are switched.
+        awaitSwitches(switches);
+
+        // (4) Publish the new snapshot
+        snapshot = newSnapshot;
+
+        // (5) Re-emit the parked jobs of active processes
+        parkingService.resumeActive(newSnapshot);
+    }
+
+    private void awaitSwitches(List<CompletableFuture<Boolean>> switches) {
+
+        if (switches.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(switches.toArray(new CompletableFuture[0])).get(SWITCH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.error("<-> SWITCHING of {} buckets not finished within {}!", switches.size(), SWITCH_TIMEOUT);
+        }
+    }
+
+    /**
+     * Return the current routing snapshot. A caller, that needs more than one routing decision for a job, should
+     * use the same snapshot for all of them.
+     */
+    public RoutingSnapshot getSnapshot() {
+        return snapshot;
     }
 
     // null = not paused, != null key of bucket
     public String getBucketIfProcessPaused(String processKey) {
 
-        return pausedMap.get(processKey);
+        final RoutingSnapshot current = snapshot;
+        return current.getPausedBucketKey(current.indexOf(processKey));
     }
 
     public String getAgentKeyForProcess(String processKey) {
 
-        final String ret = agentMap.get(processKey);
+        final RoutingSnapshot current = snapshot;
+        final String ret = current.getAgentKey(current.indexOf(processKey));
         if (ret == null) {
             LOGGER.error("No agent found for processKey='{}'", processKey);
         }
+        return selectAgent(ret);
+    }
+
+    /**
+     * Select the agent for a job, which is the agent of its process or a less loaded eligible agent.
+     *
+     * @param agentKey the agent key of the process from the routing snapshot
+     * @return the agent key, to which the job is scheduled
+     */
+    public String selectAgent(String agentKey) {
+
+        final String ret = agentLoadService.select(agentKey);
+        agentLoadService.scheduled(ret);
         return ret;
     }
 
+    private double getSnapshotAgeSeconds() {
+
+        final RoutingSnapshot current = snapshot;
+        return current == RoutingSnapshot.EMPTY ? Double.NaN : (System.currentTimeMillis() - current.getCreatedAtMillis()) / 1000.0;
+    }
+
     protected List<ProcessDTO> loadProcesses() {
 
         try {
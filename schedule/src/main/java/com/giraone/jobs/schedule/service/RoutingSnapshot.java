@@ -0,0 +1,108 @@
+package com.giraone.jobs.schedule.service;
+
+import com.giraone.jobs.schedule.model.ActivationEnum;
+import com.giraone.jobs.schedule.model.ProcessDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable routing state of all processes: the agent key and - if paused - the bucket key of each process.
+ * The processes are numbered densely in the order of the catalog, so after one lookup of the process index,
+ * all routing decisions are array accesses. A snapshot is never changed after creation, so it can be read by any
+ * number of consumer threads without locking. Each reload publishes a new snapshot with a higher version.
+ */
+public final class RoutingSnapshot {
+
+    public static final RoutingSnapshot EMPTY = new RoutingSnapshot(0L, 0L, Map.of(), new String[0], new String[0]);
+
+    private final long version;
+    private final long createdAtMillis;
+    private final Map<String, Integer> indexByProcessKey;
+    private final String[] agentKeys;
+    // null = process is not paused
+    private final String[] pausedBucketKeys;
+
+    private RoutingSnapshot(long version, long createdAtMillis, Map<String, Integer> indexByProcessKey,
+                            String[] agentKeys, String[] pausedBucketKeys) {
+        this.version = version;
+        this.createdAtMillis = createdAtMillis;
+        this.indexByProcessKey = indexByProcessKey;
+        this.agentKeys = agentKeys;
+        this.pausedBucketKeys = pausedBucketKeys;
+    }
+
+    /**
+     * Create a snapshot from the process catalog. For duplicate process keys, the last entry wins.
+     */
+    public static RoutingSnapshot of(long version, long createdAtMillis, List<ProcessDTO> processes) {
+
+        final Map<String, Integer> indexByProcessKey = new HashMap<>();
+        final String[] agentKeys = new String[processes.size()];
+        final String[] pausedBucketKeys = new String[processes.size()];
+        for (ProcessDTO process : processes) {
+            final int index = indexByProcessKey.computeIfAbsent(process.getKey(), key -> indexByProcessKey.size());
+            agentKeys[index] = process.getAgentKey();
+            pausedBucketKeys[index] = process.getActivation() == ActivationEnum.PAUSED ? process.getBucketKeyIfPaused() : null;
+        }
+        return new RoutingSnapshot(version, createdAtMillis, Map.copyOf(indexByProcessKey), agentKeys, pausedBucketKeys);
+    }
+
+    /**
+     * @return the dense index of the process or -1, if the process is unknown
+     */
+    public int indexOf(String processKey) {
+        final Integer index = processKey != null ? indexByProcessKey.get(processKey) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the agent key of the process with the given index or null, if the index is -1
+     */
+    public String getAgentKey(int processIndex) {
+        return processIndex >= 0 ? agentKeys[processIndex] : null;
+    }
+
+    /**
+     * @return the bucket key of the paused process with the given index or null, if the process is not paused
+     */
+    public String getPausedBucketKey(int processIndex) {
+        return processIndex >= 0 ? pausedBucketKeys[processIndex] : null;
+    }
+
+    /**
+     * @return the map of the keys of all paused processes to their bucket keys
+     */
+    public Map<String, String> getPausedBucketKeys() {
+
+        final Map<String, String> ret = new HashMap<>();
+        indexByProcessKey.forEach((processKey, index) -> {
+            if (pausedBucketKeys[index] != null) {
+                ret.put(processKey, pausedBucketKeys[index]);
+            }
+        });
+        return ret;
+    }
+
+    public int size() {
+        return indexByProcessKey.size();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingSnapshot{" +
+            "version=" + version +
+            ", createdAtMillis=" + createdAtMillis +
+            ", processes=" + indexByProcessKey.size() +
+            '}';
+    }
+}
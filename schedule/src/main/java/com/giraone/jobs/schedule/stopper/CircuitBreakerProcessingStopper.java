@@ -0,0 +1,277 @@
+package com.giraone.jobs.schedule.stopper;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker stopper. The calls are counted in a sliding window, that is a ring buffer of time buckets. A bucket
+ * is replaced (compare and set), when its time is over, so recording a call needs no lock.
+ * <ul>
+ *     <li>CLOSED: stops, when the window contains the minimum number of calls and the failure rate or the rate of
+ *     slow calls reaches its threshold.</li>
+ *     <li>OPEN: the processor is stopped. After the wait duration, {@link #checkRestart()} returns true, so the
+ *     processor is started again.</li>
+ *     <li>HALF_OPEN: the permitted number of calls probe the downstream. If their rates are below the thresholds, the
+ *     stopper is CLOSED again with an empty window, otherwise it stops again.</li>
+ * </ul>
+ */
+public class CircuitBreakerProcessingStopper implements ProcessingStopper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerProcessingStopper.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ApplicationProperties.CircuitBreaker circuitBreaker;
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAtMillis;
+
+    // total
+    private final AtomicLong numberOfErrorTotal = new AtomicLong();
+    private final AtomicLong numberOfSuccessTotal = new AtomicLong();
+    // calls in state HALF_OPEN
+    private final AtomicInteger probeCalls = new AtomicInteger();
+    private final AtomicInteger probeFailures = new AtomicInteger();
+    private final AtomicInteger probeSlowCalls = new AtomicInteger();
+
+    public CircuitBreakerProcessingStopper(ApplicationProperties.CircuitBreaker circuitBreaker) {
+        this(circuitBreaker, System::currentTimeMillis);
+    }
+
+    CircuitBreakerProcessingStopper(ApplicationProperties.CircuitBreaker circuitBreaker, LongSupplier clock) {
+        this.circuitBreaker = circuitBreaker;
+        this.clock = clock;
+        this.buckets = new AtomicReferenceArray<>(circuitBreaker.getWindowBuckets());
+    }
+
+    @Override
+    public void reset() {
+
+        numberOfErrorTotal.set(0L);
+        numberOfSuccessTotal.set(0L);
+        clearWindow();
+        state.set(State.CLOSED);
+    }
+
+    @Override
+    public boolean addErrorAndCheckStop() {
+
+        numberOfErrorTotal.incrementAndGet();
+        return addCallAndCheckStop(true, 0L);
+    }
+
+    @Override
+    public boolean addSuccessAndCheckResume() {
+        addSuccessAndCheckStop(0L);
+        return false;
+    }
+
+    @Override
+    public boolean addSuccessAndCheckStop(long durationMillis) {
+
+        numberOfSuccessTotal.incrementAndGet();
+        return addCallAndCheckStop(false, durationMillis);
+    }
+
+    @Override
+    public boolean checkRestart() {
+
+        if (state.get() == State.OPEN && clock.getAsLong() - openedAtMillis >= circuitBreaker.getWaitInOpenStateMs()) {
+            probeCalls.set(0);
+            probeFailures.set(0);
+            probeSlowCalls.set(0);
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                LOGGER.info("### HALF_OPEN after {} ms - probing with {} calls.", circuitBreaker.getWaitInOpenStateMs(),
+                    circuitBreaker.getPermittedCallsInHalfOpenState());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    @Override
+    public String dumpStatus() {
+        final WindowCounts counts = countWindow();
+        return "CircuitBreakerProcessingStopper.status={" +
+            "state=" + state.get() +
+            ", errorTotal=" + numberOfErrorTotal +
+            ", successTotal=" + numberOfSuccessTotal +
+            ", windowCalls=" + counts.calls +
+            ", windowFailures=" + counts.failures +
+            ", windowSlowCalls=" + counts.slowCalls +
+            '}';
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        final WindowCounts counts = countWindow();
+        return Map.of(
+            "success_total", numberOfSuccessTotal.get(),
+            "error_total", numberOfErrorTotal.get(),
+            "state", state.get().name(),
+            "window_calls", counts.calls,
+            "window_failure_rate", counts.rate(counts.failures),
+            "window_slow_call_rate", counts.rate(counts.slowCalls),
+            "window_average_latency_ms", counts.calls > 0L ? counts.latencyMillis / counts.calls : 0L
+        );
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private boolean addCallAndCheckStop(boolean failure, long durationMillis) {
+
+        final boolean slow = !failure && durationMillis >= circuitBreaker.getSlowCallDurationMs();
+        final State current = state.get();
+        if (current == State.OPEN) {
+            // records, that were polled before the stop
+            return false;
+        }
+        if (current == State.HALF_OPEN) {
+            return addProbeAndCheckStop(failure, slow);
+        }
+        final long nowMillis = clock.getAsLong();
+        final Bucket bucket = bucket(nowMillis);
+        bucket.calls.incrementAndGet();
+        bucket.latencyMillis.addAndGet(durationMillis);
+        if (failure) {
+            bucket.failures.incrementAndGet();
+        }
+        if (slow) {
+            bucket.slowCalls.incrementAndGet();
+        }
+        final WindowCounts counts = countWindow();
+        if (counts.calls < circuitBreaker.getMinimumNumberOfCalls()) {
+            return false;
+        }
+        final double failureRate = counts.rate(counts.failures);
+        final double slowCallRate = counts.rate(counts.slowCalls);
+        if (!isAboveThreshold(failureRate, slowCallRate)) {
+            return false;
+        }
+        if (!open(nowMillis, State.CLOSED)) {
+            return false;
+        }
+        LOGGER.warn("### STOPPED with failure rate {}% and slow call rate {}% of {} calls!", failureRate, slowCallRate, counts.calls);
+        return true;
+    }
+
+    private boolean addProbeAndCheckStop(boolean failure, boolean slow) {
+
+        if (failure) {
+            probeFailures.incrementAndGet();
+        }
+        if (slow) {
+            probeSlowCalls.incrementAndGet();
+        }
+        final int permittedCalls = circuitBreaker.getPermittedCallsInHalfOpenState();
+        // the last permitted call decides - the calls after it are counted in the next state
+        if (probeCalls.incrementAndGet() != permittedCalls) {
+            return false;
+        }
+        final double failureRate = 100.0 * probeFailures.get() / permittedCalls;
+        final double slowCallRate = 100.0 * probeSlowCalls.get() / permittedCalls;
+        if (isAboveThreshold(failureRate, slowCallRate)) {
+            if (open(clock.getAsLong(), State.HALF_OPEN)) {
+                LOGGER.warn("### STOPPED again with failure rate {}% and slow call rate {}% of {} probes!", failureRate, slowCallRate, permittedCalls);
+                return true;
+            }
+            return false;
+        }
+        clearWindow();
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            LOGGER.info("### CLOSED with failure rate {}% and slow call rate {}% of {} probes.", failureRate, slowCallRate, permittedCalls);
+        }
+        return false;
+    }
+
+    private boolean isAboveThreshold(double failureRate, double slowCallRate) {
+        return failureRate >= circuitBreaker.getFailureRateThreshold()
+            || slowCallRate >= circuitBreaker.getSlowCallRateThreshold();
+    }
+
+    private boolean open(long nowMillis, State expected) {
+        openedAtMillis = nowMillis;
+        return state.compareAndSet(expected, State.OPEN);
+    }
+
+    // the bucket of the current time - a bucket of an older time is replaced by an empty one
+    private Bucket bucket(long nowMillis) {
+
+        final long epoch = nowMillis / circuitBreaker.getBucketMs();
+        final int index = (int) (epoch % buckets.length());
+        while (true) {
+            final Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epoch == epoch) {
+                return bucket;
+            }
+            final Bucket newBucket = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, newBucket)) {
+                return newBucket;
+            }
+        }
+    }
+
+    private WindowCounts countWindow() {
+
+        final long oldestEpoch = clock.getAsLong() / circuitBreaker.getBucketMs() - buckets.length() + 1;
+        final WindowCounts counts = new WindowCounts();
+        for (int i = 0; i < buckets.length(); i++) {
+            final Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch >= oldestEpoch) {
+                counts.calls += bucket.calls.get();
+                counts.failures += bucket.failures.get();
+                counts.slowCalls += bucket.slowCalls.get();
+                counts.latencyMillis += bucket.latencyMillis.get();
+            }
+        }
+        return counts;
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, null);
+        }
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong slowCalls = new AtomicLong();
+        private final AtomicLong latencyMillis = new AtomicLong();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class WindowCounts {
+
+        private long calls;
+        private long failures;
+        private long slowCalls;
+        private long latencyMillis;
+
+        private double rate(long count) {
+            return calls > 0L ? 100.0 * count / calls : 0.0;
+        }
+    }
+}
@@ -10,6 +10,25 @@ public interface ProcessingStopper {
 
     boolean addSuccessAndCheckResume();
 
+    /**
+     * Add a success with the duration of its processing.
+     *
+     * @return true, if the processor has to be stopped, e.g. because of too many slow calls
+     */
+    default boolean addSuccessAndCheckStop(long durationMillis) {
+        addSuccessAndCheckResume();
+        return false;
+    }
+
+    /**
+     * Called periodically for a stopped processor.
+     *
+     * @return true, if the processor has to be started again, e.g. to probe, whether the downstream works again
+     */
+    default boolean checkRestart() {
+        return false;
+    }
+
     String dumpStatus();
 
     Map<String, Object> getStatus();
@@ -7,74 +7,134 @@ import org.springframework.cloud.stream.binding.BindingsLifecycleController;
 import org.springframework.cloud.stream.endpoint.BindingsEndpoint;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Start, stop, pause and resume the consumer bindings of the processors. The bindings, that are configured in
+ * {@code application.yml}, are controlled by the {@link BindingsEndpoint}. The bindings, that are created at runtime
+ * (see {@link #registerBinding}), are not known to the endpoint and are controlled directly.
+ * <p>
+ * The transitions are performed asynchronously by a small pool of threads. The transitions of one binding are
+ * performed one after the other in the order of the calls, the transitions of different bindings in parallel. Only
+ * the chaining of the transitions is kept - the state is always read from the binding, because it is also changed by
+ * others, e.g. by the actuator endpoint or by a container, that stops itself.
+ * </p>
+ */
 @Service
 public class SwitchOnOff {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SwitchOnOff.class);
 
+    private static final int THREADS = 4;
+    private static final long TIMEOUT_SECONDS = 30L;
+
+    public enum BindingState {
+        STOPPED,
+        RUNNING,
+        PAUSED;
+
+        static BindingState of(Binding<?> binding) {
+            return !binding.isRunning() ? STOPPED : binding.isPaused() ? PAUSED : RUNNING;
+        }
+    }
+
+    private enum Transition {
+        START,
+        STOP,
+        PAUSE,
+        RESUME
+    }
+
     private final BindingsEndpoint bindingsEndpoint;
+    // consumer bindings created at runtime by binding name
+    private final Map<String, Binding<?>> dynamicBindings = new ConcurrentHashMap<>();
+    // the last transition of each binding by binding name - the next transition is chained to it
+    private final Map<String, CompletableFuture<BindingState>> transitions = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
 
     public SwitchOnOff(BindingsEndpoint bindingsEndpoint) {
         this.bindingsEndpoint = bindingsEndpoint;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "switch-on-off-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    public boolean changeStateToPaused(String processorName, boolean paused) {
-
-        final String bindingNameConsumer = processorName + "-in-0";
-        Binding<?> state = bindingsEndpoint.queryState(bindingNameConsumer);
-        if (state == null) {
-            throw new IllegalArgumentException("bindingNameConsumer \"" + bindingNameConsumer + "\" + wrong. No state!");
-        }
+    public void registerBinding(String processorName, Binding<?> binding) {
+        dynamicBindings.put(processorName + "-in-0", binding);
+    }
 
-        if (!state.isRunning()) {
-                LOGGER.info("~~~ STARTING ~~~~~~~~ {}", bindingNameConsumer);
-            bindingsEndpoint.changeState(bindingNameConsumer, BindingsLifecycleController.State.STARTED);
-            try {
-                Thread.sleep(2000L);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+    public boolean hasBinding(String processorName) {
+        return queryState(processorName + "-in-0") != null;
+    }
 
-        state = bindingsEndpoint.queryState(bindingNameConsumer);
+    /**
+     * Pause or resume a processor. A stopped processor is started before.
+     *
+     * @return a future with true, if the processor is paused after the transition
+     */
+    public CompletableFuture<Boolean> changeStateToPausedAsync(String processorName, boolean paused) {
 
-        if (paused) {
-            if (!state.isPaused()) {
-                LOGGER.info("~~~ PAUSING ~~~~~~~~~ {}", bindingNameConsumer);
-                bindingsEndpoint.changeState(bindingNameConsumer, BindingsLifecycleController.State.PAUSED);
+        return transition(processorName + "-in-0", paused ? Transition.PAUSE : Transition.RESUME)
+            .thenApply(state -> state == BindingState.PAUSED);
+    }
 
-            } else {
-                LOGGER.warn("~~~ Attempt to PAUSE  {}, but is running={}, paused={}", bindingNameConsumer, state.isRunning(), state.isPaused());
-            }
-        } else {
-            if (state.isPaused()) {
-                LOGGER.info("~~~ RESUMING ~~~~~~~~ {}", bindingNameConsumer);
-                bindingsEndpoint.changeState(bindingNameConsumer, BindingsLifecycleController.State.RESUMED);
-            } else {
-                LOGGER.warn("~~~ Attempt to RESUME {}, but is running={}, paused={}", bindingNameConsumer, state.isRunning(), state.isPaused());
-            }
-        }
-        final Binding<?> newState = bindingsEndpoint.queryState(bindingNameConsumer);
-                LOGGER.info("~~~ NEW-STATE ~~~~~~~ {}: running={}, paused={}", bindingNameConsumer, newState.isRunning(), newState.isPaused());
-        return newState.isPaused();
+    /**
+     * Pause or resume a processor and wait for the transition.
+     *
+     * @return true, if the processor is paused after the transition
+     */
+    public boolean changeStateToPaused(String processorName, boolean paused) {
+        return await(changeStateToPausedAsync(processorName, paused));
     }
 
     public boolean isRunning(String processorName) {
-
-        final String bindingNameConsumer = processorName + "-in-0";
-        Binding<?> state = bindingsEndpoint.queryState(bindingNameConsumer);
-        return state.isRunning();
+        return getState(processorName) != BindingState.STOPPED;
     }
 
     public boolean isPaused(String processorName) {
+        return getState(processorName) == BindingState.PAUSED;
+    }
+
+    /**
+     * @return the current state of the binding
+     */
+    public BindingState getState(String processorName) {
+        return BindingState.of(queryState(processorName + "-in-0"));
+    }
 
-        final String bindingNameConsumer = processorName + "-in-0";
-        Binding<?> state = bindingsEndpoint.queryState(bindingNameConsumer);
-        return state.isPaused();
+    /**
+     * Stop the processor, e.g. after too many errors. The processor is stopped asynchronously.
+     */
+    public void stop(String processorName) {
+        transition(processorName + "-in-0", Transition.STOP);
+    }
+
+    /**
+     * Start a stopped processor again, e.g. to probe, whether the downstream works again. The processor is started
+     * asynchronously.
+     */
+    public void start(String processorName) {
+        transition(processorName + "-in-0", Transition.START);
     }
 
     //--- short cuts for processResume ---
 
+    public CompletableFuture<Boolean> changeStateToPausedForProcessResumeAsync(String bucketPausedKey, boolean paused) {
+        return changeStateToPausedAsync("processResume" + bucketPausedKey, paused);
+    }
+
     public boolean changeStateToPausedForProcessResume(String bucketPausedKey, boolean paused) {
         return changeStateToPaused("processResume" + bucketPausedKey, paused);
     }
@@ -86,4 +146,104 @@ public class SwitchOnOff {
     public boolean isPausedForProcessResume(String bucketPausedKey) {
         return isPaused("processResume" + bucketPausedKey);
     }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    @PreDestroy
+    private void destroy() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<BindingState> transition(String bindingNameConsumer, Transition transition) {
+
+        return transitions.compute(bindingNameConsumer, (name, previous) -> {
+            final CompletableFuture<BindingState> ready = previous == null
+                ? CompletableFuture.completedFuture(null)
+                : previous.handle((state, throwable) -> state);
+            return ready.thenApplyAsync(state -> perform(name, transition), executor)
+                .whenComplete((state, throwable) -> {
+                    if (throwable != null) {
+                        LOGGER.error("~~~ {} of {} FAILED!", transition, name, throwable);
+                    }
+                });
+        });
+    }
+
+    private BindingState perform(String bindingNameConsumer, Transition transition) {
+
+        final Binding<?> binding = queryState(bindingNameConsumer);
+        if (binding == null) {
+            throw new IllegalArgumentException("bindingNameConsumer \"" + bindingNameConsumer + "\" + wrong. No state!");
+        }
+        BindingState state = BindingState.of(binding);
+        if (transition == Transition.STOP) {
+            if (state != BindingState.STOPPED) {
+                LOGGER.info("~~~ STOPPING ~~~~~~~~ {}", bindingNameConsumer);
+                changeState(bindingNameConsumer, BindingsLifecycleController.State.STOPPED);
+            }
+        } else {
+            if (state == BindingState.STOPPED) {
+                LOGGER.info("~~~ STARTING ~~~~~~~~ {}", bindingNameConsumer);
+                changeState(bindingNameConsumer, BindingsLifecycleController.State.STARTED);
+                state = BindingState.of(queryState(bindingNameConsumer));
+            }
+            if (transition == Transition.PAUSE) {
+                if (state != BindingState.PAUSED) {
+                    LOGGER.info("~~~ PAUSING ~~~~~~~~~ {}", bindingNameConsumer);
+                    changeState(bindingNameConsumer, BindingsLifecycleController.State.PAUSED);
+                } else {
+                    LOGGER.warn("~~~ Attempt to PAUSE  {}, but is {}", bindingNameConsumer, state);
+                }
+            } else if (transition == Transition.RESUME) {
+                if (state == BindingState.PAUSED) {
+                    LOGGER.info("~~~ RESUMING ~~~~~~~~ {}", bindingNameConsumer);
+                    changeState(bindingNameConsumer, BindingsLifecycleController.State.RESUMED);
+                } else {
+                    LOGGER.warn("~~~ Attempt to RESUME {}, but is {}", bindingNameConsumer, state);
+                }
+            }
+        }
+        final BindingState newState = BindingState.of(queryState(bindingNameConsumer));
+        LOGGER.info("~~~ NEW-STATE ~~~~~~~ {}: {}", bindingNameConsumer, newState);
+        return newState;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Binding<?> queryState(String bindingNameConsumer) {
+
+        final Binding<?> dynamicBinding = dynamicBindings.get(bindingNameConsumer);
+        return dynamicBinding != null ? dynamicBinding : bindingsEndpoint.queryState(bindingNameConsumer);
+    }
+
+    private void changeState(String bindingNameConsumer, BindingsLifecycleController.State state) {
+
+        final Binding<?> dynamicBinding = dynamicBindings.get(bindingNameConsumer);
+        if (dynamicBinding == null) {
+            bindingsEndpoint.changeState(bindingNameConsumer, state);
+            return;
+        }
+        switch (state) {
+            case STARTED -> dynamicBinding.start();
+            case STOPPED -> dynamicBinding.stop();
+            case PAUSED -> dynamicBinding.pause();
+            case RESUMED -> dynamicBinding.resume();
+            default -> throw new IllegalArgumentException("State " + state + " is not supported!");
+        }
+    }
 }
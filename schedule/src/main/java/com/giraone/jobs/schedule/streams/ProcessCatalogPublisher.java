@@ -0,0 +1,75 @@
+package com.giraone.jobs.schedule.streams;
+
+import com.giraone.jobs.schedule.clients.JobAdminClient;
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.model.ProcessDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the process catalog from the jobadmin service periodically and writes the changed processes to the compacted
+ * catalog topic, which is read by the Kafka Streams topology into a global state store. Removed processes are
+ * written as tombstones.
+ */
+public class ProcessCatalogPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessCatalogPublisher.class);
+
+    private final JobAdminClient jobAdminClient;
+    private final ApplicationProperties applicationProperties;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    // the last published value per process key
+    private final Map<String, byte[]> published = new HashMap<>();
+
+    public ProcessCatalogPublisher(JobAdminClient jobAdminClient, ApplicationProperties applicationProperties,
+                                   KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.jobAdminClient = jobAdminClient;
+        this.applicationProperties = applicationProperties;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @Scheduled(fixedRateString = "${application.loadProcessStatus.fixedRateMs}", initialDelayString = "${application.loadProcessStatus.initialDelayMs}")
+    public synchronized void scheduleReload() {
+
+        final List<ProcessDTO> processes;
+        try {
+            processes = jobAdminClient.getProcesses().collectList()
+                .block(Duration.ofSeconds(applicationProperties.getJobAdminBlockMaxSeconds()));
+        } catch (Exception e) {
+            LOGGER.error("Cannot load processes: {}", e.getMessage());
+            return;
+        }
+        if (processes == null) {
+            return;
+        }
+        final String topic = applicationProperties.getStreams().getTopicProcessCatalog();
+        final HashSet<String> removed = new HashSet<>(published.keySet());
+        int changed = 0;
+        for (ProcessDTO process : processes) {
+            removed.remove(process.getKey());
+            final byte[] value = SchedulingTopology.serialize(process);
+            if (!Arrays.equals(value, published.get(process.getKey()))) {
+                kafkaTemplate.send(topic, process.getKey(), value);
+                published.put(process.getKey(), value);
+                changed++;
+            }
+        }
+        for (String processKey : removed) {
+            kafkaTemplate.send(topic, processKey, null);
+            published.remove(processKey);
+        }
+        if (changed > 0 || !removed.isEmpty()) {
+            LOGGER.info("<-> Published {} changed and {} removed processes to topic \"{}\".", changed, removed.size(), topic);
+        }
+    }
+}
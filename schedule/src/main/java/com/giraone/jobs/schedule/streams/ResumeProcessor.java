@@ -0,0 +1,166 @@
+package com.giraone.jobs.schedule.streams;
+
+import com.giraone.jobs.events.JobPausedEvent;
+import com.giraone.jobs.events.JobScheduledEvent;
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.model.ProcessDTO;
+import com.giraone.jobs.schedule.streams.SchedulingTopology.Routed;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Resume of paused jobs in the Kafka Streams topology. A job of a process, that is still paused, is parked in a state
+ * store, instead of pausing the consumer of the bucket topic. The processes of the parked jobs are checked against the
+ * process catalog in a fixed interval. The parked jobs are keyed by "{processKey}\0{messageKey}", so only the jobs of
+ * a process, that is active again, are read by a prefix scan and forwarded to their agent - at most resumeChunkSize
+ * jobs per check, the rest in the next checks. Jobs of a process, that is not in the catalog, are sent to the error
+ * topic.
+ */
+class ResumeProcessor implements Processor<String, byte[], String, Routed> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumeProcessor.class);
+
+    // a character, that is not used in process keys
+    private static final char KEY_SEPARATOR = '\0';
+    private static final StringSerializer PREFIX_SERIALIZER = new StringSerializer();
+
+    private final ApplicationProperties.Topics topics;
+    private final Duration resumeInterval;
+    private final int resumeChunkSize;
+
+    private ProcessorContext<String, Routed> context;
+    private TimestampedKeyValueStore<String, ProcessDTO> processCatalog;
+    private KeyValueStore<String, byte[]> parkedJobs;
+    // the processes with parked jobs
+    private final Set<String> parkedProcessKeys = new HashSet<>();
+
+    ResumeProcessor(ApplicationProperties.Topics topics, Duration resumeInterval, int resumeChunkSize) {
+        this.topics = topics;
+        this.resumeInterval = resumeInterval;
+        this.resumeChunkSize = resumeChunkSize;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, Routed> context) {
+        this.context = context;
+        this.processCatalog = context.getStateStore(SchedulingTopology.STORE_processCatalog);
+        this.parkedJobs = context.getStateStore(SchedulingTopology.STORE_parkedJobs);
+        // the keys of a restored store - the values are not read
+        try (KeyValueIterator<String, byte[]> iterator = parkedJobs.all()) {
+            while (iterator.hasNext()) {
+                final String parkedKey = iterator.next().key;
+                final int separatorIndex = parkedKey.indexOf(KEY_SEPARATOR);
+                if (separatorIndex >= 0) {
+                    parkedProcessKeys.add(parkedKey.substring(0, separatorIndex));
+                } else {
+                    LOGGER.warn(">>> IGNORING      parked job {} without process key", parkedKey);
+                }
+            }
+        }
+        context.schedule(resumeInterval, PunctuationType.WALL_CLOCK_TIME, this::resumeParkedJobs);
+    }
+
+    @Override
+    public void process(Record<String, byte[]> record) {
+
+        final Routed routed;
+        try {
+            routed = resumeOrPark(record.key(), record.value());
+        } catch (Exception e) {
+            context.forward(record.withValue(Routed.error(topics.getTopicJobPausedErr(), record.key(), record.value(), e)));
+            return;
+        }
+        if (routed != null) {
+            context.forward(record.withValue(routed));
+        }
+    }
+
+    void resumeParkedJobs(long timestamp) {
+
+        int remaining = resumeChunkSize;
+        final Iterator<String> processKeys = parkedProcessKeys.iterator();
+        while (processKeys.hasNext() && remaining > 0) {
+            final String processKey = processKeys.next();
+            final ProcessDTO process = ValueAndTimestamp.getValueOrNull(processCatalog.get(processKey));
+            if (process != null && SchedulingTopology.isPaused(process)) {
+                continue;
+            }
+            final int resumed = resumeParkedJobs(processKey, process, remaining, timestamp);
+            if (resumed < remaining) {
+                processKeys.remove();
+            }
+            remaining -= resumed;
+            LOGGER.info(">>> RESUMED {} parked jobs of {}", resumed, processKey);
+        }
+    }
+
+    // the number of forwarded jobs - less than maxJobs, if all parked jobs of the process are forwarded
+    private int resumeParkedJobs(String processKey, ProcessDTO process, int maxJobs, long timestamp) {
+
+        int resumed = 0;
+        try (KeyValueIterator<String, byte[]> iterator = parkedJobs.prefixScan(processKey + KEY_SEPARATOR, PREFIX_SERIALIZER)) {
+            while (resumed < maxJobs && iterator.hasNext()) {
+                final KeyValue<String, byte[]> parkedJob = iterator.next();
+                final String messageKey = parkedJob.key.substring(processKey.length() + 1);
+                Routed routed;
+                try {
+                    final JobPausedEvent jobPausedEvent = SchedulingTopology.deserialize(parkedJob.value, JobPausedEvent.class);
+                    routed = schedule(messageKey, jobPausedEvent, requireKnown(processKey, process));
+                } catch (Exception e) {
+                    routed = Routed.error(topics.getTopicJobPausedErr(), messageKey, parkedJob.value, e);
+                }
+                // deleted not before it is forwarded
+                context.forward(new Record<>(messageKey, routed, timestamp));
+                parkedJobs.delete(parkedJob.key);
+                resumed++;
+            }
+        }
+        return resumed;
+    }
+
+    // null, if the job is parked
+    private Routed resumeOrPark(String messageKey, byte[] value) {
+
+        final JobPausedEvent jobPausedEvent = SchedulingTopology.deserialize(value, JobPausedEvent.class);
+        final String processKey = jobPausedEvent.getProcessKey();
+        final ProcessDTO process = requireKnown(processKey, ValueAndTimestamp.getValueOrNull(processCatalog.get(processKey)));
+        if (SchedulingTopology.isPaused(process)) {
+            LOGGER.debug(">>> KEEPING       {} of {}", messageKey, processKey);
+            parkedJobs.put(processKey + KEY_SEPARATOR + messageKey, value);
+            parkedProcessKeys.add(processKey);
+            return null;
+        }
+        return schedule(messageKey, jobPausedEvent, process);
+    }
+
+    // a job of an unknown process would be parked forever, so it is sent to the error topic, like in schedule
+    private static ProcessDTO requireKnown(String processKey, ProcessDTO process) {
+
+        if (process == null) {
+            throw new IllegalStateException("Process '" + processKey + "' is not in the process catalog!");
+        }
+        return process;
+    }
+
+    private Routed schedule(String messageKey, JobPausedEvent jobPausedEvent, ProcessDTO process) {
+
+        LOGGER.info(">>> RE-SCHEDULING {} of {} to agent '{}'", messageKey, process.getKey(), process.getAgentKey());
+        return Routed.of(topics.getTopicJobScheduled(process.getAgentKey()),
+            new JobScheduledEvent(jobPausedEvent, process.getAgentKey()));
+    }
+}
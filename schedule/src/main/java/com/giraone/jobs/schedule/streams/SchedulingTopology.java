@@ -0,0 +1,217 @@
+package com.giraone.jobs.schedule.streams;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.giraone.jobs.common.ObjectMapperBuilder;
+import com.giraone.jobs.events.AbstractAssignedJobEvent;
+import com.giraone.jobs.events.AbstractJobEvent;
+import com.giraone.jobs.events.JobAcceptedEvent;
+import com.giraone.jobs.events.JobCompletedEvent;
+import com.giraone.jobs.events.JobFailedEvent;
+import com.giraone.jobs.events.JobPausedEvent;
+import com.giraone.jobs.events.JobScheduledEvent;
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.exceptions.DocumentedErrorOutput;
+import com.giraone.jobs.schedule.model.ActivationEnum;
+import com.giraone.jobs.schedule.model.ProcessDTO;
+import com.giraone.jobs.schedule.processor.ProcessorAgent;
+import com.giraone.jobs.schedule.processor.ProcessorNotify;
+import com.giraone.jobs.schedule.processor.RoutingHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.GlobalKTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.TopicNameExtractor;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * The Kafka Streams alternative to the functions of the {@link com.giraone.jobs.schedule.processor.EventProcessor}:
+ * <ul>
+ *     <li>schedule: job-accepted joined with the process catalog to job-scheduled-{agent} or job-paused-{bucket}</li>
+ *     <li>resume: job-paused-{bucket} to job-scheduled-{agent} - jobs of still paused processes are parked in a
+ *     state store and checked periodically by the {@link ResumeProcessor}</li>
+ *     <li>agent: job-scheduled-{agent} to job-completed or job-failed-{agent}</li>
+ *     <li>notify: job-completed to job-notified</li>
+ * </ul>
+ * The process catalog is a global state store, that is read from a compacted topic (see {@link ProcessCatalogPublisher}).
+ * All values are passed as bytes. A failing record is sent as {@link DocumentedErrorOutput} to the error topic of the step.
+ */
+public class SchedulingTopology {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchedulingTopology.class);
+    static final ObjectMapper mapper = ObjectMapperBuilder.build(false, false);
+
+    public static final String STORE_processCatalog = "process-catalog";
+    public static final String STORE_parkedJobs = "parked-jobs";
+
+    static final Serde<ProcessDTO> PROCESS_SERDE = Serdes.serdeFrom(
+        (Serializer<ProcessDTO>) (topic, process) -> serialize(process),
+        (Deserializer<ProcessDTO>) (topic, bytes) -> bytes == null ? null : deserialize(bytes, ProcessDTO.class)
+    );
+    // only the value is written, the target topic is taken by the TopicNameExtractor - so a read value is routed to
+    // the topic, from which it is read
+    static final Serde<Routed> ROUTED_SERDE = Serdes.serdeFrom(
+        (Serializer<Routed>) (topic, routed) -> routed == null ? null : routed.value(),
+        (Deserializer<Routed>) (topic, bytes) -> bytes == null ? null : new Routed(topic, bytes)
+    );
+    private static final TopicNameExtractor<String, Routed> ROUTED_TOPIC = (key, routed, recordContext) -> routed.topic();
+
+    private final ApplicationProperties.Topics topics;
+    private final ApplicationProperties.Streams streams;
+    private final ProcessorAgent processorAgent;
+    private final ProcessorNotify processorNotify;
+
+    public SchedulingTopology(ApplicationProperties applicationProperties, ProcessorAgent processorAgent,
+                              ProcessorNotify processorNotify) {
+        this.topics = applicationProperties.getTopics();
+        this.streams = applicationProperties.getStreams();
+        this.processorAgent = processorAgent;
+        this.processorNotify = processorNotify;
+    }
+
+    public void addTo(StreamsBuilder builder) {
+
+        final Consumed<String, byte[]> consumed = Consumed.with(Serdes.String(), Serdes.ByteArray());
+        final Produced<String, Routed> produced = Produced.with(Serdes.String(), ROUTED_SERDE);
+
+        final GlobalKTable<String, ProcessDTO> processCatalog = builder.globalTable(streams.getTopicProcessCatalog(),
+            Consumed.with(Serdes.String(), PROCESS_SERDE),
+            Materialized.<String, ProcessDTO, KeyValueStore<Bytes, byte[]>>as(STORE_processCatalog)
+                .withKeySerde(Serdes.String()).withValueSerde(PROCESS_SERDE));
+
+        //- SCHEDULE ---------------------------------------------------------------------------------------------------
+        builder.stream(topics.getTopicJobAccepted(), consumed)
+            .leftJoin(processCatalog, (messageKey, value) -> readProcessKey(value), this::schedule)
+            .to(ROUTED_TOPIC, produced);
+
+        //- RESUME -----------------------------------------------------------------------------------------------------
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+            Stores.persistentKeyValueStore(STORE_parkedJobs), Serdes.String(), Serdes.ByteArray()));
+        final ProcessorSupplier<String, byte[], String, Routed> resumeProcessor =
+            () -> new ResumeProcessor(topics, streams.getResumeInterval(), streams.getResumeChunkSize());
+        builder.stream(topicsOf(topics.getTopicJobPaused(), topics.getTopicJobPausedErr()), consumed)
+            .process(resumeProcessor, STORE_parkedJobs)
+            .to(ROUTED_TOPIC, produced);
+
+        //- AGENT ------------------------------------------------------------------------------------------------------
+        builder.stream(topicsOf(topics.getTopicJobScheduled(), topics.getTopicJobScheduledErr()), consumed)
+            .mapValues(this::agent)
+            .to(ROUTED_TOPIC, produced);
+
+        //- NOTIFY -----------------------------------------------------------------------------------------------------
+        builder.stream(topics.getTopicJobCompleted(), consumed)
+            .mapValues(this::notify)
+            .to(ROUTED_TOPIC, produced);
+    }
+
+    Routed schedule(String messageKey, byte[] value, ProcessDTO process) {
+
+        try {
+            final JobAcceptedEvent jobAcceptedEvent = deserialize(value, JobAcceptedEvent.class);
+            if (process == null) {
+                throw new IllegalStateException("Process '" + jobAcceptedEvent.getProcessKey() + "' is not in the process catalog!");
+            }
+            if (isPaused(process)) {
+                LOGGER.info(">>> PAUSED        {} of {} to bucket '{}'!", messageKey, process.getKey(), process.getBucketKeyIfPaused());
+                return Routed.of(topics.getTopicJobPaused(process.getBucketKeyIfPaused()),
+                    new JobPausedEvent(process.getBucketKeyIfPaused(), jobAcceptedEvent));
+            }
+            LOGGER.info(">>> SCHEDULING    {} of {} to agent '{}'", messageKey, process.getKey(), process.getAgentKey());
+            return Routed.of(topics.getTopicJobScheduled(process.getAgentKey()),
+                new JobScheduledEvent(jobAcceptedEvent, process.getAgentKey()));
+        } catch (Exception e) {
+            return Routed.error(topics.getTopicJobAcceptedErr(), messageKey, value, e);
+        }
+    }
+
+    Routed agent(String messageKey, byte[] value) {
+
+        try {
+            final AbstractAssignedJobEvent event = processorAgent.streamProcess(deserialize(value, JobScheduledEvent.class));
+            if (event instanceof JobCompletedEvent) {
+                LOGGER.info(">>> COMPLETED     {} of {} in agent '{}'", messageKey, event.getProcessKey(), event.getAgentKey());
+                return Routed.of(topics.getTopicJobCompleted(), event);
+            } else if (event instanceof JobFailedEvent) {
+                LOGGER.warn(">>> FAILED        {} of {} in agent '{}'", messageKey, event.getProcessKey(), event.getAgentKey());
+                return Routed.of(topics.getTopicJobFailed(event.getAgentKey()), event);
+            } else {
+                throw new IllegalArgumentException("Event returned by processorAgent has invalid type " + event.getClass());
+            }
+        } catch (Exception e) {
+            return Routed.error(topics.getTopicJobScheduledErr(), messageKey, value, e);
+        }
+    }
+
+    Routed notify(String messageKey, byte[] value) {
+
+        try {
+            return Routed.of(topics.getTopicJobNotified(),
+                processorNotify.streamProcess(deserialize(value, JobCompletedEvent.class)));
+        } catch (Exception e) {
+            return Routed.error(topics.getTopicJobCompletedErr(), messageKey, value, e);
+        }
+    }
+
+    static boolean isPaused(ProcessDTO process) {
+        return process.getActivation() == ActivationEnum.PAUSED && process.getBucketKeyIfPaused() != null;
+    }
+
+    // all topics "{prefix}-{key}" without the error topic, e.g. job-scheduled-A01, but not job-scheduled-err
+    static Pattern topicsOf(String prefix, String errorTopic) {
+        return Pattern.compile("(?!" + Pattern.quote(errorTopic) + "$)" + Pattern.quote(prefix + "-") + ".+");
+    }
+
+    // The join drops records with a null key, so an unreadable process key is mapped to "", which is not in the
+    // catalog. The job is then sent to the error topic by the joiner.
+    private static String readProcessKey(byte[] value) {
+        try {
+            final String processKey = RoutingHeaders.readProcessKey(value);
+            return processKey != null ? processKey : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    static <T> T deserialize(byte[] value, Class<T> cls) {
+        try {
+            return mapper.readValue(value, cls);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static byte[] serialize(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The serialized output of a step together with its target topic.
+     */
+    record Routed(String topic, byte[] value) {
+
+        static Routed of(String topic, AbstractJobEvent jobEvent) {
+            return new Routed(topic, serialize(jobEvent));
+        }
+
+        static Routed error(String topic, String messageKey, byte[] messageValue, Exception exception) {
+            LOGGER.error("+++ EXCEPTION for message={}! Sending problem to topic \"{}\".", messageKey, topic, exception);
+            return new Routed(topic, serialize(new DocumentedErrorOutput(messageKey, messageValue, exception)));
+        }
+    }
+}
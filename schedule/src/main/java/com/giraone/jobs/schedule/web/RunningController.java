@@ -30,8 +30,7 @@ public class RunningController {
 
         log.debug("RunningController.start {} called", processorName);
         return Mono
-            .just(Boolean.FALSE)
-            .map(value -> switchOnOff.changeStateToPaused(processorName, value))
+            .fromFuture(() -> switchOnOff.changeStateToPausedAsync(processorName, Boolean.FALSE))
             .map(value -> ResponseEntity.ok(Map.of(ATTRIBUTE_paused, value)));
     }
 
@@ -40,8 +39,7 @@ public class RunningController {
 
         log.debug("RunningController.stop {} called", processorName);
         return Mono
-            .just(Boolean.TRUE)
-            .map(value -> switchOnOff.changeStateToPaused(processorName, value))
+            .fromFuture(() -> switchOnOff.changeStateToPausedAsync(processorName, Boolean.TRUE))
             .map(value -> ResponseEntity.ok(Map.of(ATTRIBUTE_paused, value)));
     }
 
@@ -49,8 +47,10 @@ public class RunningController {
     public Mono<ResponseEntity<Map<String, Boolean>>> status(@PathVariable String processorName) {
 
         log.debug("RunningController.status {} called", processorName);
-        boolean running = switchOnOff.isRunning(processorName);
-        boolean paused = switchOnOff.isPaused(processorName);
+        // read once, so that running and paused are consistent
+        SwitchOnOff.BindingState state = switchOnOff.getState(processorName);
+        boolean running = state != SwitchOnOff.BindingState.STOPPED;
+        boolean paused = state == SwitchOnOff.BindingState.PAUSED;
         return Mono.just(ResponseEntity.ok(
             Map.of(
                 ATTRIBUTE_running, running,
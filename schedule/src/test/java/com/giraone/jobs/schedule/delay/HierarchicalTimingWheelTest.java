@@ -0,0 +1,82 @@
+package com.giraone.jobs.schedule.delay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advanceClock_returnsTimersInOrderOfExpirationOverAllLevels() {
+
+        // arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10L, 8, 0L);
+        wheel.add(25L, "level0");
+        wheel.add(5_000L, "level2");
+        wheel.add(700L, "level1");
+        wheel.add(3L, "expired");
+        List<String> expired = new ArrayList<>();
+
+        // act
+        for (long now = 0L; now <= 6_000L; now += 10L) {
+            expired.addAll(wheel.advanceClock(now));
+        }
+
+        // assert
+        assertThat(expired).containsExactly("level0", "level1", "level2");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advanceClock_neverReturnsTimerBeforeItsBucketStarts() {
+
+        // arrange
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10L, 4, 0L);
+        for (long expiration = 10L; expiration < 2_000L; expiration += 7L) {
+            wheel.add(expiration, expiration);
+        }
+
+        // act/assert
+        for (long now = 0L; now <= 2_000L; now += 3L) {
+            for (Long expiration : wheel.advanceClock(now)) {
+                assertThat(expiration).isBetween(now - 10L, now + 9L);
+            }
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void add_returnsNullWhenAlreadyDue() {
+
+        // arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10L, 8, 1_000L);
+
+        // act
+        HierarchicalTimingWheel.Timer<String> timer = wheel.add(1_005L, "due");
+
+        // assert
+        assertThat(timer).isNull();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancel_removesTimer() {
+
+        // arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10L, 8, 0L);
+        HierarchicalTimingWheel.Timer<String> timer = wheel.add(2_000L, "cancelled");
+        wheel.add(2_000L, "kept");
+
+        // act
+        boolean cancelled = wheel.cancel(timer);
+        List<String> expired = wheel.advanceClock(3_000L);
+
+        // assert
+        assertThat(cancelled).isTrue();
+        assertThat(wheel.cancel(timer)).isFalse();
+        assertThat(expired).containsExactly("kept");
+    }
+}
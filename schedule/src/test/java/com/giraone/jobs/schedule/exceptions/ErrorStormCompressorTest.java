@@ -0,0 +1,70 @@
+package com.giraone.jobs.schedule.exceptions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorStormCompressorTest {
+
+    @Test
+    void record_documentsFirstErrorInFullAndCountsTheRestAboveBudget() {
+
+        // arrange
+        ErrorStormCompressor compressor = new ErrorStormCompressor(1000L, 3, 2);
+        List<ErrorStormCompressor.Action> actions = new ArrayList<>();
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            actions.add(compressor.record("processSchedule", "fp1", "error", "key" + i, 100L + i));
+        }
+        List<ErrorStormCompressor.Summary> summariesInWindow = compressor.drainSummaries(500L);
+        List<ErrorStormCompressor.Summary> summaries = compressor.drainSummaries(1100L);
+
+        // assert
+        assertThat(actions).containsExactly(
+            ErrorStormCompressor.Action.FULL, ErrorStormCompressor.Action.COMPACT, ErrorStormCompressor.Action.COMPACT,
+            ErrorStormCompressor.Action.SUPPRESS, ErrorStormCompressor.Action.SUPPRESS, ErrorStormCompressor.Action.SUPPRESS,
+            ErrorStormCompressor.Action.SUPPRESS, ErrorStormCompressor.Action.SUPPRESS, ErrorStormCompressor.Action.SUPPRESS,
+            ErrorStormCompressor.Action.SUPPRESS);
+        assertThat(summariesInWindow).isEmpty();
+        assertThat(summaries).hasSize(1);
+        assertThat(summaries.get(0).occurrences()).isEqualTo(10L);
+        assertThat(summaries.get(0).suppressed()).isEqualTo(7L);
+        assertThat(summaries.get(0).sampledKeys()).hasSize(2);
+    }
+
+    @Test
+    void record_startsNewWindowWithFullDocumentation() {
+
+        // arrange
+        ErrorStormCompressor compressor = new ErrorStormCompressor(1000L, 100, 10);
+        compressor.record("processSchedule", "fp1", "error", "key1", 0L);
+        compressor.record("processSchedule", "fp1", "error", "key2", 10L);
+
+        // act
+        ErrorStormCompressor.Action action = compressor.record("processSchedule", "fp1", "error", "key3", 1000L);
+
+        // assert
+        assertThat(action).isEqualTo(ErrorStormCompressor.Action.FULL);
+        assertThat(compressor.drainSummaries(1000L)).extracting(ErrorStormCompressor.Summary::sampledKeys)
+            .containsExactly(List.of("key1", "key2"));
+    }
+
+    @Test
+    void fingerprint_containsCauseTypesAndTopFrames() {
+
+        // arrange
+        Exception exception = new RuntimeException(new IllegalStateException("inner"));
+
+        // act
+        String fingerprint = ErrorStormCompressor.fingerprint(exception, 1);
+
+        // assert
+        assertThat(fingerprint).startsWith("RuntimeException/IllegalStateException@ErrorStormCompressorTest.fingerprint_containsCauseTypesAndTopFrames:");
+        assertThat(ErrorStormCompressor.fingerprint(new RuntimeException("other message", new IllegalStateException("x")), 1))
+            .isNotEqualTo(fingerprint);
+    }
+}
@@ -0,0 +1,82 @@
+package com.giraone.jobs.schedule.parking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParkingStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void drain_returnsOnlyTheJobsOfTheProcess() throws IOException {
+
+        // arrange
+        ParkingStore parkingStore = new ParkingStore(directory, 100);
+        for (int i = 0; i < 20; i++) {
+            parkingStore.park(i % 2 == 0 ? "V001" : "V002", "job" + i, ("value" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> drained = new ArrayList<>();
+
+        // act
+        int count = parkingStore.drain("V001", (messageKey, value) -> drained.add(messageKey));
+
+        // assert
+        assertThat(count).isEqualTo(10);
+        assertThat(drained).containsExactly("job0", "job2", "job4", "job6", "job8", "job10", "job12", "job14", "job16", "job18");
+        assertThat(parkingStore.hasParked("V001")).isFalse();
+        assertThat(parkingStore.hasParked("V002")).isTrue();
+    }
+
+    @Test
+    void drain_continuesAfterRestart() throws IOException {
+
+        // arrange
+        ParkingStore parkingStore = new ParkingStore(directory, 100);
+        parkingStore.park("V001", "job1", "value1".getBytes(StandardCharsets.UTF_8));
+        parkingStore.drain("V001", (messageKey, value) -> true);
+        parkingStore.park("V001", "job2", "value2".getBytes(StandardCharsets.UTF_8));
+        parkingStore.park("V001", null, "value3".getBytes(StandardCharsets.UTF_8));
+        parkingStore.close();
+        List<String> drained = new ArrayList<>();
+
+        // act
+        ParkingStore restarted = new ParkingStore(directory, 100);
+        restarted.drain("V001", (messageKey, value) -> drained.add(messageKey + "=" + new String(value, StandardCharsets.UTF_8)));
+
+        // assert
+        assertThat(restarted.getProcessKeys()).containsExactly("V001");
+        assertThat(drained).containsExactly("job2=value2", "null=value3");
+    }
+
+    @Test
+    void drain_stopsAtFailedJobAndRetriesIt() throws IOException {
+
+        // arrange
+        ParkingStore parkingStore = new ParkingStore(directory, 100);
+        for (int i = 0; i < 5; i++) {
+            parkingStore.park("V001", "job" + i, ("value" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> drained = new ArrayList<>();
+        int firstCount = parkingStore.drain("V001", (messageKey, value) -> !messageKey.equals("job2") && drained.add(messageKey));
+        parkingStore.close();
+
+        // act
+        ParkingStore restarted = new ParkingStore(directory, 100);
+        int secondCount = restarted.drain("V001", (messageKey, value) -> drained.add(messageKey));
+
+        // assert
+        assertThat(firstCount).isEqualTo(2);
+        assertThat(secondCount).isEqualTo(3);
+        assertThat(drained).containsExactly("job0", "job1", "job2", "job3", "job4");
+        assertThat(restarted.hasParked("V001")).isFalse();
+    }
+}
@@ -0,0 +1,74 @@
+package com.giraone.jobs.schedule.processor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgentExecutorTest {
+
+    private final AgentExecutor agentExecutor = new AgentExecutor(8, Map.of("A01", 2));
+
+    @AfterEach
+    void shutdown() {
+        agentExecutor.shutdown();
+    }
+
+    @Test
+    void submit_limitsConcurrencyPerAgent() {
+
+        // arrange
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            final int number = i;
+            results.add(agentExecutor.submit("A01", () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep();
+                inFlight.decrementAndGet();
+                return number;
+            }));
+        }
+
+        // assert - results are joined in the order of submission
+        for (int i = 0; i < 10; i++) {
+            assertThat(AgentExecutor.await(results.get(i))).isEqualTo(i);
+        }
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(agentExecutor.availablePermits("A01")).isEqualTo(2);
+        assertThat(agentExecutor.availablePermits("A02")).isEqualTo(8);
+    }
+
+    @Test
+    void await_throwsExceptionOfAgentWork() {
+
+        // act
+        CompletableFuture<String> result = agentExecutor.submit("A02", () -> {
+            throw new IllegalArgumentException("Agent failed");
+        });
+
+        // assert
+        assertThatThrownBy(() -> AgentExecutor.await(result))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Agent failed");
+        assertThat(agentExecutor.availablePermits("A02")).isEqualTo(8);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
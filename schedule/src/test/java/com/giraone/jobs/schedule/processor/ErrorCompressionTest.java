@@ -0,0 +1,76 @@
+package com.giraone.jobs.schedule.processor;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.exceptions.DocumentedErrorOutput;
+import com.giraone.jobs.schedule.retry.RetryLadder;
+import com.giraone.jobs.schedule.service.AgentLoadService;
+import com.giraone.jobs.schedule.service.DelayedJobService;
+import com.giraone.jobs.schedule.service.ParkingService;
+import com.giraone.jobs.schedule.stopper.SwitchOnOff;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ErrorCompressionTest {
+
+    private StreamBridge streamBridge;
+    private EventProcessor eventProcessor;
+
+    @BeforeEach
+    void setUp() {
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setDisableStopper(true);
+        applicationProperties.getErrorCompression().setEnabled(true);
+        applicationProperties.getErrorCompression().setBudgetPerWindow(5);
+        streamBridge = mock(StreamBridge.class);
+        when(streamBridge.send(anyString(), any())).thenReturn(true);
+        eventProcessor = new EventProcessor(applicationProperties, new SimpleMeterRegistry(), mock(SwitchOnOff.class),
+            streamBridge, mock(ProcessorSchedule.class), mock(ProcessorResume.class), mock(ProcessorAgent.class),
+            mock(ProcessorNotify.class), mock(ParkingService.class), mock(DelayedJobService.class),
+            mock(AgentLoadService.class), new RetryLadder(applicationProperties));
+        ReflectionTestUtils.invokeMethod(eventProcessor, "init");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handleProcessingException_sendsEveryFailedJobAlsoAboveBudget() {
+
+        // act
+        for (int i = 0; i < 20; i++) {
+            eventProcessor.handleProcessingException(EventProcessor.PROCESS_schedule, "key" + i, "value" + i,
+                new IllegalStateException("downstream failed"));
+        }
+
+        // assert
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(streamBridge, atLeastOnce()).send(eq(EventProcessor.PROCESS_schedule + "-out-error"), messages.capture());
+        List<DocumentedErrorOutput> outputs = messages.getAllValues().stream()
+            .map(message -> (DocumentedErrorOutput) message.getPayload())
+            .toList();
+        assertThat(outputs).extracting(output -> output.causedByMessage).hasSize(20)
+            .containsExactlyElementsOf(IntStream.range(0, 20).mapToObj(i -> "value" + i).toList());
+        assertThat(outputs.get(0).stacktrace).isNotNull();
+        assertThat(outputs.subList(5, 20)).allSatisfy(output -> {
+            assertThat(output.errorText).isNull();
+            assertThat(output.stacktrace).isNull();
+            assertThat(output.fingerprint).isNotNull();
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.giraone.jobs.schedule.processor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedExecutorTest {
+
+    private final KeyOrderedExecutor keyOrderedExecutor = new KeyOrderedExecutor(4, "test");
+
+    @AfterEach
+    void shutdown() {
+        keyOrderedExecutor.shutdown();
+    }
+
+    @Test
+    void processAll_keepsOrderPerKey() {
+
+        // arrange
+        List<String> keys = new ArrayList<>();
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("key" + (i % 10));
+            records.add("key" + (i % 10) + ":" + i);
+        }
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        // act
+        keyOrderedExecutor.processAll(keys, records, rec -> {
+            String[] parts = rec.split(":");
+            processed.computeIfAbsent(parts[0], k -> Collections.synchronizedList(new ArrayList<>())).add(Integer.parseInt(parts[1]));
+            threads.add(Thread.currentThread().getName());
+        });
+
+        // assert - all done, when processAll returns
+        assertThat(processed).hasSize(10);
+        assertThat(processed.values().stream().mapToInt(List::size).sum()).isEqualTo(1000);
+        processed.values().forEach(numbers -> assertThat(numbers).isSorted());
+        assertThat(threads).allMatch(name -> name.startsWith("test-"));
+    }
+
+    @Test
+    void processAll_processesNullKeysInOneLane() {
+
+        // arrange
+        List<String> keys = Collections.nCopies(100, null);
+        List<Integer> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(i);
+        }
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        // act
+        keyOrderedExecutor.processAll(keys, records, processed::add);
+
+        // assert
+        assertThat(processed).isEqualTo(records);
+    }
+
+    @Test
+    void laneOf_isStableForSameKey() {
+
+        // act
+        Set<Integer> lanes = List.of("a", "a", "a").stream().map(keyOrderedExecutor::laneOf).collect(Collectors.toSet());
+
+        // assert
+        assertThat(lanes).hasSize(1);
+        assertThat(keyOrderedExecutor.laneOf("a".getBytes())).isEqualTo(keyOrderedExecutor.laneOf("a".getBytes()));
+    }
+}
@@ -0,0 +1,118 @@
+package com.giraone.jobs.schedule.processor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.giraone.jobs.common.ObjectMapperBuilder;
+import com.giraone.jobs.events.JobScheduledEvent;
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.retry.RetryLadder;
+import com.giraone.jobs.schedule.service.AgentLoadService;
+import com.giraone.jobs.schedule.service.DelayedJobService;
+import com.giraone.jobs.schedule.service.ParkingService;
+import com.giraone.jobs.schedule.stopper.SwitchOnOff;
+import com.github.f4b6a3.tsid.TsidCreator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessRetryTest {
+
+    private static final ObjectMapper mapper = ObjectMapperBuilder.build(false, false);
+
+    private StreamBridge streamBridge;
+    private EventProcessor eventProcessor;
+
+    @BeforeEach
+    void setUp() {
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRetryTopics().setEnabled(true);
+        ApplicationProperties.Topics topics = new ApplicationProperties.Topics();
+        topics.setTopicJobScheduled("job-scheduled");
+        applicationProperties.setTopics(topics);
+        streamBridge = mock(StreamBridge.class);
+        when(streamBridge.send(anyString(), any())).thenReturn(true);
+        eventProcessor = new EventProcessor(applicationProperties, new SimpleMeterRegistry(), mock(SwitchOnOff.class),
+            streamBridge, mock(ProcessorSchedule.class), mock(ProcessorResume.class), mock(ProcessorAgent.class),
+            mock(ProcessorNotify.class), mock(ParkingService.class), mock(DelayedJobService.class),
+            mock(AgentLoadService.class), new RetryLadder(applicationProperties));
+    }
+
+    @Test
+    void processRetry_nacksJobNotYetDue() throws Exception {
+
+        // arrange - processRetry1 has a delay of 10 seconds
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        Message<byte[]> message = message(System.currentTimeMillis() - 4_000L, acknowledgment);
+
+        // act
+        eventProcessor.processDynamicBinding(EventProcessor.PROCESS_retry + 1, message);
+
+        // assert
+        ArgumentCaptor<Duration> sleep = ArgumentCaptor.forClass(Duration.class);
+        verify(acknowledgment).nack(sleep.capture());
+        assertThat(sleep.getValue()).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(6));
+        verify(acknowledgment, never()).acknowledge();
+        verify(streamBridge, never()).send(anyString(), any());
+    }
+
+    @Test
+    void processRetry_sendsDueJobBackToAgent() throws Exception {
+
+        // arrange
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        Message<byte[]> message = message(System.currentTimeMillis() - 11_000L, acknowledgment);
+
+        // act
+        eventProcessor.processDynamicBinding(EventProcessor.PROCESS_retry + 1, message);
+
+        // assert
+        verify(streamBridge).send(eq("job-scheduled-A01"), any());
+        verify(acknowledgment).acknowledge();
+        verify(acknowledgment, never()).nack(any(Duration.class));
+    }
+
+    @Test
+    void processRetry_failsWithoutAcknowledgment() throws Exception {
+
+        // arrange
+        Message<byte[]> message = message(System.currentTimeMillis() - 11_000L, null);
+
+        // act/assert
+        assertThatThrownBy(() -> eventProcessor.processDynamicBinding(EventProcessor.PROCESS_retry + 1, message))
+            .isInstanceOf(IllegalStateException.class);
+        verify(streamBridge, never()).send(anyString(), any());
+    }
+
+    private static Message<byte[]> message(long timestamp, Acknowledgment acknowledgment) throws Exception {
+
+        String id = TsidCreator.getTsid256().toString();
+        JobScheduledEvent jobScheduledEvent = new JobScheduledEvent(id, "V001", Instant.now(), Instant.now(), "", "A01");
+        jobScheduledEvent.setAttempt(1);
+        MessageBuilder<byte[]> messageBuilder = MessageBuilder.withPayload(mapper.writeValueAsBytes(jobScheduledEvent))
+            .setHeader(KafkaHeaders.RECEIVED_KEY, jobScheduledEvent.getMessageKey())
+            .setHeader(KafkaHeaders.RECEIVED_TIMESTAMP, timestamp);
+        if (acknowledgment != null) {
+            messageBuilder.setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment);
+        }
+        return messageBuilder.build();
+    }
+}
@@ -4,7 +4,10 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.giraone.jobs.events.JobAcceptedEvent;
 import com.giraone.jobs.events.JobPausedEvent;
 import com.giraone.jobs.events.JobScheduledEvent;
+import com.giraone.jobs.schedule.model.ActivationEnum;
+import com.giraone.jobs.schedule.model.ProcessDTO;
 import com.giraone.jobs.schedule.service.PausedDecider;
+import com.giraone.jobs.schedule.service.RoutingSnapshot;
 import com.github.f4b6a3.tsid.TsidCreator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeAll;
@@ -18,10 +21,10 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.Instant;
+import java.util.List;
 
 import static com.giraone.jobs.schedule.config.TestConfig.*;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 // See https://blog.mimacom.com/testing-apache-kafka-with-spring-boot-junit5/
@@ -61,8 +64,13 @@ class ProcessScheduleInOutTest extends AbstractInOutTest {
         LOGGER.info("{} testProcessWorks START", this.getClass().getName());
 
         // arrange
-        when(pausedDecider.getBucketIfProcessPaused(anyString())).thenReturn(paused ? "B01" : null);
-        when(pausedDecider.getAgentKeyForProcess(anyString())).thenReturn("A01");
+        ProcessDTO process = new ProcessDTO();
+        process.setKey("V001");
+        process.setActivation(paused ? ActivationEnum.PAUSED : ActivationEnum.ACTIVE);
+        process.setAgentKey("A01");
+        process.setBucketKeyIfPaused("B01");
+        when(pausedDecider.getSnapshot()).thenReturn(RoutingSnapshot.of(1L, System.currentTimeMillis(), List.of(process)));
+        when(pausedDecider.selectAgent("A01")).thenReturn("A01");
 
         // act
         String id = TsidCreator.getTsid256().toString();
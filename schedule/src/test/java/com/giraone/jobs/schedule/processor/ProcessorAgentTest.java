@@ -0,0 +1,87 @@
+package com.giraone.jobs.schedule.processor;
+
+import com.giraone.jobs.common.BlobStore;
+import com.giraone.jobs.common.FileBlobStore;
+import com.giraone.jobs.events.AbstractAssignedJobEvent;
+import com.giraone.jobs.events.JobCompletedEvent;
+import com.giraone.jobs.events.JobFailedEvent;
+import com.giraone.jobs.events.JobScheduledEvent;
+import com.github.f4b6a3.tsid.TsidCreator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProcessorAgentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolvePayload_readsOffloadedPayloadFromBlobStore() {
+
+        // arrange
+        BlobStore blobStore = new FileBlobStore(directory);
+        String reference = blobStore.put("\"large \\\"payload\\\"\"".getBytes(StandardCharsets.UTF_8));
+        ObjectProvider<BlobStore> blobStoreProvider = mock(ObjectProvider.class);
+        when(blobStoreProvider.getIfAvailable()).thenReturn(blobStore);
+        ProcessorAgent processorAgent = new ProcessorAgent(blobStoreProvider);
+        JobScheduledEvent jobScheduledEvent = new JobScheduledEvent("1", "V001", Instant.now(), Instant.now(), null, "A01");
+        jobScheduledEvent.setPayloadRef(reference);
+
+        // act
+        String payload = processorAgent.resolvePayload(jobScheduledEvent);
+
+        // assert
+        assertThat(reference).startsWith("sha256-");
+        assertThat(payload).isEqualTo("large \"payload\"");
+    }
+
+    @Test
+    void streamProcess_processesJobWithOffloadedPayload() {
+
+        // arrange
+        BlobStore blobStore = new FileBlobStore(directory);
+        String reference = blobStore.put("\"large payload\"".getBytes(StandardCharsets.UTF_8));
+        ProcessorAgent processorAgent = new ProcessorAgent(blobStoreProvider(blobStore));
+        JobScheduledEvent jobScheduledEvent = new JobScheduledEvent(TsidCreator.getTsid256().toString(), "V001",
+            Instant.now(), Instant.now(), null, "A01");
+        jobScheduledEvent.setPayloadRef(reference);
+
+        // act
+        AbstractAssignedJobEvent event = processorAgent.streamProcess(jobScheduledEvent);
+
+        // assert - the agent fails 1% of the jobs by random
+        assertThat(event).isInstanceOfAny(JobCompletedEvent.class, JobFailedEvent.class);
+        assertThat(event.getId()).isEqualTo(jobScheduledEvent.getId());
+    }
+
+    @Test
+    void streamProcess_failsJobWithMissingBlob() {
+
+        // arrange
+        ProcessorAgent processorAgent = new ProcessorAgent(blobStoreProvider(new FileBlobStore(directory)));
+        JobScheduledEvent jobScheduledEvent = new JobScheduledEvent(TsidCreator.getTsid256().toString(), "V001",
+            Instant.now(), Instant.now(), null, "A01");
+        jobScheduledEvent.setPayloadRef("sha256-" + "0".repeat(64));
+
+        // act/assert
+        assertThatThrownBy(() -> processorAgent.streamProcess(jobScheduledEvent)).isInstanceOf(RuntimeException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<BlobStore> blobStoreProvider(BlobStore blobStore) {
+        ObjectProvider<BlobStore> blobStoreProvider = mock(ObjectProvider.class);
+        when(blobStoreProvider.getIfAvailable()).thenReturn(blobStore);
+        return blobStoreProvider;
+    }
+}
@@ -0,0 +1,76 @@
+package com.giraone.jobs.schedule.processor;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.retry.RetryLadder;
+import com.giraone.jobs.schedule.service.AgentLoadService;
+import com.giraone.jobs.schedule.service.DelayedJobService;
+import com.giraone.jobs.schedule.service.ParkingService;
+import com.giraone.jobs.schedule.stopper.ProcessingStopper;
+import com.giraone.jobs.schedule.stopper.SwitchOnOff;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.stream.function.StreamBridge;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RestartStoppedProcessorsTest {
+
+    private static final String PROCESS_resume_B09 = EventProcessor.PROCESS_resume + "B09";
+
+    private SwitchOnOff switchOnOff;
+    private ProcessorResume processorResume;
+    private EventProcessor eventProcessor;
+
+    @BeforeEach
+    void setUp() {
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        switchOnOff = mock(SwitchOnOff.class);
+        processorResume = mock(ProcessorResume.class);
+        eventProcessor = new EventProcessor(applicationProperties, new SimpleMeterRegistry(), switchOnOff,
+            mock(StreamBridge.class), mock(ProcessorSchedule.class), processorResume, mock(ProcessorAgent.class),
+            mock(ProcessorNotify.class), mock(ParkingService.class), mock(DelayedJobService.class),
+            mock(AgentLoadService.class), new RetryLadder(applicationProperties));
+        ProcessingStopper processingStopper = mock(ProcessingStopper.class);
+        when(processingStopper.checkRestart()).thenReturn(true);
+        EventProcessor.STOPPER.put(PROCESS_resume_B09, processingStopper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        EventProcessor.STOPPER.remove(PROCESS_resume_B09);
+    }
+
+    @Test
+    void restartStoppedProcessors_startsBucketOfPausedProcessPaused() {
+
+        // arrange
+        when(processorResume.isBucketPaused("B09")).thenReturn(true);
+
+        // act
+        eventProcessor.restartStoppedProcessors();
+
+        // assert
+        verify(switchOnOff).changeStateToPausedAsync(PROCESS_resume_B09, true);
+        verify(switchOnOff, never()).start(anyString());
+    }
+
+    @Test
+    void restartStoppedProcessors_startsBucketWithoutPausedProcess() {
+
+        // arrange
+        when(processorResume.isBucketPaused("B09")).thenReturn(false);
+
+        // act
+        eventProcessor.restartStoppedProcessors();
+
+        // assert
+        verify(switchOnOff).start(PROCESS_resume_B09);
+    }
+}
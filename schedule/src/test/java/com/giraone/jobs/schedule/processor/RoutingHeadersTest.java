@@ -0,0 +1,59 @@
+package com.giraone.jobs.schedule.processor;
+
+import com.giraone.jobs.events.JobPausedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingHeadersTest {
+
+    @Test
+    void readProcessKey_scansValueWithoutHeader() throws IOException {
+
+        // arrange
+        byte[] value = "{\"id\":\"1\",\"payload\":{\"x\":[1,2]},\"processKey\":\"V001\",\"status\":\"ACCEPTED\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+        // act
+        String processKey = RoutingHeaders.readProcessKey(new MessageHeaders(Map.of()), value);
+
+        // assert
+        assertThat(processKey).isEqualTo("V001");
+    }
+
+    @Test
+    void readProcessKey_prefersHeader() throws IOException {
+
+        // arrange
+        MessageHeaders headers = new MessageHeaders(Map.of(RoutingHeaders.HEADER_processKey, "V002".getBytes(StandardCharsets.UTF_8)));
+
+        // act
+        String processKey = RoutingHeaders.readProcessKey(headers, "{\"processKey\":\"V001\"}".getBytes(StandardCharsets.UTF_8));
+
+        // assert
+        assertThat(processKey).isEqualTo("V002");
+    }
+
+    @Test
+    void applyTo_overwritesRoutingFields() {
+
+        // arrange
+        Instant eventTimestamp = Instant.parse("2023-01-01T10:00:00Z");
+        MessageHeaders headers = new MessageHeaders(RoutingHeaders.of("V001", RoutingDecision.paused("B01"), eventTimestamp));
+
+        // act
+        JobPausedEvent event = RoutingHeaders.applyTo(new JobPausedEvent(), headers);
+
+        // assert
+        assertThat(event.getProcessKey()).isEqualTo("V001");
+        assertThat(event.getPausedBucketKey()).isEqualTo("B01");
+        assertThat(event.getEventTimestamp()).isEqualTo(eventTimestamp);
+        assertThat(headers.get(RoutingHeaders.HEADER_agentKey)).isNull();
+    }
+}
@@ -0,0 +1,47 @@
+package com.giraone.jobs.schedule.retry;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryLadderTest {
+
+    @Test
+    void levelOf_usesOneLevelPerAttempt() {
+
+        // arrange
+        RetryLadder retryLadder = new RetryLadder(applicationProperties(null));
+
+        // act/assert
+        assertThat(retryLadder.levelOf(0)).isZero();
+        assertThat(retryLadder.levelOf(2)).isEqualTo(2);
+        assertThat(retryLadder.levelOf(3)).isEqualTo(-1);
+        assertThat(retryLadder.getTopic(0)).isEqualTo("job-retry-1s");
+        assertThat(retryLadder.getTopic(2)).isEqualTo("job-retry-60s");
+        assertThat(retryLadder.levelOfProcessor(retryLadder.getProcessorName(1))).isEqualTo(1);
+    }
+
+    @Test
+    void levelOf_repeatsLastLevelUpToMaxAttempts() {
+
+        // arrange
+        RetryLadder retryLadder = new RetryLadder(applicationProperties(5));
+
+        // act/assert
+        assertThat(retryLadder.levelOf(4)).isEqualTo(2);
+        assertThat(retryLadder.levelOf(5)).isEqualTo(-1);
+    }
+
+    private static ApplicationProperties applicationProperties(Integer maxAttempts) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.RetryTopics retryTopics = applicationProperties.getRetryTopics();
+        retryTopics.setEnabled(true);
+        retryTopics.setDelays(List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1)));
+        retryTopics.setMaxAttempts(maxAttempts);
+        return applicationProperties;
+    }
+}
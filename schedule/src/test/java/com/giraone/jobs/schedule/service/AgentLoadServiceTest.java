@@ -0,0 +1,104 @@
+package com.giraone.jobs.schedule.service;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AgentLoadServiceTest {
+
+    private ApplicationProperties.AgentSelection agentSelection;
+    private AgentLoadService agentLoadService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        agentSelection = applicationProperties.getAgentSelection();
+        agentSelection.setEnabled(true);
+        agentSelection.setEligibleAgents(Map.of(
+            "A01", List.of("A01", "A02", "A03"),
+            "A04", List.of("A04", "A05")
+        ));
+        agentLoadService = new AgentLoadService(applicationProperties, mock(ObjectProvider.class));
+    }
+
+    @Test
+    void select_keepsAgentOfProcessWithoutLoadSignals() {
+
+        // act
+        String agentKey = agentLoadService.select("A01");
+
+        // assert
+        assertThat(agentKey).isEqualTo("A01");
+    }
+
+    @Test
+    void select_leastLoaded_selectsAgentWithLowestLag() {
+
+        // arrange
+        agentSelection.setStrategy(ApplicationProperties.AgentSelection.Strategy.LEAST_LOADED);
+        agentLoadService.updateLag("A01", 1000L);
+        agentLoadService.updateLag("A02", 10L);
+        agentLoadService.updateLag("A03", 500L);
+
+        // act
+        String agentKey = agentLoadService.select("A01");
+
+        // assert
+        assertThat(agentKey).isEqualTo("A02");
+    }
+
+    @Test
+    void select_powerOfTwo_selectsLessLoadedAgent() {
+
+        // arrange
+        agentLoadService.updateLag("A04", 1000L);
+        agentLoadService.updateLag("A05", 0L);
+
+        // act
+        String agentKey = agentLoadService.select("A04");
+
+        // assert
+        assertThat(agentKey).isEqualTo("A05");
+    }
+
+    @Test
+    void select_keepsAgentOfProcessWithinStickiness() {
+
+        // arrange
+        agentLoadService.updateLag("A04", 100L);
+        agentLoadService.updateLag("A05", 90L);
+
+        // act
+        String agentKey = agentLoadService.select("A04");
+
+        // assert
+        assertThat(agentKey).isEqualTo("A04");
+    }
+
+    @Test
+    void select_considersJobsInFlightAndLatency() {
+
+        // arrange
+        agentLoadService.updateLag("A04", 0L);
+        agentLoadService.updateLag("A05", 0L);
+        agentLoadService.completed("A04", 100L);
+        agentLoadService.completed("A05", 10L);
+        agentLoadService.scheduled("A05");
+
+        // act
+        String agentKey = agentLoadService.select("A04");
+
+        // assert - A04: 1 * 100 ms, A05: 2 * 10 ms
+        assertThat(agentKey).isEqualTo("A05");
+    }
+}
@@ -0,0 +1,63 @@
+package com.giraone.jobs.schedule.service;
+
+import com.giraone.jobs.schedule.model.ActivationEnum;
+import com.giraone.jobs.schedule.model.ProcessDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingSnapshotTest {
+
+    @Test
+    void of_buildsDenseRouting() {
+
+        // arrange
+        List<ProcessDTO> processes = List.of(
+            process("V001", ActivationEnum.ACTIVE, "A01", null),
+            process("V002", ActivationEnum.PAUSED, "A02", "B01"),
+            process("V003", ActivationEnum.ACTIVE, "A03", "B02")
+        );
+
+        // act
+        RoutingSnapshot snapshot = RoutingSnapshot.of(7L, 1000L, processes);
+
+        // assert
+        assertThat(snapshot.getVersion()).isEqualTo(7L);
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.indexOf("V001")).isZero();
+        assertThat(snapshot.indexOf("V003")).isEqualTo(2);
+        assertThat(snapshot.getAgentKey(snapshot.indexOf("V002"))).isEqualTo("A02");
+        assertThat(snapshot.getPausedBucketKey(snapshot.indexOf("V002"))).isEqualTo("B01");
+        // bucket keys of active processes are ignored
+        assertThat(snapshot.getPausedBucketKey(snapshot.indexOf("V003"))).isNull();
+        assertThat(snapshot.getPausedBucketKeys()).isEqualTo(Map.of("V002", "B01"));
+    }
+
+    @Test
+    void indexOf_returnsMinusOneForUnknownProcess() {
+
+        // arrange
+        RoutingSnapshot snapshot = RoutingSnapshot.of(1L, 1000L, List.of(process("V001", ActivationEnum.ACTIVE, "A01", null)));
+
+        // act
+        int index = snapshot.indexOf("V999");
+
+        // assert
+        assertThat(index).isEqualTo(-1);
+        assertThat(snapshot.getAgentKey(index)).isNull();
+        assertThat(snapshot.getPausedBucketKey(index)).isNull();
+        assertThat(RoutingSnapshot.EMPTY.indexOf(null)).isEqualTo(-1);
+    }
+
+    private static ProcessDTO process(String key, ActivationEnum activation, String agentKey, String bucketKey) {
+        ProcessDTO process = new ProcessDTO();
+        process.setKey(key);
+        process.setActivation(activation);
+        process.setAgentKey(agentKey);
+        process.setBucketKeyIfPaused(bucketKey);
+        return process;
+    }
+}
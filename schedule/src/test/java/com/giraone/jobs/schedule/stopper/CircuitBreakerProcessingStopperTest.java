@@ -0,0 +1,143 @@
+package com.giraone.jobs.schedule.stopper;
+
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerProcessingStopperTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private CircuitBreakerProcessingStopper stopper;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.CircuitBreaker circuitBreaker = new ApplicationProperties.CircuitBreaker();
+        circuitBreaker.setEnabled(true);
+        circuitBreaker.setWindowBuckets(10);
+        circuitBreaker.setBucketMs(1000L);
+        circuitBreaker.setMinimumNumberOfCalls(10);
+        circuitBreaker.setFailureRateThreshold(50.0);
+        circuitBreaker.setSlowCallDurationMs(500L);
+        circuitBreaker.setSlowCallRateThreshold(80.0);
+        circuitBreaker.setWaitInOpenStateMs(5000L);
+        circuitBreaker.setPermittedCallsInHalfOpenState(4);
+        stopper = new CircuitBreakerProcessingStopper(circuitBreaker, now::get);
+    }
+
+    @Test
+    void addErrorAndCheckStop_stopsNotBeforeMinimumNumberOfCalls() {
+
+        // arrange
+        for (int i = 0; i < 8; i++) {
+            assertThat(stopper.addErrorAndCheckStop()).isFalse();
+        }
+
+        // act
+        boolean stop9 = stopper.addErrorAndCheckStop();
+        boolean stop10 = stopper.addErrorAndCheckStop();
+
+        // assert
+        assertThat(stop9).isFalse();
+        assertThat(stop10).isTrue();
+        assertThat(stopper.getState()).isEqualTo(CircuitBreakerProcessingStopper.State.OPEN);
+    }
+
+    @Test
+    void addErrorAndCheckStop_keepsRunningBelowFailureRate() {
+
+        // arrange
+        boolean stop = false;
+
+        // act
+        for (int i = 0; i < 100; i++) {
+            stop |= i % 3 == 0 ? stopper.addErrorAndCheckStop() : stopper.addSuccessAndCheckStop(10L);
+        }
+
+        // assert
+        assertThat(stop).isFalse();
+        assertThat(stopper.getState()).isEqualTo(CircuitBreakerProcessingStopper.State.CLOSED);
+    }
+
+    @Test
+    void addErrorAndCheckStop_forgetsCallsOutsideOfWindow() {
+
+        // arrange
+        for (int i = 0; i < 9; i++) {
+            stopper.addErrorAndCheckStop();
+        }
+        now.addAndGet(10_000L);
+
+        // act
+        boolean stop = stopper.addErrorAndCheckStop();
+
+        // assert
+        assertThat(stop).isFalse();
+        assertThat(stopper.getStatus()).containsEntry("window_calls", 1L);
+    }
+
+    @Test
+    void addSuccessAndCheckStop_stopsOnSlowCalls() {
+
+        // arrange
+        boolean stop = false;
+
+        // act
+        for (int i = 0; i < 10 && !stop; i++) {
+            stop = stopper.addSuccessAndCheckStop(600L);
+        }
+
+        // assert
+        assertThat(stop).isTrue();
+        assertThat(stopper.getStatus()).containsEntry("error_total", 0L);
+    }
+
+    @Test
+    void checkRestart_closesAfterSuccessfulProbes() {
+
+        // arrange
+        for (int i = 0; i < 10; i++) {
+            stopper.addErrorAndCheckStop();
+        }
+
+        // act
+        boolean restartTooEarly = stopper.checkRestart();
+        now.addAndGet(5_000L);
+        boolean restart = stopper.checkRestart();
+        for (int i = 0; i < 4; i++) {
+            stopper.addSuccessAndCheckStop(10L);
+        }
+
+        // assert
+        assertThat(restartTooEarly).isFalse();
+        assertThat(restart).isTrue();
+        assertThat(stopper.getState()).isEqualTo(CircuitBreakerProcessingStopper.State.CLOSED);
+        assertThat(stopper.getStatus()).containsEntry("window_calls", 0L);
+    }
+
+    @Test
+    void checkRestart_stopsAgainAfterFailingProbes() {
+
+        // arrange
+        for (int i = 0; i < 10; i++) {
+            stopper.addErrorAndCheckStop();
+        }
+        now.addAndGet(5_000L);
+        stopper.checkRestart();
+
+        // act
+        boolean stop1 = stopper.addErrorAndCheckStop();
+        boolean stop2 = stopper.addSuccessAndCheckStop(10L);
+        boolean stop3 = stopper.addErrorAndCheckStop();
+        boolean stop4 = stopper.addSuccessAndCheckStop(10L);
+
+        // assert
+        assertThat(stop1 || stop2 || stop3).isFalse();
+        assertThat(stop4).isTrue();
+        assertThat(stopper.getState()).isEqualTo(CircuitBreakerProcessingStopper.State.OPEN);
+        assertThat(stopper.checkRestart()).isFalse();
+    }
+}
@@ -0,0 +1,124 @@
+package com.giraone.jobs.schedule.stopper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.cloud.stream.binder.Binding;
+import org.springframework.cloud.stream.endpoint.BindingsEndpoint;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SwitchOnOffTest {
+
+    private SwitchOnOff switchOnOff;
+
+    @BeforeEach
+    void setUp() {
+        switchOnOff = new SwitchOnOff(mock(BindingsEndpoint.class));
+    }
+
+    @Test
+    void changeStateToPaused_startsStoppedBindingAndPausesIt() {
+
+        // arrange
+        Binding<?> binding = binding(new AtomicBoolean(false), new AtomicBoolean(false), null);
+        switchOnOff.registerBinding("processResumeB03", binding);
+
+        // act
+        boolean paused = switchOnOff.changeStateToPaused("processResumeB03", true);
+
+        // assert
+        assertThat(paused).isTrue();
+        assertThat(switchOnOff.isRunning("processResumeB03")).isTrue();
+        assertThat(switchOnOff.isPaused("processResumeB03")).isTrue();
+        assertThat(switchOnOff.getState("processResumeB03")).isEqualTo(SwitchOnOff.BindingState.PAUSED);
+    }
+
+    @Test
+    void getState_readsStateChangedOutsideOfTransitions() {
+
+        // arrange
+        AtomicBoolean running = new AtomicBoolean(false);
+        switchOnOff.registerBinding("processResumeB03", binding(running, new AtomicBoolean(false), null));
+        switchOnOff.changeStateToPaused("processResumeB03", true);
+
+        // act - e.g. stopped by the actuator endpoint
+        running.set(false);
+
+        // assert
+        assertThat(switchOnOff.getState("processResumeB03")).isEqualTo(SwitchOnOff.BindingState.STOPPED);
+        assertThat(switchOnOff.isRunning("processResumeB03")).isFalse();
+        assertThat(switchOnOff.isPaused("processResumeB03")).isFalse();
+    }
+
+    @Test
+    void changeStateToPausedAsync_performsTransitionsOfOneBindingInOrder() throws Exception {
+
+        // arrange
+        Binding<?> binding = binding(new AtomicBoolean(true), new AtomicBoolean(false), null);
+        switchOnOff.registerBinding("processResumeB03", binding);
+
+        // act
+        CompletableFuture<Boolean> pause = switchOnOff.changeStateToPausedAsync("processResumeB03", true);
+        CompletableFuture<Boolean> resume = switchOnOff.changeStateToPausedAsync("processResumeB03", false);
+
+        // assert
+        assertThat(resume.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(pause.get(5, TimeUnit.SECONDS)).isTrue();
+        InOrder inOrder = inOrder(binding);
+        inOrder.verify(binding).pause();
+        inOrder.verify(binding).resume();
+    }
+
+    @Test
+    void changeStateToPausedAsync_performsTransitionsOfDifferentBindingsInParallel() throws Exception {
+
+        // arrange
+        CountDownLatch blocked = new CountDownLatch(1);
+        switchOnOff.registerBinding("processResumeB03", binding(new AtomicBoolean(true), new AtomicBoolean(false), blocked));
+        switchOnOff.registerBinding("processResumeB04", binding(new AtomicBoolean(true), new AtomicBoolean(false), null));
+
+        // act
+        CompletableFuture<Boolean> pauseBlocked = switchOnOff.changeStateToPausedAsync("processResumeB03", true);
+        CompletableFuture<Boolean> pause = switchOnOff.changeStateToPausedAsync("processResumeB04", true);
+
+        // assert
+        assertThat(pause.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(pauseBlocked).isNotDone();
+        blocked.countDown();
+        assertThat(pauseBlocked.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // a binding, whose pause waits for the latch, if it is not null
+    private static Binding<?> binding(AtomicBoolean running, AtomicBoolean paused, CountDownLatch pauseLatch) {
+
+        Binding<?> binding = mock(Binding.class);
+        when(binding.isRunning()).thenAnswer(invocation -> running.get());
+        when(binding.isPaused()).thenAnswer(invocation -> paused.get());
+        doAnswer(invocation -> {
+            running.set(true);
+            return null;
+        }).when(binding).start();
+        doAnswer(invocation -> {
+            if (pauseLatch != null) {
+                pauseLatch.await(5, TimeUnit.SECONDS);
+            }
+            paused.set(true);
+            return null;
+        }).when(binding).pause();
+        doAnswer(invocation -> {
+            paused.set(false);
+            return null;
+        }).when(binding).resume();
+        return binding;
+    }
+}
@@ -0,0 +1,207 @@
+package com.giraone.jobs.schedule.streams;
+
+import com.giraone.jobs.events.JobAcceptedEvent;
+import com.giraone.jobs.schedule.config.ApplicationProperties;
+import com.giraone.jobs.schedule.model.ActivationEnum;
+import com.giraone.jobs.schedule.model.ProcessDTO;
+import com.giraone.jobs.schedule.processor.ProcessorAgent;
+import com.giraone.jobs.schedule.processor.ProcessorNotify;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SchedulingTopologyTest {
+
+    private TopologyTestDriver testDriver;
+    private TestInputTopic<String, byte[]> catalogTopic;
+    private TestInputTopic<String, byte[]> acceptedTopic;
+    private TestOutputTopic<String, byte[]> scheduledTopic;
+    private TestOutputTopic<String, byte[]> pausedTopic;
+    private TestOutputTopic<String, byte[]> acceptedErrTopic;
+    private TestOutputTopic<String, byte[]> pausedErrTopic;
+
+    @BeforeEach
+    void setUp() {
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Topics topics = new ApplicationProperties.Topics();
+        topics.setTopicJobAccepted("job-accepted");
+        topics.setTopicJobAcceptedErr("job-accepted-err");
+        topics.setTopicJobScheduled("job-scheduled");
+        topics.setTopicJobScheduledErr("job-scheduled-err");
+        topics.setTopicJobPaused("job-paused");
+        topics.setTopicJobPausedErr("job-paused-err");
+        topics.setTopicJobCompleted("job-completed");
+        topics.setTopicJobCompletedErr("job-completed-err");
+        topics.setTopicJobFailed("job-failed");
+        topics.setTopicJobNotified("job-notified");
+        applicationProperties.setTopics(topics);
+        applicationProperties.getStreams().setResumeChunkSize(2);
+
+        StreamsBuilder builder = new StreamsBuilder();
+        new SchedulingTopology(applicationProperties, mock(ProcessorAgent.class), mock(ProcessorNotify.class)).addTo(builder);
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "schedule-streams-test");
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        testDriver = new TopologyTestDriver(builder.build(), properties);
+
+        catalogTopic = testDriver.createInputTopic("process-catalog", new StringSerializer(), new ByteArraySerializer());
+        acceptedTopic = testDriver.createInputTopic("job-accepted", new StringSerializer(), new ByteArraySerializer());
+        scheduledTopic = testDriver.createOutputTopic("job-scheduled-A01", new StringDeserializer(), new ByteArrayDeserializer());
+        pausedTopic = testDriver.createOutputTopic("job-paused-B01", new StringDeserializer(), new ByteArrayDeserializer());
+        acceptedErrTopic = testDriver.createOutputTopic("job-accepted-err", new StringDeserializer(), new ByteArrayDeserializer());
+        pausedErrTopic = testDriver.createOutputTopic("job-paused-err", new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testDriver.close();
+    }
+
+    @Test
+    void schedule_routesByProcessCatalog() {
+
+        // arrange
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.ACTIVE)));
+
+        // act
+        acceptedTopic.pipeInput("1", job("1", "V001"));
+        acceptedTopic.pipeInput("2", job("2", "V999"));
+
+        // assert
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("1");
+        assertThat(acceptedErrTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("2");
+    }
+
+    @Test
+    void resume_forwardsParkedJobsWhenProcessIsActiveAgain() {
+
+        // arrange
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.PAUSED)));
+        acceptedTopic.pipeInput("1", job("1", "V001"));
+        TestInputTopic<String, byte[]> bucketTopic = testDriver.createInputTopic("job-paused-B01", new StringSerializer(), new ByteArraySerializer());
+        bucketTopic.pipeInput("1", pausedTopic.readValue());
+
+        // act/assert - still paused
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.isEmpty()).isTrue();
+
+        // act/assert - active again
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.ACTIVE)));
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("1");
+    }
+
+    @Test
+    void resume_forwardsOnlyParkedJobsOfActiveProcess() {
+
+        // arrange
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.PAUSED)));
+        catalogTopic.pipeInput("V002", SchedulingTopology.serialize(process("V002", ActivationEnum.PAUSED)));
+        acceptedTopic.pipeInput("1", job("1", "V001"));
+        acceptedTopic.pipeInput("2", job("2", "V002"));
+        acceptedTopic.pipeInput("3", job("3", "V001"));
+        TestInputTopic<String, byte[]> bucketTopic = testDriver.createInputTopic("job-paused-B01", new StringSerializer(), new ByteArraySerializer());
+        pausedTopic.readKeyValuesToList().forEach(kv -> bucketTopic.pipeInput(kv.key, kv.value));
+
+        // act/assert - only V001 is active again
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.ACTIVE)));
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactlyInAnyOrder("1", "3");
+
+        // act/assert - V002 is active again
+        catalogTopic.pipeInput("V002", SchedulingTopology.serialize(process("V002", ActivationEnum.ACTIVE)));
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("2");
+    }
+
+    @Test
+    void resume_forwardsParkedJobsInChunks() {
+
+        // arrange - the chunk size is 2
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.PAUSED)));
+        for (int i = 1; i <= 5; i++) {
+            acceptedTopic.pipeInput(Integer.toString(i), job(Integer.toString(i), "V001"));
+        }
+        TestInputTopic<String, byte[]> bucketTopic = testDriver.createInputTopic("job-paused-B01", new StringSerializer(), new ByteArraySerializer());
+        pausedTopic.readKeyValuesToList().forEach(kv -> bucketTopic.pipeInput(kv.key, kv.value));
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.ACTIVE)));
+
+        // act/assert - one chunk per check
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("1", "2");
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("3", "4");
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("5");
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+        assertThat(scheduledTopic.isEmpty()).isTrue();
+    }
+
+    @Test
+    void resume_sendsJobsOfUnknownProcessToErrorTopic() {
+
+        // arrange
+        catalogTopic.pipeInput("V001", SchedulingTopology.serialize(process("V001", ActivationEnum.PAUSED)));
+        acceptedTopic.pipeInput("1", job("1", "V001"));
+        acceptedTopic.pipeInput("2", job("2", "V001"));
+        TestInputTopic<String, byte[]> bucketTopic = testDriver.createInputTopic("job-paused-B01", new StringSerializer(), new ByteArraySerializer());
+        List<KeyValue<String, byte[]>> pausedJobs = pausedTopic.readKeyValuesToList();
+        bucketTopic.pipeInput(pausedJobs.get(0).key, pausedJobs.get(0).value);
+
+        // act - the process is removed from the catalog
+        catalogTopic.pipeInput("V001", (byte[]) null);
+        bucketTopic.pipeInput(pausedJobs.get(1).key, pausedJobs.get(1).value);
+        testDriver.advanceWallClockTime(Duration.ofSeconds(10));
+
+        // assert - the parked and the new job are not parked forever
+        assertThat(pausedErrTopic.readKeyValuesToList()).extracting(kv -> kv.key).containsExactlyInAnyOrder("1", "2");
+        assertThat(scheduledTopic.isEmpty()).isTrue();
+    }
+
+    @Test
+    void routedSerde_passesValueThrough() {
+
+        // arrange
+        byte[] value = job("1", "V001");
+
+        // act
+        byte[] serialized = SchedulingTopology.ROUTED_SERDE.serializer().serialize("job-scheduled-A01", new SchedulingTopology.Routed("job-scheduled-A01", value));
+        SchedulingTopology.Routed routed = SchedulingTopology.ROUTED_SERDE.deserializer().deserialize("job-scheduled-A01", serialized);
+
+        // assert
+        assertThat(routed.topic()).isEqualTo("job-scheduled-A01");
+        assertThat(routed.value()).isEqualTo(value);
+    }
+
+    private static byte[] job(String id, String processKey) {
+        return SchedulingTopology.serialize(new JobAcceptedEvent(id, processKey, Instant.now(), Instant.now(), "{}"));
+    }
+
+    private static ProcessDTO process(String key, ActivationEnum activation) {
+        ProcessDTO process = new ProcessDTO();
+        process.setKey(key);
+        process.setActivation(activation);
+        process.setAgentKey("A01");
+        process.setBucketKeyIfPaused("B01");
+        return process;
+    }
+}